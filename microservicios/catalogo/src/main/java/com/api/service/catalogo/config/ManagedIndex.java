@@ -0,0 +1,82 @@
+package com.api.service.catalogo.config;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Índice declarado en MongoConfig. Los críticos son los que necesitan las
+ * consultas del catálogo: hasta que están listos la instancia no se anuncia
+ * como disponible.
+ */
+public record ManagedIndex(String collection, IndexDefinition definition, boolean critical) {
+
+    /**
+     * Nombre que le da MongoDB por defecto (p. ej. "categorias_1_precio_1").
+     */
+    public String name() {
+        Object name = definition.getIndexOptions().get("name");
+        if (name != null) {
+            return name.toString();
+        }
+        List<String> parts = new ArrayList<>();
+        definition.getIndexKeys().forEach((field, direction) -> parts.add(field + "_" + direction));
+        return String.join("_", parts);
+    }
+
+    public boolean isText() {
+        return definition.getIndexKeys().containsValue("text");
+    }
+
+    /**
+     * Si un índice existente (documento de listIndexes) tiene las mismas
+     * claves. Una colección solo admite un índice de texto, así que
+     * cualquiera de texto cuenta como el mismo.
+     */
+    public boolean sameKeys(Document existing) {
+        Document keys = existing.get("key", Document.class);
+        if (keys == null) {
+            return false;
+        }
+        if (isText()) {
+            return "text".equals(keys.get("_fts"));
+        }
+        List<Map.Entry<String, Object>> declared = new ArrayList<>(definition.getIndexKeys().entrySet());
+        List<Map.Entry<String, Object>> current = new ArrayList<>(keys.entrySet());
+        if (declared.size() != current.size()) {
+            return false;
+        }
+        for (int i = 0; i < declared.size(); i++) {
+            if (!declared.get(i).getKey().equals(current.get(i).getKey())
+                    || !sameDirection(declared.get(i).getValue(), current.get(i).getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Si las opciones que importan (de momento el TTL) coinciden con las del
+     * índice existente.
+     */
+    public boolean sameOptions(Document existing) {
+        Object declared = definition.getIndexOptions().get("expireAfterSeconds");
+        Object current = existing.get("expireAfterSeconds");
+        if (declared == null || current == null) {
+            return declared == current;
+        }
+        return ((Number) declared).longValue() == ((Number) current).longValue();
+    }
+
+    // El servidor puede devolver 1 como int, long o double
+    private static boolean sameDirection(Object declared, Object current) {
+        if (declared instanceof Number a && current instanceof Number b) {
+            return a.intValue() == b.intValue();
+        }
+        return Objects.equals(declared, current);
+    }
+}
@@ -0,0 +1,47 @@
+package com.api.service.catalogo.config;
+
+import com.api.service.catalogo.service.InMemorySearchIndex;
+import com.api.service.catalogo.service.InventorySnapshot;
+import com.api.service.catalogo.service.SuggestionIndex;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * "memoryIndexes" en /actuator/health y en el grupo readiness: OUT_OF_SERVICE
+ * mientras se construyen en segundo plano el índice de búsqueda en memoria
+ * (si está activo) y el de sugerencias. La copia del inventario solo se
+ * informa: la analítica del back-office no debe dejar la instancia sin tráfico.
+ */
+@Component("memoryIndexesHealthIndicator")
+public class MemoryIndexHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<InMemorySearchIndex> searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final InventorySnapshot inventorySnapshot;
+
+    public MemoryIndexHealthIndicator(ObjectProvider<InMemorySearchIndex> searchIndex,
+            SuggestionIndex suggestionIndex, InventorySnapshot inventorySnapshot) {
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.inventorySnapshot = inventorySnapshot;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Boolean> details = new LinkedHashMap<>();
+        InMemorySearchIndex search = searchIndex.getIfAvailable();
+        if (search != null) {
+            details.put("busqueda", search.isReady());
+        }
+        details.put("sugerencias", suggestionIndex.isReady());
+        details.put("inventario", inventorySnapshot.isReady());
+
+        boolean ready = (search == null || search.isReady()) && suggestionIndex.isReady();
+        return (ready ? Health.up() : Health.outOfService()).withDetails(details).build();
+    }
+}
@@ -1,34 +1,62 @@
 package com.api.service.catalogo.config;
 
 import com.api.service.catalogo.model.Product;
-import jakarta.annotation.PostConstruct;
+import com.api.service.catalogo.model.ProductChange;
+import com.api.service.catalogo.model.StockReservation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.TextIndexDefinition;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Índices del catálogo, declarados aquí y creados en segundo plano por
+ * MongoIndexManager (el arranque ya no espera a que se construyan).
+ */
 @Configuration
 public class MongoConfig {
 
-    private final MongoTemplate mongoTemplate;
-
-    public MongoConfig(MongoTemplate mongoTemplate) {
-        this.mongoTemplate = mongoTemplate;
+    @Bean
+    public MongoIndexManager mongoIndexManager(MongoTemplate mongoTemplate,
+            @Value("${app.catalogo.indexes.retry-interval:30s}") Duration retryInterval) {
+        return new MongoIndexManager(mongoTemplate, declaredIndexes(mongoTemplate), retryInterval);
     }
 
-    @PostConstruct
-    public void initIndices() {
-        // 1. Índice de Texto
-        TextIndexDefinition textIndex = TextIndexDefinition.builder()
-                .onField("nombre", 3F)
-                .onField("descripcion", 2F)
-                .build();
+    static List<ManagedIndex> declaredIndexes(MongoTemplate mongoTemplate) {
+        String products = mongoTemplate.getCollectionName(Product.class);
+        String reservations = mongoTemplate.getCollectionName(StockReservation.class);
+        String changes = mongoTemplate.getCollectionName(ProductChange.class);
+
+        return List.of(
+                // 1. Índice de Texto
+                new ManagedIndex(products, TextIndexDefinition.builder()
+                        .onField("nombre", 3F)
+                        .onField("descripcion", 2F)
+                        .build(), true),
+
+                // 2. Índice para categorías (+ precio para los filtros por rango dentro de una categoría)
+                new ManagedIndex(products,
+                        new Index().on("categorias", Sort.Direction.ASC).on("precio", Sort.Direction.ASC), true),
+
+                // 3. Imágenes PENDIENTE: el barrido de subidas perdidas solo mira las que tienen el campo
+                new ManagedIndex(products, new Index().on("imagePendienteDesde", Sort.Direction.ASC).sparse(), false),
+
+                // 4. Reservas: el barrido busca por estado + expiresAt sin recorrer products
+                new ManagedIndex(reservations,
+                        new Index().on("estado", Sort.Direction.ASC).on("expiresAt", Sort.Direction.ASC), true),
 
-        mongoTemplate.indexOps(Product.class).ensureIndex(textIndex);
+                // 5. TTL: las reservas cerradas (confirmadas o liberadas) se borran solas al día
+                new ManagedIndex(reservations,
+                        new Index().on("cerradaEn", Sort.Direction.ASC).expire(Duration.ofDays(1)), false),
 
-        // 2. Índice para categorías
-        mongoTemplate.indexOps(Product.class)
-                .ensureIndex(new Index().on("categorias", Sort.Direction.ASC));
+                // 6. Feed de cambios: lectura por secuencia y TTL de las lápidas (solo ellas tienen expiraEn)
+                new ManagedIndex(changes, new Index().on("seq", Sort.Direction.ASC), true),
+                new ManagedIndex(changes,
+                        new Index().on("expiraEn", Sort.Direction.ASC).expire(Duration.ZERO), false));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.api.service.catalogo.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "mongoIndexes" en /actuator/health y en el grupo readiness: OUT_OF_SERVICE
+ * hasta que estén los índices críticos. Con eureka.client.healthcheck
+ * activado, Eureka no envía tráfico a la instancia mientras tanto.
+ */
+@Component("mongoIndexesHealthIndicator")
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+    private final MongoIndexManager indexManager;
+
+    public MongoIndexHealthIndicator(MongoIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = indexManager.criticalReady() ? Health.up() : Health.outOfService();
+        return builder.withDetails(indexManager.states()).build();
+    }
+}
@@ -0,0 +1,196 @@
+package com.api.service.catalogo.config;
+
+import com.api.service.catalogo.model.dto.IndexReport;
+import com.api.service.catalogo.model.dto.IndexReport.Estado;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crea en segundo plano los índices declarados en MongoConfig: compara con
+ * los que ya existen (listIndexes) y solo construye los que faltan, los
+ * críticos primero. Si MongoDB falla se reintenta cada retryInterval.
+ * Mientras falte algún crítico, MongoIndexHealthIndicator deja la instancia
+ * fuera de servicio.
+ * <p>
+ * Un índice que existe con las mismas claves pero otras opciones no se
+ * borra ni se recrea: se informa como DISTINTO y se corrige a mano.
+ */
+public class MongoIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final List<ManagedIndex> indexes;
+    private final long retryMillis;
+    private final ScheduledExecutorService builder;
+    private final Map<ManagedIndex, Estado> states = new ConcurrentHashMap<>();
+    private final Map<ManagedIndex, String> errors = new ConcurrentHashMap<>();
+
+    public MongoIndexManager(MongoTemplate mongoTemplate, List<ManagedIndex> indexes, Duration retryInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexes = indexes.stream()
+                .sorted(Comparator.comparing(ManagedIndex::critical).reversed())
+                .toList();
+        this.retryMillis = retryInterval.toMillis();
+        this.indexes.forEach(index -> states.put(index, Estado.PENDIENTE));
+        this.builder = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mongo-index-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        builder.execute(this::sync);
+    }
+
+    /**
+     * Una pasada: marca los que ya existen y construye los que faltan.
+     */
+    void sync() {
+        Map<String, List<Document>> existing = new HashMap<>();
+        boolean failed = false;
+        for (ManagedIndex index : indexes) {
+            if (isUsable(states.get(index))) {
+                continue;
+            }
+            try {
+                List<Document> current = existing.computeIfAbsent(index.collection(), this::listIndexes);
+                Document match = current.stream().filter(index::sameKeys).findFirst().orElse(null);
+                if (match != null) {
+                    if (!index.sameOptions(match)) {
+                        log.warn("El índice {}.{} existe con otras opciones; no se modifica",
+                                index.collection(), match.getString("name"));
+                    }
+                    states.put(index, index.sameOptions(match) ? Estado.LISTO : Estado.DISTINTO);
+                    errors.remove(index);
+                    continue;
+                }
+                states.put(index, Estado.CONSTRUYENDO);
+                long start = System.currentTimeMillis();
+                mongoTemplate.indexOps(index.collection()).ensureIndex(index.definition());
+                states.put(index, Estado.LISTO);
+                errors.remove(index);
+                log.info("Índice {}.{} creado en {} ms", index.collection(), index.name(),
+                        System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                states.put(index, Estado.ERROR);
+                errors.put(index, String.valueOf(e.getMessage()));
+                failed = true;
+                log.warn("No se pudo crear el índice {}.{}: {}", index.collection(), index.name(), e.getMessage());
+            }
+        }
+        if (failed && !builder.isShutdown()) {
+            builder.schedule(this::sync, retryMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Si están listos todos los índices que necesitan las consultas.
+     */
+    public boolean criticalReady() {
+        return indexes.stream().filter(ManagedIndex::critical).allMatch(index -> isUsable(states.get(index)));
+    }
+
+    /**
+     * Estado de cada índice declarado, por "coleccion.nombre".
+     */
+    public Map<String, Estado> states() {
+        Map<String, Estado> result = new LinkedHashMap<>();
+        indexes.forEach(index -> result.put(index.collection() + "." + index.name(), states.get(index)));
+        return result;
+    }
+
+    /**
+     * Todos los índices de las colecciones gestionadas, declarados o no, con
+     * su tamaño ($collStats) y cuántas veces los han usado las consultas
+     * ($indexStats).
+     */
+    public List<IndexReport> report() {
+        Set<String> collections = new LinkedHashSet<>();
+        indexes.forEach(index -> collections.add(index.collection()));
+
+        List<IndexReport> report = new ArrayList<>();
+        for (String collection : collections) {
+            Map<String, Long> sizes = indexSizes(collection);
+            Map<String, Document> usage = new HashMap<>();
+            aggregate(collection, new Document("$indexStats", new Document()))
+                    .forEach(stats -> usage.put(stats.getString("name"), stats.get("accesses", Document.class)));
+
+            List<ManagedIndex> declared = indexes.stream().filter(index -> index.collection().equals(collection)).toList();
+            Set<ManagedIndex> found = new LinkedHashSet<>();
+            for (Document existing : listIndexes(collection)) {
+                String name = existing.getString("name");
+                ManagedIndex index = declared.stream().filter(d -> d.sameKeys(existing)).findFirst().orElse(null);
+                if (index != null) {
+                    found.add(index);
+                }
+                Document accesses = usage.get(name);
+                report.add(new IndexReport(collection, name,
+                        index != null ? states.get(index) : Estado.NO_DECLARADO,
+                        index != null && index.critical(),
+                        sizes.get(name),
+                        accesses != null ? ((Number) accesses.get("ops")).longValue() : null,
+                        accesses != null && accesses.get("since") instanceof Date since ? since.toInstant() : null,
+                        index != null ? errors.get(index) : null));
+            }
+            // Declarados que todavía no existen (pendientes, en construcción o con error)
+            declared.stream()
+                    .filter(index -> !found.contains(index))
+                    .forEach(index -> report.add(new IndexReport(collection, index.name(), states.get(index),
+                            index.critical(), null, null, null, errors.get(index))));
+        }
+        return report;
+    }
+
+    private static boolean isUsable(Estado estado) {
+        return estado == Estado.LISTO || estado == Estado.DISTINTO;
+    }
+
+    private List<Document> listIndexes(String collection) {
+        return mongoTemplate.getCollection(collection).listIndexes().into(new ArrayList<>());
+    }
+
+    private List<Document> aggregate(String collection, Document stage) {
+        return mongoTemplate.getCollection(collection).aggregate(List.of(stage)).into(new ArrayList<>());
+    }
+
+    // En un clúster con shards llega un documento por shard: se suman
+    private Map<String, Long> indexSizes(String collection) {
+        Map<String, Long> sizes = new HashMap<>();
+        for (Document stats : aggregate(collection,
+                new Document("$collStats", new Document("storageStats", new Document())))) {
+            Document storage = stats.get("storageStats", Document.class);
+            Document indexSizes = storage != null ? storage.get("indexSizes", Document.class) : null;
+            if (indexSizes != null) {
+                indexSizes.forEach((name, size) -> sizes.merge(name, ((Number) size).longValue(), Long::sum));
+            }
+        }
+        return sizes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+}
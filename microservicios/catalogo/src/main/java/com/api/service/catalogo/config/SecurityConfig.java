@@ -1,5 +1,7 @@
 package com.api.service.catalogo.config;
 
+import com.api.service.edge.EdgeIdentityFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -7,6 +9,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -16,6 +19,15 @@ public class SecurityConfig {
 
     private final JwtAuthConverter jwtAuthConverter;
 
+    @Value("${app.edge.trusted-headers:false}")
+    private boolean trustedEdgeHeaders;
+
+    @Value("${app.edge.secret:}")
+    private String edgeSecret;
+
+    @Value("${app.edge.max-skew-seconds:60}")
+    private long edgeMaxSkewSeconds;
+
     public SecurityConfig(JwtAuthConverter jwtAuthConverter) {
         this.jwtAuthConverter = jwtAuthConverter;
     }
@@ -27,10 +39,23 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.GET, "/api/catalogo/**").permitAll()
+                        // Sondas de salud (Eureka / readiness); sin detalles para anónimos
+                        .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
+                        // Lectura por lotes: es un POST solo porque la lista de ids no cabe en la URL
+                        .requestMatchers(HttpMethod.POST, "/api/catalogo/batch").permitAll()
                         .anyRequest().authenticated())
                 .oauth2ResourceServer(oauth2 -> oauth2
                         .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthConverter)));
 
+        // Modo trusted edge: si el gateway ya verificó el token, usamos sus cabeceras firmadas
+        if (trustedEdgeHeaders) {
+            http
+                    .addFilterBefore(new EdgeIdentityFilter(edgeSecret, edgeMaxSkewSeconds, jwtAuthConverter),
+                            BearerTokenAuthenticationFilter.class)
+                    .oauth2ResourceServer(oauth2 -> oauth2
+                            .bearerTokenResolver(EdgeIdentityFilter.bearerTokenResolver()));
+        }
+
         return http.build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.config.MongoIndexManager;
+import com.api.service.catalogo.model.dto.IndexReport;
+import com.api.service.catalogo.service.ImageProcessingService;
+import com.api.service.catalogo.service.InMemorySearchIndex;
+import com.api.service.catalogo.service.InventorySnapshot;
+import com.api.service.catalogo.service.ProductCache;
+import com.api.service.catalogo.service.SuggestionIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/catalogo/admin")
+@SecurityRequirement(name = "bearerAuth")
+public class CatalogAdminController {
+
+    private final ProductCache productCache;
+    private final ObjectProvider<InMemorySearchIndex> searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final ImageProcessingService imageProcessing;
+    private final InventorySnapshot inventorySnapshot;
+    private final MongoIndexManager indexManager;
+
+    public CatalogAdminController(ProductCache productCache, ObjectProvider<InMemorySearchIndex> searchIndex,
+            SuggestionIndex suggestionIndex, ImageProcessingService imageProcessing,
+            InventorySnapshot inventorySnapshot, MongoIndexManager indexManager) {
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.imageProcessing = imageProcessing;
+        this.inventorySnapshot = inventorySnapshot;
+        this.indexManager = indexManager;
+    }
+
+    @GetMapping("/cache")
+    @Operation(summary = "Estadísticas de la caché de productos (aciertos y memoria estimada)")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ProductCache.Stats> cacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    @GetMapping("/search-index")
+    @Operation(summary = "Estadísticas del índice de búsqueda en memoria (memoria por producto)")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<InMemorySearchIndex.Stats> searchIndexStats() {
+        InMemorySearchIndex index = searchIndex.getIfAvailable();
+        return index != null ? ResponseEntity.ok(index.stats()) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/suggest-index")
+    @Operation(summary = "Estadísticas del índice de autocompletado (nodos y memoria estimada)")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<SuggestionIndex.Stats> suggestIndexStats() {
+        return ResponseEntity.ok(suggestionIndex.stats());
+    }
+
+    @GetMapping("/images")
+    @Operation(summary = "Imágenes procesadas y subidas evitadas por contenido repetido")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ImageProcessingService.Stats> imageStats() {
+        return ResponseEntity.ok(imageProcessing.stats());
+    }
+
+    @GetMapping("/inventory-snapshot")
+    @Operation(summary = "Estadísticas de la copia en columnas del inventario (memoria estimada)")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<InventorySnapshot.Stats> inventorySnapshotStats() {
+        return ResponseEntity.ok(inventorySnapshot.stats());
+    }
+
+    @GetMapping("/indexes")
+    @Operation(summary = "Índices de MongoDB: estado de construcción, tamaño y uso por las consultas")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<IndexReport>> indexes() {
+        return ResponseEntity.ok(indexManager.report());
+    }
+}
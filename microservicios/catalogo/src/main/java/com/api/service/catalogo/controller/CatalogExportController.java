@@ -0,0 +1,52 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.service.CatalogExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/catalogo/export")
+public class CatalogExportController {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final CatalogExportService exportService;
+
+    public CatalogExportController(CatalogExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Exportar el catálogo completo en NDJSON (streaming, gzip opcional)", security = {})
+    public ResponseEntity<?> export(
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Por defecto todos los campos: es lo que necesita el indexador de búsqueda
+        List<String> projection;
+        try {
+            projection = fields == null ? ProductFields.ALL : ProductFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> exportService.export(projection, out, gzip);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
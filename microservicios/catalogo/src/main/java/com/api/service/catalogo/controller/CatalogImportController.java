@@ -0,0 +1,60 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.dto.ImportReport;
+import com.api.service.catalogo.service.CatalogImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/catalogo/import")
+@SecurityRequirement(name = "bearerAuth")
+public class CatalogImportController {
+
+    static final String CSV = "text/csv";
+    static final String NDJSON = "application/x-ndjson";
+
+    private final CatalogImportService importService;
+
+    public CatalogImportController(CatalogImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(consumes = { CSV, NDJSON })
+    @Operation(summary = "Importar productos desde CSV o NDJSON (streaming, informe de errores por fila)")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO')")
+    public ResponseEntity<ImportReport> importProducts(
+            HttpServletRequest request,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding)
+            throws IOException {
+        CatalogImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? CatalogImportService.Format.CSV
+                : CatalogImportService.Format.NDJSON;
+        // El cuerpo se lee directamente de la petición: ni multipart ni copia en memoria
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            body = new GZIPInputStream(body, 64 * 1024);
+        }
+        return ResponseEntity.ok(importService.importProducts(body, format));
+    }
+
+    // Cabecera del CSV con columnas desconocidas o comillas sin cerrar
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidFile(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
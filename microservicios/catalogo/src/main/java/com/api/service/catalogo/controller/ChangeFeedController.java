@@ -0,0 +1,42 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ChangeFeed;
+import com.api.service.catalogo.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/catalogo/changes")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @Value("${app.catalogo.changes.max-size:500}")
+    private int maxSize = 500;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Cambios del catálogo desde el último token (sincronización incremental de la app)", security = {})
+    public ResponseEntity<ChangeFeed> changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        int pageSize = limit == null ? maxSize : Math.max(1, Math.min(limit, maxSize));
+        return ResponseEntity.ok(changeFeedService.changesSince(since, pageSize, ProductFields.parse(fields)));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,80 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.dto.CategoryValue;
+import com.api.service.catalogo.model.dto.LowStockReport;
+import com.api.service.catalogo.model.dto.PriceHistogram;
+import com.api.service.catalogo.service.InventorySnapshot;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Analítica del inventario para el back-office, calculada sobre la copia en
+ * columnas (InventorySnapshot) sin consultar MongoDB.
+ */
+@RestController
+@RequestMapping("/api/catalogo/admin/inventario")
+@SecurityRequirement(name = "bearerAuth")
+public class InventoryAnalyticsController {
+
+    private static final int MAX_BUCKETS = 1000;
+    private static final int MAX_ITEMS = 1000;
+
+    private final InventorySnapshot inventorySnapshot;
+
+    public InventoryAnalyticsController(InventorySnapshot inventorySnapshot) {
+        this.inventorySnapshot = inventorySnapshot;
+    }
+
+    @GetMapping("/valor-por-categoria")
+    @Operation(summary = "Productos, unidades y valor del stock (precio * stock) por categoría")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO')")
+    public ResponseEntity<List<CategoryValue>> valueByCategory() {
+        return whenReady(inventorySnapshot::valueByCategory);
+    }
+
+    @GetMapping("/stock-bajo")
+    @Operation(summary = "Productos con stock por debajo del umbral (los de menos stock primero)")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO')")
+    public ResponseEntity<LowStockReport> lowStock(
+            @RequestParam(defaultValue = "5") int umbral,
+            @RequestParam(defaultValue = "100") int limit) {
+        return whenReady(() -> inventorySnapshot.lowStock(umbral, Math.max(0, Math.min(limit, MAX_ITEMS))));
+    }
+
+    @GetMapping("/histograma-precios")
+    @Operation(summary = "Histograma de precios (tramos del mismo ancho entre min y max)")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO')")
+    public ResponseEntity<PriceHistogram> priceHistogram(
+            @RequestParam(defaultValue = "20") int buckets,
+            @RequestParam(required = false) Double min,
+            @RequestParam(required = false) Double max) {
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Como mucho " + MAX_BUCKETS + " tramos");
+        }
+        return whenReady(() -> inventorySnapshot.priceHistogram(buckets, min, max));
+    }
+
+    // Hasta que se carga la copia al arrancar se responde 503
+    private <T> ResponseEntity<T> whenReady(Supplier<T> query) {
+        if (!inventorySnapshot.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(query.get());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -1,97 +1,234 @@
 package com.api.service.catalogo.controller;
 
+import com.api.service.catalogo.exception.InvalidQueryException;
+import com.api.service.catalogo.model.ImageStatus;
 import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ProductBatchItem;
+import com.api.service.catalogo.model.dto.ProductBatchRequest;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchPage;
+import com.api.service.catalogo.model.dto.StockReductionRequest;
 import com.api.service.catalogo.repository.ProductRepository;
 import com.api.service.catalogo.service.FileUploadService;
+import com.api.service.catalogo.service.ProductCache;
+import com.api.service.catalogo.service.ProductSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.transaction.annotation.Transactional; // Necesario para reducir stock atómicamente
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
+@Validated
 @RestController
 @RequestMapping("/api/catalogo")
 @SecurityRequirement(name = "bearerAuth")
 public class ProductController {
 
+    // Cabecera con el cursor de la página siguiente (ausente en la última página)
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ProductRepository productRepository;
     private final FileUploadService fileUploadService;
+    private final ProductCache productCache;
+    private final ProductSearchService productSearchService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.catalogo.page.default-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${app.catalogo.page.max-size:200}")
+    private int maxPageSize = 200;
 
-    public ProductController(ProductRepository productRepository, FileUploadService fileUploadService) {
+    public ProductController(ProductRepository productRepository, FileUploadService fileUploadService,
+            ProductCache productCache, ProductSearchService productSearchService,
+            ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.fileUploadService = fileUploadService;
+        this.productCache = productCache;
+        this.productSearchService = productSearchService;
+        this.eventPublisher = eventPublisher;
     }
 
     // --- PÚBLICOS (GET) ---
 
     @GetMapping
-    @Operation(summary = "Listar todos los productos", security = {})
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productRepository.findAll());
+    @Operation(summary = "Listar productos paginados por cursor (cabecera X-Next-Cursor)", security = {})
+    public ResponseEntity<List<Product>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) Integer size,
+            @RequestParam(required = false) String fields) {
+        if (cursor != null && !ObjectId.isValid(cursor)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.min(size != null && size > 0 ? size : defaultPageSize, maxPageSize);
+
+        // Pedimos uno de más para saber si hay página siguiente sin hacer count()
+        List<Product> products = productRepository.findPage(cursor, pageSize + 1, ProductFields.parse(fields));
+
+        if (products.size() <= pageSize) {
+            return ResponseEntity.ok(products);
+        }
+        List<Product> page = products.subList(0, pageSize);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.get(pageSize - 1).getId())
+                .body(page);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Obtener producto por ID", security = {})
     public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        return productRepository.findById(id)
+        // Caché en memoria: se invalida con cada escritura (ProductChangedEvent)
+        return productCache.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar por texto", security = {})
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam("q") String query) {
-        // Asumiendo la implementación en el repositorio de MongoDB
-        return ResponseEntity.ok(productRepository.searchByText(query));
+    @Operation(summary = "Buscar por texto (por relevancia, con facetas por categoría y cursor)", security = {})
+    public ResponseEntity<SearchPage> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) Integer size,
+            @RequestParam(required = false) String fields) {
+        int pageSize = Math.min(size != null && size > 0 ? size : defaultPageSize, maxPageSize);
+        ProductSearchCriteria criteria = new ProductSearchCriteria(
+                query, categoria, precioMin, precioMax, cursor, pageSize, ProductFields.parse(fields));
+        // Índice en memoria o una sola agregación en MongoDB (resultados, facetas y cursor)
+        return ResponseEntity.ok(productSearchService.search(criteria));
+    }
+
+    @GetMapping("/categoria/{categoria}")
+    @Operation(summary = "Listar productos de una categoría", security = {})
+    public ResponseEntity<List<Product>> getProductsByCategoria(
+            @PathVariable String categoria,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(productRepository.findByCategoria(categoria, ProductFields.parse(fields)));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Obtener varios productos por id (una sola consulta, en el orden pedido)", security = {})
+    public ResponseEntity<List<ProductBatchItem>> getProductsByIds(@Valid @RequestBody ProductBatchRequest request) {
+        List<String> fields = ProductFields.parse(request.fields());
+        // Un solo $in para todos los ids distintos; la respuesta sigue el orden de la petición
+        Map<String, Product> found = new HashMap<>();
+        productRepository.findAllByIds(new LinkedHashSet<>(request.ids()), fields)
+                .forEach(p -> found.put(p.getId(), p));
+        List<ProductBatchItem> items = request.ids().stream()
+                .map(id -> {
+                    Product p = found.get(id);
+                    return new ProductBatchItem(id, p != null, p);
+                })
+                .toList();
+        return ResponseEntity.ok(items);
+    }
+
+    // 'fields' con un campo que no existe o cursor de búsqueda inválido
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<String> handleInvalidQuery(InvalidQueryException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // @Min en size o stock (lo comprueba @Validated en la clase)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleConstraintViolation(ConstraintViolationException e) {
+        // La ruta es "metodo.parametro": solo interesa el parámetro
+        String message = e.getConstraintViolations().stream()
+                .map(v -> {
+                    String path = v.getPropertyPath().toString();
+                    return path.substring(path.indexOf('.') + 1) + ": " + v.getMessage();
+                })
+                .sorted()
+                .collect(Collectors.joining(", "));
+        return ResponseEntity.badRequest().body(message);
     }
 
     // --- PROTEGIDOS ---
 
     @PostMapping(consumes = { MediaType.MULTIPART_FORM_DATA_VALUE })
-    @Operation(summary = "Crear producto con imagen")
+    @Operation(summary = "Crear producto con imagen (la imagen se sube en segundo plano: imageStatus)")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO')")
     public ResponseEntity<Product> createProduct(
             @RequestPart("product") @Valid Product product,
             @RequestPart(value = "image", required = false) MultipartFile image) throws IOException {
-        if (image != null && !image.isEmpty()) {
-            String imageUrl = fileUploadService.uploadFile(image);
-            product.setImageUrl(imageUrl);
-        }
         product.setId(null);
-        Product savedProduct = productRepository.save(product);
+        product.setVersion(null); // Con versión, save() lo trataría como una actualización
+        product.setImageVariants(null);
+        product.setImageStatus(null);
+        if (image == null || image.isEmpty()) {
+            Product savedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(ProductChangedEvent.of(savedProduct.getId(), ChangeType.CREADO));
+            return new ResponseEntity<>(savedProduct, HttpStatus.CREATED);
+        }
+
+        // La imagen se sube en segundo plano: el producto se guarda ya con la imagen PENDIENTE
+        FileUploadService.PendingUpload upload;
+        try {
+            upload = fileUploadService.stage(image);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        Product savedProduct;
+        try {
+            product.setImageUrl(null);
+            product.setImageVariants(null);
+            product.setImageStatus(ImageStatus.PENDIENTE);
+            product.setImagePendienteDesde(Instant.now());
+            savedProduct = productRepository.save(product);
+        } catch (RuntimeException e) {
+            fileUploadService.discard(upload);
+            throw e;
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.of(savedProduct.getId(), ChangeType.CREADO));
+        fileUploadService.uploadInBackground(savedProduct.getId(), upload);
         return new ResponseEntity<>(savedProduct, HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Actualizar producto completo (Inventario)")
+    @Operation(summary = "Actualizar producto completo (Inventario); 409 si otro usuario lo cambió antes (version)")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO')")
     public ResponseEntity<Product> updateProduct(@PathVariable String id, @Valid @RequestBody Product productDetails) {
-        return productRepository.findById(id)
-                .map(existingProduct -> {
-                    // Actualizamos todos los campos enviados desde el formulario de edición
-                    existingProduct.setNombre(productDetails.getNombre());
-                    existingProduct.setDescripcion(productDetails.getDescripcion());
-                    existingProduct.setPrecio(productDetails.getPrecio());
-                    existingProduct.setStock(productDetails.getStock()); // <--- Campo Stock
-                    existingProduct.setCategorias(productDetails.getCategorias());
-
-                    // Solo actualizamos imageUrl si el frontend envió una URL nueva (ej. después de
-                    // subir una nueva foto)
-                    if (productDetails.getImageUrl() != null) {
-                        existingProduct.setImageUrl(productDetails.getImageUrl());
-                    }
-                    return ResponseEntity.ok(productRepository.save(existingProduct));
+        // $set de los campos del formulario en un solo viaje; imageUrl solo si el frontend envió una nueva.
+        // Si viene la versión leída, la edición solo se aplica si nadie lo cambió entretanto
+        return productRepository.updateDetails(id, productDetails.getVersion(), productDetails)
+                .map(saved -> {
+                    eventPublisher.publishEvent(ProductChangedEvent.of(id, ChangeType.ACTUALIZADO));
+                    return ResponseEntity.ok(saved);
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElseGet(() -> notFoundOrConflict(id));
+    }
+
+    // La escritura condicionada no distingue por qué no se aplicó
+    private <T> ResponseEntity<T> notFoundOrConflict(String id) {
+        return productRepository.existsById(id)
+                ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                : ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{id}")
@@ -100,6 +237,7 @@ public class ProductController {
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(ProductChangedEvent.of(id, ChangeType.ELIMINADO));
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } else {
             return ResponseEntity.notFound().build();
@@ -110,34 +248,51 @@ public class ProductController {
     @PutMapping("/stock/reducir/{id}")
     @Operation(summary = "Reducir stock por compra")
     @PreAuthorize("isAuthenticated()")
-    @Transactional
     public ResponseEntity<String> reduceStock(@PathVariable String id, @RequestParam Integer cantidad) {
-        return productRepository.findById(id)
-                .map(product -> {
-                    if (product.getStock() < cantidad) {
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Stock insuficiente");
-                    }
-                    if (cantidad <= 0) {
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                .body("La cantidad a reducir debe ser positiva.");
-                    }
-                    product.setStock(product.getStock() - cantidad);
-                    productRepository.save(product);
-                    return ResponseEntity.ok("Stock actualizado");
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Producto no encontrado"));
+        if (cantidad <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("La cantidad a reducir debe ser positiva.");
+        }
+        // Descuento atómico en MongoDB ($inc condicionado): evita el oversell entre compras concurrentes
+        if (productRepository.decrementStock(id, cantidad).isPresent()) {
+            eventPublisher.publishEvent(ProductChangedEvent.of(id, ChangeType.STOCK));
+            return ResponseEntity.ok("Stock actualizado");
+        }
+        if (!productRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Producto no encontrado");
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Stock insuficiente");
+    }
+
+    // --- Descuento de stock de un pedido completo (una sola llamada desde Pedidos) ---
+    @PutMapping("/stock/reducir")
+    @Operation(summary = "Reducir stock de varios productos (todo o nada)")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> reduceStockBulk(@Valid @RequestBody StockReductionRequest request) {
+        // Si el mismo producto aparece varias veces sumamos las cantidades
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        request.items().forEach(item -> cantidades.merge(item.productId(), item.cantidad(), Integer::sum));
+
+        List<String> failed = productRepository.decrementStockAll(UUID.randomUUID().toString(), cantidades);
+        if (failed.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.stock(cantidades.keySet()));
+            return ResponseEntity.ok("Stock actualizado");
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("Stock insuficiente o producto no encontrado: " + String.join(", ", failed));
     }
 
     // --- Endpoint para Inventario (solo actualizar stock) ---
     @PutMapping("/stock/{id}")
-    @Operation(summary = "Actualizar stock manualmente (solo cantidad)")
+    @Operation(summary = "Actualizar stock manualmente (solo cantidad); 409 si la versión no coincide")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO', 'ROLE_REPONEDOR')")
-    public ResponseEntity<Product> updateStock(@PathVariable String id, @RequestParam @Min(0) Integer stock) {
-        return productRepository.findById(id)
-                .map(existingProduct -> {
-                    existingProduct.setStock(stock);
-                    return ResponseEntity.ok(productRepository.save(existingProduct));
+    public ResponseEntity<Product> updateStock(@PathVariable String id, @RequestParam @Min(0) Integer stock,
+            @RequestParam(required = false) Long version) {
+        return productRepository.setStock(id, version, stock)
+                .map(saved -> {
+                    eventPublisher.publishEvent(ProductChangedEvent.of(id, ChangeType.STOCK));
+                    return ResponseEntity.ok(saved);
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElseGet(() -> notFoundOrConflict(id));
     }
-}
\ No newline at end of file
+}
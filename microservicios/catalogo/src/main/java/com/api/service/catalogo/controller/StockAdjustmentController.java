@@ -0,0 +1,41 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.dto.StockAdjustmentReport;
+import com.api.service.catalogo.model.dto.StockAdjustmentRequest;
+import com.api.service.catalogo.service.StockAdjustmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/catalogo/stock/ajustes")
+@SecurityRequirement(name = "bearerAuth")
+public class StockAdjustmentController {
+
+    private final StockAdjustmentService adjustmentService;
+
+    public StockAdjustmentController(StockAdjustmentService adjustmentService) {
+        this.adjustmentService = adjustmentService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Ajustar el stock de una sesión de reposición (absoluto o delta por línea; resultado por producto)")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_GESTOR_INVENTARIO', 'ROLE_REPONEDOR')")
+    public ResponseEntity<StockAdjustmentReport> adjust(@Valid @RequestBody StockAdjustmentRequest request) {
+        // Cada producto lleva su resultado: una línea fallida no anula el resto de la sesión
+        return ResponseEntity.ok(adjustmentService.adjust(request.items()));
+    }
+
+    // Deltas de un producto que suman más de lo que cabe en el stock
+    @ExceptionHandler(ArithmeticException.class)
+    public ResponseEntity<String> handleOverflow(ArithmeticException e) {
+        return ResponseEntity.badRequest().body("El stock resultante de algún producto está fuera de rango");
+    }
+}
@@ -0,0 +1,109 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.ReservationStatus;
+import com.api.service.catalogo.model.StockReservation;
+import com.api.service.catalogo.model.dto.StockReservationRequest;
+import com.api.service.catalogo.service.StockReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/catalogo/reservas")
+@SecurityRequirement(name = "bearerAuth")
+public class StockReservationController {
+
+    private final StockReservationService reservationService;
+
+    public StockReservationController(StockReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Reservar stock de un pedido (todo o nada, con caducidad)")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> reserve(@Valid @RequestBody StockReservationRequest request,
+            @AuthenticationPrincipal Jwt jwt) {
+        Duration ttl = request.ttlSegundos() != null ? Duration.ofSeconds(request.ttlSegundos()) : null;
+        StockReservationService.ReservationResult result = reservationService.reserve(
+                request.reservaId(), request.items(), ttl, owner(jwt));
+
+        if (!result.isReserved()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Stock insuficiente o producto no encontrado: "
+                            + String.join(", ", result.failedProductIds()));
+        }
+        StockReservation reservation = result.reservation();
+        if (reservation.getEstado() == ReservationStatus.PENDIENTE) {
+            // Reintento mientras el primer intento aún descuenta stock: el cliente debe repetir, no rendirse
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("La reserva aún se está aplicando, reintente");
+        }
+        if (reservation.getEstado() != ReservationStatus.ACTIVA
+                && reservation.getEstado() != ReservationStatus.CONFIRMADA) {
+            // Reintento de una reserva que ya no está vigente
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("La reserva ya fue liberada o expiró");
+        }
+        return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{id}/confirmar")
+    @Operation(summary = "Confirmar reserva (pedido pagado)")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> confirm(@PathVariable String id, Authentication authentication) {
+        if (!mayClose(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("La reserva pertenece a otro usuario");
+        }
+        try {
+            return reservationService.confirm(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/liberar")
+    @Operation(summary = "Liberar reserva (pedido cancelado)")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> release(@PathVariable String id, Authentication authentication) {
+        if (!mayClose(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("La reserva pertenece a otro usuario");
+        }
+        try {
+            return reservationService.release(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Solo quien creó la reserva o el servicio de pedidos (rol SERVICIO) pueden cerrarla
+    private boolean mayClose(String reservaId, Authentication authentication) {
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_SERVICIO"))) {
+            return true;
+        }
+        String caller = owner((Jwt) authentication.getPrincipal());
+        return reservationService.find(reservaId)
+                .map(reservation -> caller.equals(reservation.getPropietario()))
+                // Si no existe, confirm/release responden 404
+                .orElse(true);
+    }
+
+    private static String owner(Jwt jwt) {
+        String userId = jwt.getClaimAsString("userId");
+        return userId != null ? userId : jwt.getSubject();
+    }
+}
@@ -0,0 +1,38 @@
+package com.api.service.catalogo.controller;
+
+import com.api.service.catalogo.model.dto.Suggestion;
+import com.api.service.catalogo.service.SuggestionIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/catalogo/suggest")
+public class SuggestionController {
+
+    private static final int DEFAULT_LIMIT = 8;
+
+    private final SuggestionIndex suggestionIndex;
+
+    public SuggestionController(SuggestionIndex suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    @GetMapping
+    @Operation(summary = "Autocompletar nombres de producto y categorías (ordenado por stock)", security = {})
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        // Se consulta con cada tecla: se responde desde memoria, nunca con un $text en MongoDB
+        if (!suggestionIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(suggestionIndex.suggest(prefix, limit != null ? limit : DEFAULT_LIMIT));
+    }
+}
@@ -0,0 +1,13 @@
+package com.api.service.catalogo.exception;
+
+/**
+ * Parámetro de consulta inválido enviado por el cliente ('fields' con un
+ * campo desconocido o un cursor de búsqueda mal formado): se responde con 400.
+ * Extiende IllegalArgumentException para no romper a quien ya la capturaba.
+ */
+public class InvalidQueryException extends IllegalArgumentException {
+
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package com.api.service.catalogo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Imagen ya guardada, identificada por el SHA-256 de su contenido: si se
+ * vuelve a subir la misma foto se reutilizan sus versiones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "imagenes")
+public class ImageAsset {
+
+    @Id
+    private String hash;
+
+    private ImageVariants variants;
+
+    private Instant createdAt;
+}
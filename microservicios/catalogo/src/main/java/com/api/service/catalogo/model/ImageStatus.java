@@ -0,0 +1,7 @@
+package com.api.service.catalogo.model;
+
+public enum ImageStatus {
+    PENDIENTE, // La imagen se está subiendo en segundo plano
+    LISTA,     // imageUrl ya apunta a la imagen subida
+    ERROR      // La subida falló; el producto queda sin imagen
+}
@@ -0,0 +1,8 @@
+package com.api.service.catalogo.model;
+
+/**
+ * URLs de las versiones de la imagen de un producto: miniatura para la
+ * grilla, mediana para la ficha y el original.
+ */
+public record ImageVariants(String thumbnail, String medium, String full) {
+}
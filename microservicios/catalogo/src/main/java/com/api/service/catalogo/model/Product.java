@@ -1,5 +1,7 @@
 package com.api.service.catalogo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -8,9 +10,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -18,6 +22,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "products")
+@JsonInclude(JsonInclude.Include.NON_NULL) // Los campos no proyectados no se envían como null
 public class Product {
 
     @Id
@@ -38,5 +43,27 @@ public class Product {
 
     private List<String> categorias;
 
-    private String imageUrl;
-}
\ No newline at end of file
+    private String imageUrl; // Original (igual que imageVariants.full)
+
+    private ImageVariants imageVariants; // Miniatura y mediana para no descargar el original en la grilla
+
+    private ImageStatus imageStatus; // Solo se informa si la imagen se subió en segundo plano
+
+    // Desde cuándo la imagen está PENDIENTE: si la subida se pierde (p. ej. al reiniciar),
+    // el barrido de FileUploadService la pasa a ERROR
+    @JsonIgnore
+    private Instant imagePendienteDesde;
+
+    // Operaciones de stock en curso (ver ProductRepositoryImpl). Se mapea para que
+    // un save() no borre la marca de una operación que aún puede revertirse
+    @JsonIgnore
+    private List<String> ultimasOperaciones;
+
+    // Reservas activas con stock apartado de este producto (ver StockReservationService);
+    // mapeado por lo mismo: liberar o confirmar la reserva depende de esta marca
+    @JsonIgnore
+    private List<String> reservas;
+
+    @Version
+    private Long version; // Sube con cada escritura; al editar se envía la leída para detectar conflictos
+}
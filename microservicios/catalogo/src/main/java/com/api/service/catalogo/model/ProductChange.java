@@ -0,0 +1,36 @@
+package com.api.service.catalogo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Última escritura de cada producto para la sincronización incremental de la
+ * app (GET /api/catalogo/changes): un documento por producto con el número de
+ * secuencia de su último cambio. Los productos borrados quedan como lápida
+ * hasta expiraEn.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cambios")
+public class ProductChange {
+
+    @Id
+    private String productId;
+
+    private long seq;
+
+    private boolean eliminado;
+
+    private Instant stampedAt;
+
+    // Solo en lápidas (un índice TTL las borra después)
+    private Instant expiraEn;
+}
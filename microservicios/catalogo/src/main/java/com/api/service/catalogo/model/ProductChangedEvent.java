@@ -0,0 +1,34 @@
+package com.api.service.catalogo.model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evento que se publica después de cada escritura sobre productos. Lo usan
+ * las estructuras en memoria (caché de productos, índices) para invalidarse
+ * o actualizarse.
+ *
+ * @param remote true si la escritura la hizo otra instancia y llega por el
+ *               feed de cambios (ChangeFeedWatcher): no se vuelve a registrar
+ */
+public record ProductChangedEvent(List<String> productIds, ChangeType type, boolean remote) {
+
+    public enum ChangeType {
+        CREADO,
+        ACTUALIZADO,
+        STOCK,
+        ELIMINADO
+    }
+
+    public ProductChangedEvent(List<String> productIds, ChangeType type) {
+        this(productIds, type, false);
+    }
+
+    public static ProductChangedEvent of(String productId, ChangeType type) {
+        return new ProductChangedEvent(List.of(productId), type);
+    }
+
+    public static ProductChangedEvent stock(Collection<String> productIds) {
+        return new ProductChangedEvent(List.copyOf(productIds), ChangeType.STOCK);
+    }
+}
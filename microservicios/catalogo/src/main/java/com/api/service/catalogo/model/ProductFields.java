@@ -0,0 +1,50 @@
+package com.api.service.catalogo.model;
+
+import com.api.service.catalogo.exception.InvalidQueryException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Campos de Product que se pueden pedir con el parámetro 'fields' de los
+ * listados. La proyección se aplica en la consulta a MongoDB, así que los
+ * campos no pedidos (p. ej. la descripción larga) ni se leen ni se serializan.
+ */
+public final class ProductFields {
+
+    public static final List<String> ALL = List.of(
+            "id", "nombre", "descripcion", "precio", "stock", "categorias", "imageUrl", "imageVariants",
+            "imageStatus");
+
+    // Lo que muestra la grilla de la app móvil
+    public static final List<String> SUMMARY = List.of("id", "nombre", "precio", "stock", "imageUrl", "imageVariants");
+
+    private ProductFields() {
+    }
+
+    /**
+     * Convierte "nombre,precio" en la lista de campos a proyectar. Sin valor
+     * devuelve el resumen; el id se incluye siempre (lo necesita el cursor).
+     *
+     * @throws InvalidQueryException si se pide un campo desconocido
+     */
+    public static List<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return SUMMARY;
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        parsed.add("id");
+        for (String raw : fields.split(",")) {
+            String field = raw.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!ALL.contains(field)) {
+                throw new InvalidQueryException("Campo desconocido: " + field);
+            }
+            parsed.add(field);
+        }
+        return List.copyOf(parsed);
+    }
+}
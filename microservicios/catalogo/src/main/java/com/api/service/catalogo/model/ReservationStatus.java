@@ -0,0 +1,9 @@
+package com.api.service.catalogo.model;
+
+public enum ReservationStatus {
+    PENDIENTE,  // Creada, el stock se está descontando
+    ACTIVA,     // Stock apartado hasta expiresAt
+    LIBERANDO,  // Cancelada o expirada, devolviendo el stock
+    LIBERADA,   // Stock devuelto
+    CONFIRMADA  // Pedido pagado: el stock queda descontado definitivamente
+}
@@ -0,0 +1,42 @@
+package com.api.service.catalogo.model;
+
+import com.api.service.catalogo.model.dto.StockItem;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reserva temporal de stock de un pedido. Mientras está ACTIVA el stock ya
+ * está descontado del producto; si no se confirma antes de expiresAt el
+ * barrido de expiradas lo devuelve.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "reservas")
+public class StockReservation {
+
+    @Id
+    private String id;
+
+    private List<StockItem> items;
+
+    // userId (o sub) de quien la creó: solo él o el rol SERVICIO pueden confirmarla o liberarla
+    private String propietario;
+
+    private ReservationStatus estado;
+
+    private Instant createdAt;
+
+    private Instant expiresAt;
+
+    // Momento en que se confirmó o liberó (un índice TTL borra la reserva después)
+    private Instant cerradaEn;
+}
@@ -0,0 +1,9 @@
+package com.api.service.catalogo.model.dto;
+
+/**
+ * Inventario de una categoría: productos, unidades en stock y valor
+ * (precio * stock). Un producto con varias categorías cuenta en todas;
+ * categoria es null para los productos sin categoría.
+ */
+public record CategoryValue(String categoria, long productos, long unidades, double valor) {
+}
@@ -0,0 +1,14 @@
+package com.api.service.catalogo.model.dto;
+
+import com.api.service.catalogo.model.Product;
+
+import java.util.List;
+
+/**
+ * Cambios del catálogo desde el último token del cliente: productos creados o
+ * modificados (con los campos pedidos) e ids borrados. Con 'reset' el token
+ * no sirve (primera sincronización o demasiado antiguo) y hay que descargar
+ * el listado completo antes de seguir con el token devuelto.
+ */
+public record ChangeFeed(List<Product> changed, List<String> deleted, String token, boolean hasMore, boolean reset) {
+}
@@ -0,0 +1,18 @@
+package com.api.service.catalogo.model.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva. 'errors' se corta en el máximo
+ * configurado (errorsTruncated = true), pero 'failed' cuenta todas las filas
+ * rechazadas.
+ */
+public record ImportReport(long rows, long inserted, long failed, long millis, double rowsPerSecond,
+                           List<RowError> errors, boolean errorsTruncated) {
+
+    /**
+     * Fila rechazada (numerada desde 1, sin contar la cabecera del CSV).
+     */
+    public record RowError(long row, String error) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.api.service.catalogo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Estado, tamaño y uso de un índice de MongoDB. Los contadores de uso
+ * ($indexStats) se reinician al reiniciar el servidor (desde usosDesde).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IndexReport(String coleccion, String nombre, Estado estado, boolean critico,
+                          Long tamanoBytes, Long usos, Instant usosDesde, String error) {
+
+    public enum Estado {
+        PENDIENTE,
+        CONSTRUYENDO,
+        LISTO,
+        DISTINTO, // Existe con las mismas claves pero otras opciones (p. ej. otro TTL): no se toca
+        ERROR,
+        NO_DECLARADO // Existe en MongoDB pero no en MongoConfig
+    }
+}
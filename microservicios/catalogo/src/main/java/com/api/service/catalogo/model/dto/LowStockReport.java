@@ -0,0 +1,13 @@
+package com.api.service.catalogo.model.dto;
+
+import java.util.List;
+
+/**
+ * Productos con stock por debajo del umbral: cuántos hay en total y los de
+ * menos stock (hasta el límite pedido).
+ */
+public record LowStockReport(long total, List<Item> items) {
+
+    public record Item(String id, int stock) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.api.service.catalogo.model.dto;
+
+import java.util.List;
+
+/**
+ * Distribución de precios en tramos del mismo ancho entre min y max (el
+ * último tramo incluye max). Los productos sin precio no cuentan.
+ */
+public record PriceHistogram(double min, double max, List<Bucket> buckets) {
+
+    public record Bucket(double desde, double hasta, long productos, long unidades) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.api.service.catalogo.model.dto;
+
+import com.api.service.catalogo.model.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de un id pedido en el lote, en el mismo orden de la petición;
+ * si no existe, found = false y sin producto.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductBatchItem(String id, boolean found, Product product) {
+}
@@ -0,0 +1,13 @@
+package com.api.service.catalogo.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Ids a resolver de una vez (carrito, precios de un pedido...); 'fields' como en los listados
+public record ProductBatchRequest(
+        @NotEmpty @Size(max = 500) List<@NotBlank String> ids,
+        String fields) {
+}
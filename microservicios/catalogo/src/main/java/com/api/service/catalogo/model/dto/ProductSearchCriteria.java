@@ -0,0 +1,21 @@
+package com.api.service.catalogo.model.dto;
+
+import java.util.List;
+
+/**
+ * Parámetros de GET /api/catalogo/search.
+ *
+ * @param categoria filtro opcional (no afecta al conteo de facetas)
+ * @param cursor    valor 'next' de la página anterior, o null
+ * @param limit     tamaño de página ya acotado por el controlador
+ * @param fields    campos a proyectar (ver ProductFields)
+ */
+public record ProductSearchCriteria(
+        String q,
+        String categoria,
+        Double precioMin,
+        Double precioMax,
+        String cursor,
+        int limit,
+        List<String> fields) {
+}
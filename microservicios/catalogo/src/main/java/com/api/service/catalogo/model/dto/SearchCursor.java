@@ -0,0 +1,43 @@
+package com.api.service.catalogo.model.dto;
+
+import com.api.service.catalogo.exception.InvalidQueryException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición en los resultados de búsqueda: relevancia y _id del último
+ * producto devuelto (el _id desempata productos con la misma relevancia).
+ * Se envía al cliente como texto opaco en SearchPage.next.
+ */
+public record SearchCursor(double score, Object idValue) {
+
+    public String encode() {
+        String id = idValue instanceof ObjectId objectId ? objectId.toHexString() : idValue.toString();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((score + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidQueryException si el cursor no es válido
+     */
+    public static SearchCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            double score = Double.parseDouble(decoded.substring(0, separator));
+            String id = decoded.substring(separator + 1);
+            return new SearchCursor(score, ObjectId.isValid(id) ? new ObjectId(id) : id);
+        } catch (RuntimeException e) {
+            throw new InvalidQueryException("Cursor de búsqueda inválido");
+        }
+    }
+
+    /**
+     * El id como texto (hex para ObjectId): mismo orden que _id en MongoDB.
+     */
+    public String id() {
+        return idValue instanceof ObjectId objectId ? objectId.toHexString() : idValue.toString();
+    }
+}
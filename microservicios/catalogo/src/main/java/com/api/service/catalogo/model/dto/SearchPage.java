@@ -0,0 +1,16 @@
+package com.api.service.catalogo.model.dto;
+
+import com.api.service.catalogo.model.Product;
+
+import java.util.List;
+
+/**
+ * Página de resultados de búsqueda ordenada por relevancia, con el número de
+ * resultados por categoría y el cursor de la página siguiente (null si es la
+ * última).
+ */
+public record SearchPage(List<Product> items, List<CategoryFacet> facets, String next) {
+
+    public record CategoryFacet(String categoria, long count) {
+    }
+}
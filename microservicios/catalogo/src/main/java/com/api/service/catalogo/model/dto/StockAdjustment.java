@@ -0,0 +1,26 @@
+package com.api.service.catalogo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Una línea de una sesión de reposición: stock contado en la estantería
+ * (absoluto) o unidades que se añaden o retiran (delta).
+ */
+public record StockAdjustment(
+        @NotBlank String productId,
+        @PositiveOrZero Integer stock,
+        @Min(-StockAdjustment.MAX_DELTA) @Max(StockAdjustment.MAX_DELTA) Integer delta) {
+
+    public static final int MAX_DELTA = 1_000_000;
+
+    @JsonIgnore
+    @AssertTrue(message = "Cada línea lleva 'stock' o 'delta', no los dos")
+    public boolean isStockOrDelta() {
+        return (stock == null) != (delta == null);
+    }
+}
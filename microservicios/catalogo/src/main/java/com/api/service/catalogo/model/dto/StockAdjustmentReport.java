@@ -0,0 +1,11 @@
+package com.api.service.catalogo.model.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de una sesión de reposición: líneas recibidas, productos
+ * distintos (las líneas del mismo producto se agrupan) y resultado de cada
+ * producto en el orden en que apareció.
+ */
+public record StockAdjustmentReport(int lineas, int productos, int aplicados, List<StockAdjustmentResult> resultados) {
+}
@@ -0,0 +1,12 @@
+package com.api.service.catalogo.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Líneas escaneadas en una sesión de reposición; el mismo producto puede aparecer varias veces
+public record StockAdjustmentRequest(
+        @NotEmpty @Size(max = 10_000) List<@Valid StockAdjustment> items) {
+}
@@ -0,0 +1,17 @@
+package com.api.service.catalogo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de un producto de la sesión de reposición, con su stock después
+ * del ajuste (o el que tenía si no se aplicó).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StockAdjustmentResult(String productId, Estado estado, Integer stock) {
+
+    public enum Estado {
+        APLICADO,
+        NO_ENCONTRADO,
+        STOCK_INSUFICIENTE // El stock quedaría negativo
+    }
+}
@@ -0,0 +1,32 @@
+package com.api.service.catalogo.model.dto;
+
+/**
+ * Cambio de stock ya agrupado de un producto: stock final = (set, o el
+ * actual si es null) + delta.
+ */
+public record StockChange(Integer set, int delta) {
+
+    public static StockChange of(StockAdjustment adjustment) {
+        return adjustment.stock() != null
+                ? new StockChange(adjustment.stock(), 0)
+                : new StockChange(null, adjustment.delta());
+    }
+
+    /**
+     * Este cambio seguido de 'next': un valor absoluto descarta lo anterior.
+     *
+     * @throws ArithmeticException si la suma de deltas no cabe en un int
+     */
+    public StockChange then(StockChange next) {
+        return next.set() != null ? next : new StockChange(set, Math.addExact(delta, next.delta()));
+    }
+
+    /**
+     * Stock final de un cambio absoluto (set + delta), o null si es relativo.
+     *
+     * @throws ArithmeticException si no cabe en un int
+     */
+    public Integer target() {
+        return set != null ? Math.addExact(set, delta) : null;
+    }
+}
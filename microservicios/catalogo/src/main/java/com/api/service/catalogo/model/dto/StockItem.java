@@ -0,0 +1,10 @@
+package com.api.service.catalogo.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record StockItem(
+        @NotBlank String productId,
+        @NotNull @Positive Integer cantidad) {
+}
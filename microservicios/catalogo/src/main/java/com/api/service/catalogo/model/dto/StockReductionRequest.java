@@ -0,0 +1,12 @@
+package com.api.service.catalogo.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Todos los productos de un pedido: se descuentan juntos o no se descuenta ninguno
+public record StockReductionRequest(
+        @NotEmpty @Size(max = 500) List<@Valid StockItem> items) {
+}
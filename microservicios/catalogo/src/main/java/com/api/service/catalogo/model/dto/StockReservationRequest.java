@@ -0,0 +1,19 @@
+package com.api.service.catalogo.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// reservaId es opcional: si se envía, repetir la petición devuelve la misma reserva.
+// ttlSegundos se recorta además a app.reservas.max-ttl en el servicio
+public record StockReservationRequest(
+        @Size(max = 64) String reservaId,
+        @NotEmpty @Size(max = 500) List<@Valid StockItem> items,
+        @Positive @Max(MAX_TTL_SEGUNDOS) Long ttlSegundos) {
+
+    public static final long MAX_TTL_SEGUNDOS = 86_400;
+}
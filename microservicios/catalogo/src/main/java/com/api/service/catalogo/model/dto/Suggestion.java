@@ -0,0 +1,16 @@
+package com.api.service.catalogo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Sugerencia del autocompletado: el nombre de un producto (con su id) o una
+ * categoría. 'peso' es el stock del producto o el stock total de la categoría.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Suggestion(String texto, Tipo tipo, String productId, long peso) {
+
+    public enum Tipo {
+        PRODUCTO,
+        CATEGORIA
+    }
+}
@@ -0,0 +1,31 @@
+package com.api.service.catalogo.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición de un cliente en el feed de cambios: última secuencia que ya
+ * tiene y cuándo se le entregó (para saber si las lápidas que le faltan
+ * siguen guardadas). Se envía como texto opaco en ChangeFeed.token.
+ */
+public record SyncToken(long seq, long issuedAtMillis) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((seq + ":" + issuedAtMillis).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException si el token no es válido
+     */
+    public static SyncToken decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new SyncToken(Long.parseLong(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Token de sincronización inválido");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.exception.InvalidQueryException;
+import com.api.service.catalogo.model.ImageStatus;
+import com.api.service.catalogo.model.ImageVariants;
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchPage;
+import com.api.service.catalogo.model.dto.StockAdjustmentResult;
+import com.api.service.catalogo.model.dto.StockChange;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Operaciones que no se pueden expresar con métodos derivados de Spring Data
+ * (implementadas en ProductRepositoryImpl con MongoTemplate).
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Página de productos ordenada por _id a partir de 'afterId' (keyset: usa
+     * el índice de _id, sin skip), leyendo solo los campos indicados.
+     *
+     * @param afterId último id de la página anterior, o null para la primera
+     */
+    List<Product> findPage(String afterId, int limit, Collection<String> fields);
+
+    /**
+     * Recorre todo el catálogo ordenado por _id con un cursor de MongoDB que
+     * trae 'batchSize' documentos por viaje. Hay que cerrar el Stream (cierra
+     * el cursor).
+     */
+    Stream<Product> streamAll(Collection<String> fields, int batchSize);
+
+    /**
+     * Búsqueda de texto completo en una sola agregación: resultados ordenados
+     * por relevancia (textScore) y paginados por cursor, más el conteo de
+     * resultados por categoría.
+     *
+     * @throws InvalidQueryException si el cursor no es válido
+     */
+    SearchPage search(ProductSearchCriteria criteria);
+
+    /**
+     * Varios productos por id con una sola consulta ($in sobre _id), leyendo
+     * solo los campos indicados. El orden del resultado no es el de 'ids'.
+     */
+    List<Product> findAllByIds(Collection<String> ids, Collection<String> fields);
+
+    /**
+     * Productos de una categoría leyendo solo los campos indicados.
+     */
+    List<Product> findByCategoria(String categoria, Collection<String> fields);
+
+    /**
+     * Edición del formulario de inventario con un solo findAndModify: $set de
+     * nombre, descripción, precio, stock y categorías (y de imageUrl si viene
+     * una nueva, quitando las versiones de la anterior) sin reescribir el
+     * resto del documento. Sube la versión del producto.
+     *
+     * @param expectedVersion versión leída por quien edita, o null para no
+     *                        comprobarla (los documentos sin versión cuentan
+     *                        como 0)
+     * @return el producto actualizado, o vacío si no existe o la versión no
+     *         coincide (otro usuario lo cambió antes)
+     */
+    Optional<Product> updateDetails(String id, Long expectedVersion, Product details);
+
+    /**
+     * Fija el stock con un $set (y $inc de la versión) en un solo viaje.
+     *
+     * @return el producto actualizado, o vacío si no existe o la versión no
+     *         coincide
+     * @see #updateDetails
+     */
+    Optional<Product> setStock(String id, Long expectedVersion, int stock);
+
+    /**
+     * Resta 'cantidad' al stock en una sola operación atómica en el servidor
+     * ($inc condicionado a stock >= cantidad).
+     *
+     * @return el stock restante, o vacío si el producto no existe o no hay
+     *         stock suficiente
+     */
+    Optional<Integer> decrementStock(String id, int cantidad);
+
+    /**
+     * Descuenta el stock de varios productos con una sola operación bulk en
+     * MongoDB, todo o nada: si algún producto no tiene stock suficiente (o no
+     * existe) se devuelve lo que ya se había descontado.
+     *
+     * @param operationId identificador único de la operación, usado para saber
+     *                    qué productos hay que revertir
+     * @param cantidades  cantidad a descontar por id de producto
+     * @return los ids que no se pudieron descontar (vacío si todo fue bien)
+     */
+    List<String> decrementStockAll(String operationId, Map<String, Integer> cantidades);
+
+    /**
+     * Aplica los ajustes de varias sesiones de reposición con un único bulk
+     * ORDERED: una operación por sesión y producto ($set del stock final o
+     * $inc, los negativos condicionados a que haya stock), en el orden de la
+     * lista, cada una marcada con el id de su sesión. Una sola lectura
+     * posterior da el resultado de cada sesión y el stock de cada producto
+     * al terminar; después se quitan las marcas.
+     *
+     * @param sessions cambios de cada sesión, ya agrupados por id de producto
+     * @return el resultado de cada producto de cada sesión, en el mismo orden
+     */
+    List<Map<String, StockAdjustmentResult>> applyStockChanges(List<Map<String, StockChange>> sessions);
+
+    /**
+     * Igual que decrementStockAll, pero deja el id de la reserva en cada
+     * producto hasta que se confirme o se libere (ver releaseReservations).
+     *
+     * @return los ids que no se pudieron reservar (vacío si todo fue bien)
+     */
+    List<String> reserveStock(String reservaId, Map<String, Integer> cantidades);
+
+    /**
+     * Devuelve al stock las cantidades de varias reservas en un único bulk.
+     * Solo se tocan los productos que siguen marcados con la reserva, así que
+     * repetir la llamada no devuelve el stock dos veces.
+     *
+     * @param cantidadesPorReserva id de reserva -> (id de producto -> cantidad)
+     */
+    void releaseReservations(Map<String, Map<String, Integer>> cantidadesPorReserva);
+
+    /**
+     * Quita la marca de la reserva de sus productos: el stock queda descontado.
+     */
+    void confirmReservation(String reservaId, Collection<String> productIds);
+
+    /**
+     * Termina una subida de imagen en segundo plano con un $set de imageUrl,
+     * imageVariants e imageStatus, solo si el producto sigue con la imagen
+     * PENDIENTE.
+     *
+     * @param variants versiones subidas, o null si la subida falló
+     * @return false si el producto ya no existe o ya no espera esa imagen
+     */
+    boolean completeImage(String id, ImageVariants variants, ImageStatus status);
+
+    /**
+     * Pasa a ERROR las imágenes que siguen PENDIENTE desde antes de 'before'
+     * (su subida se perdió, p. ej. al reiniciar la instancia que la tenía en
+     * cola).
+     *
+     * @return ids de los productos marcados
+     */
+    List<String> expirePendingImages(Instant before);
+}
@@ -0,0 +1,423 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.ImageStatus;
+import com.api.service.catalogo.model.ImageVariants;
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchCursor;
+import com.api.service.catalogo.model.dto.SearchPage;
+import com.api.service.catalogo.model.dto.StockAdjustmentResult;
+import com.api.service.catalogo.model.dto.StockChange;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Implementación de ProductRepositoryCustom (Spring Data la detecta por el
+ * sufijo "Impl").
+ */
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Campo interno (Product.ultimasOperaciones, no se expone en la API) con los ids de
+    // las operaciones de stock en curso sobre el documento; sirve para revertirlas y se quita al terminar.
+    static final String OPERATIONS_FIELD = "ultimasOperaciones";
+
+    // Relevancia ($meta: textScore) calculada en la búsqueda
+    private static final String SCORE_FIELD = "score";
+    private static final int MAX_FACETS = 20;
+
+    // Campo interno (Product.reservas) con las reservas activas que tienen stock apartado de este producto
+    static final String RESERVATIONS_FIELD = "reservas";
+
+    // Versión de Product (@Version): toda escritura la sube para que las ediciones con versión vieja fallen
+    static final String VERSION_FIELD = "version";
+
+    // Product.imagePendienteDesde: solo lo tienen las imágenes que se están subiendo
+    static final String IMAGE_PENDING_SINCE_FIELD = "imagePendienteDesde";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Product> findPage(String afterId, int limit, Collection<String> fields) {
+        Query query = afterId == null ? new Query() : Query.query(Criteria.where("_id").gt(afterId));
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        return mongoTemplate.find(project(query, fields), Product.class);
+    }
+
+    @Override
+    public Stream<Product> streamAll(Collection<String> fields, int batchSize) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(batchSize);
+        return mongoTemplate.stream(project(query, fields), Product.class);
+    }
+
+    @Override
+    public SearchPage search(ProductSearchCriteria criteria) {
+        // 1. $text (tiene que ser la primera etapa) + rango de precio
+        Document match = new Document("$text", new Document("$search", criteria.q()));
+        Document precio = new Document();
+        if (criteria.precioMin() != null) {
+            precio.append("$gte", criteria.precioMin());
+        }
+        if (criteria.precioMax() != null) {
+            precio.append("$lte", criteria.precioMax());
+        }
+        if (!precio.isEmpty()) {
+            match.append("precio", precio);
+        }
+
+        // 2. Resultados: filtro de categoría, cursor (score, _id) y top-k por relevancia
+        List<Document> items = new ArrayList<>();
+        if (criteria.categoria() != null) {
+            items.add(new Document("$match", new Document("categorias", criteria.categoria())));
+        }
+        if (criteria.cursor() != null) {
+            SearchCursor after = SearchCursor.decode(criteria.cursor());
+            items.add(new Document("$match", new Document("$or", List.of(
+                    new Document(SCORE_FIELD, new Document("$lt", after.score())),
+                    new Document(SCORE_FIELD, after.score()).append("_id", new Document("$gt", after.idValue()))))));
+        }
+        items.add(new Document("$sort", new Document(SCORE_FIELD, -1).append("_id", 1)));
+        items.add(new Document("$limit", criteria.limit() + 1));
+        Document projection = new Document(SCORE_FIELD, 1);
+        criteria.fields().forEach(field -> projection.append("id".equals(field) ? "_id" : field, 1));
+        items.add(new Document("$project", projection));
+
+        // 3. Facetas: sin el filtro de categoría, para poder cambiar de categoría
+        List<Document> facets = List.of(
+                new Document("$unwind", "$categorias"),
+                new Document("$group", new Document("_id", "$categorias").append("count", new Document("$sum", 1))),
+                new Document("$sort", new Document("count", -1).append("_id", 1)),
+                new Document("$limit", MAX_FACETS));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                stage(new Document("$match", match)),
+                stage(new Document("$addFields", new Document(SCORE_FIELD, new Document("$meta", "textScore")))),
+                stage(new Document("$facet", new Document("items", items).append("facets", facets))));
+        Document result = mongoTemplate.aggregate(aggregation,
+                mongoTemplate.getCollectionName(Product.class), Document.class).getUniqueMappedResult();
+
+        List<Document> found = result != null ? result.getList("items", Document.class) : List.of();
+        List<Document> page = found.size() > criteria.limit() ? found.subList(0, criteria.limit()) : found;
+        String next = null;
+        if (found.size() > criteria.limit()) {
+            Document last = page.get(page.size() - 1);
+            next = new SearchCursor(last.get(SCORE_FIELD, Number.class).doubleValue(), last.get("_id")).encode();
+        }
+
+        List<SearchPage.CategoryFacet> categoryFacets = result == null ? List.of()
+                : result.getList("facets", Document.class).stream()
+                        .map(f -> new SearchPage.CategoryFacet(f.getString("_id"), f.get("count", Number.class).longValue()))
+                        .toList();
+        return new SearchPage(
+                page.stream().map(doc -> mongoTemplate.getConverter().read(Product.class, doc)).toList(),
+                categoryFacets,
+                next);
+    }
+
+    // Etapa de agregación escrita directamente en BSON
+    private static AggregationOperation stage(Document document) {
+        return context -> document;
+    }
+
+    @Override
+    public List<Product> findByCategoria(String categoria, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("categorias").is(categoria));
+        return mongoTemplate.find(project(query, fields), Product.class);
+    }
+
+    @Override
+    public List<Product> findAllByIds(Collection<String> ids, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        return mongoTemplate.find(project(query, fields), Product.class);
+    }
+
+    // Proyección en el servidor: MongoDB solo devuelve los campos pedidos
+    private static Query project(Query query, Collection<String> fields) {
+        fields.forEach(field -> query.fields().include(field));
+        return query;
+    }
+
+    @Override
+    public Optional<Product> updateDetails(String id, Long expectedVersion, Product details) {
+        Update update = new Update();
+        setOrUnset(update, "nombre", details.getNombre());
+        setOrUnset(update, "descripcion", details.getDescripcion());
+        setOrUnset(update, "precio", details.getPrecio());
+        setOrUnset(update, "stock", details.getStock());
+        setOrUnset(update, "categorias", details.getCategorias());
+        if (details.getImageUrl() != null) {
+            // Las versiones eran de la imagen anterior y, si había una subida pendiente, gana esta URL
+            update.set("imageUrl", details.getImageUrl()).unset("imageVariants").unset("imageStatus")
+                    .unset(IMAGE_PENDING_SINCE_FIELD);
+        }
+        return updateVersioned(id, expectedVersion, update);
+    }
+
+    @Override
+    public Optional<Product> setStock(String id, Long expectedVersion, int stock) {
+        return updateVersioned(id, expectedVersion, new Update().set("stock", stock));
+    }
+
+    // Igual que al guardar con save(): los campos a null no se escriben
+    private static void setOrUnset(Update update, String field, Object value) {
+        if (value == null) {
+            update.unset(field);
+        } else {
+            update.set(field, value);
+        }
+    }
+
+    private Optional<Product> updateVersioned(String id, Long expectedVersion, Update update) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria = expectedVersion == 0
+                    ? criteria.orOperator(Criteria.where(VERSION_FIELD).is(0L), Criteria.where(VERSION_FIELD).exists(false))
+                    : criteria.and(VERSION_FIELD).is(expectedVersion);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                Query.query(criteria),
+                update.inc(VERSION_FIELD, 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class));
+    }
+
+    @Override
+    public Optional<Integer> decrementStock(String id, int cantidad) {
+        // La condición y el descuento se evalúan juntos en MongoDB: no hay oversell
+        Query query = Query.query(Criteria.where("_id").is(id).and("stock").gte(cantidad));
+        query.fields().include("stock");
+
+        Product updated = mongoTemplate.findAndModify(
+                query,
+                new Update().inc("stock", -cantidad).inc(VERSION_FIELD, 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+
+        return Optional.ofNullable(updated).map(Product::getStock);
+    }
+
+    @Override
+    public List<String> decrementStockAll(String operationId, Map<String, Integer> cantidades) {
+        return decrementAllOrNothing(OPERATIONS_FIELD, operationId, cantidades, false);
+    }
+
+    @Override
+    public List<Map<String, StockAdjustmentResult>> applyStockChanges(List<Map<String, StockChange>> sessions) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class);
+        List<String> operationIds = new ArrayList<>(sessions.size());
+        Set<String> ids = new LinkedHashSet<>();
+        int operations = 0;
+        for (Map<String, StockChange> changes : sessions) {
+            String operationId = UUID.randomUUID().toString();
+            operationIds.add(operationId);
+            for (Map.Entry<String, StockChange> entry : changes.entrySet()) {
+                String id = entry.getKey();
+                StockChange change = entry.getValue();
+                ids.add(id);
+                Criteria criteria = Criteria.where("_id").is(id);
+                Update update;
+                if (change.set() != null) {
+                    int stock = change.target();
+                    if (stock < 0) {
+                        // Sin marca: queda como STOCK_INSUFICIENTE
+                        continue;
+                    }
+                    update = new Update().set("stock", stock);
+                } else {
+                    if (change.delta() < 0) {
+                        criteria = criteria.and("stock").gte(Math.negateExact(change.delta()));
+                    }
+                    update = new Update().inc("stock", change.delta());
+                }
+                update.inc(VERSION_FIELD, 1).push(OPERATIONS_FIELD, operationId);
+                bulk.updateOne(Query.query(criteria), update);
+                operations++;
+            }
+        }
+        Map<String, Document> found = new HashMap<>();
+        try {
+            if (operations > 0) {
+                bulk.execute();
+            }
+
+            // El bulk solo devuelve contadores: la marca de cada sesión dice qué productos modificó
+            Query query = Query.query(Criteria.where("_id").in(ids));
+            query.fields().include("stock").include(OPERATIONS_FIELD);
+            for (Document doc : mongoTemplate.find(query, Document.class,
+                    mongoTemplate.getCollectionName(Product.class))) {
+                found.put(doc.get("_id") instanceof ObjectId objectId ? objectId.toHexString()
+                        : doc.get("_id").toString(), doc);
+            }
+        } finally {
+            // También si el bulk falló a medias: no deben quedar marcas de estas sesiones
+            if (operations > 0) {
+                mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)),
+                        new Update().pullAll(OPERATIONS_FIELD, operationIds.toArray()), Product.class);
+            }
+        }
+
+        List<Map<String, StockAdjustmentResult>> results = new ArrayList<>(sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            Map<String, StockAdjustmentResult> sessionResults = new HashMap<>();
+            for (String id : sessions.get(i).keySet()) {
+                Document doc = found.get(id);
+                if (doc == null) {
+                    sessionResults.put(id, new StockAdjustmentResult(id, StockAdjustmentResult.Estado.NO_ENCONTRADO, null));
+                    continue;
+                }
+                Number stock = doc.get("stock", Number.class);
+                sessionResults.put(id, new StockAdjustmentResult(id,
+                        doc.getList(OPERATIONS_FIELD, Object.class, List.of()).contains(operationIds.get(i))
+                                ? StockAdjustmentResult.Estado.APLICADO
+                                : StockAdjustmentResult.Estado.STOCK_INSUFICIENTE,
+                        stock != null ? stock.intValue() : null));
+            }
+            results.add(sessionResults);
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> reserveStock(String reservaId, Map<String, Integer> cantidades) {
+        // La marca se queda: se quita al confirmar o liberar la reserva
+        return decrementAllOrNothing(RESERVATIONS_FIELD, reservaId, cantidades, true);
+    }
+
+    @Override
+    public void releaseReservations(Map<String, Map<String, Integer>> cantidadesPorReserva) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        int operations = 0;
+        for (Map.Entry<String, Map<String, Integer>> reserva : cantidadesPorReserva.entrySet()) {
+            for (Map.Entry<String, Integer> item : reserva.getValue().entrySet()) {
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(item.getKey())
+                                .and(RESERVATIONS_FIELD).is(reserva.getKey())),
+                        new Update().inc("stock", item.getValue()).inc(VERSION_FIELD, 1)
+                                .pull(RESERVATIONS_FIELD, reserva.getKey()));
+                operations++;
+            }
+        }
+        if (operations > 0) {
+            bulk.execute();
+        }
+    }
+
+    @Override
+    public void confirmReservation(String reservaId, Collection<String> productIds) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(productIds).and(RESERVATIONS_FIELD).is(reservaId)),
+                new Update().pull(RESERVATIONS_FIELD, reservaId),
+                Product.class);
+    }
+
+    @Override
+    public boolean completeImage(String id, ImageVariants variants, ImageStatus status) {
+        Update update = new Update().set("imageStatus", status).unset(IMAGE_PENDING_SINCE_FIELD).inc(VERSION_FIELD, 1);
+        if (variants != null) {
+            update.set("imageUrl", variants.full()).set("imageVariants", variants);
+        }
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(id).and("imageStatus").is(ImageStatus.PENDIENTE)),
+                update,
+                Product.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public List<String> expirePendingImages(Instant before) {
+        // Usa el índice disperso de imagePendienteDesde: solo lo tienen las imágenes PENDIENTE
+        Query stale = Query.query(Criteria.where(IMAGE_PENDING_SINCE_FIELD).lte(before)
+                .and("imageStatus").is(ImageStatus.PENDIENTE));
+        stale.fields().include("_id");
+        List<String> ids = mongoTemplate.find(stale, Product.class).stream().map(Product::getId).toList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids).and("imageStatus").is(ImageStatus.PENDIENTE)
+                        .and(IMAGE_PENDING_SINCE_FIELD).lte(before)),
+                new Update().set("imageStatus", ImageStatus.ERROR).unset(IMAGE_PENDING_SINCE_FIELD)
+                        .inc(VERSION_FIELD, 1),
+                Product.class);
+        return ids;
+    }
+
+    /**
+     * Descuenta con un único bulk ($inc condicionado por producto) marcando
+     * cada documento modificado con operationId en 'markerField'. Si algún
+     * producto falla, revierte los que sí se aplicaron. La marca no tiene
+     * límite (con $slice otras operaciones concurrentes podrían echarla y la
+     * reversión no la encontraría); salvo keepMarker, se quita al terminar.
+     */
+    private List<String> decrementAllOrNothing(String markerField, String operationId,
+            Map<String, Integer> cantidades, boolean keepMarker) {
+        // 1. Un único bulk con un $inc condicionado por producto
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        cantidades.forEach((id, cantidad) -> bulk.updateOne(
+                Query.query(Criteria.where("_id").is(id).and("stock").gte(cantidad)),
+                new Update().inc("stock", -cantidad).inc(VERSION_FIELD, 1).push(markerField, operationId)));
+        BulkWriteResult result = bulk.execute();
+
+        if (result.getModifiedCount() == cantidades.size()) {
+            if (!keepMarker) {
+                mongoTemplate.updateMulti(
+                        Query.query(Criteria.where("_id").in(cantidades.keySet()).and(markerField).is(operationId)),
+                        new Update().pull(markerField, operationId),
+                        Product.class);
+            }
+            return List.of();
+        }
+
+        // 2. Algún producto falló: averiguamos cuáles se aplicaron y los revertimos
+        Query appliedQuery = Query.query(Criteria.where("_id").in(cantidades.keySet())
+                .and(markerField).is(operationId));
+        appliedQuery.fields().include("_id");
+        Set<String> applied = new HashSet<>();
+        mongoTemplate.find(appliedQuery, Product.class).forEach(p -> applied.add(p.getId()));
+
+        if (!applied.isEmpty()) {
+            BulkOperations rollback = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+            for (String id : applied) {
+                // El filtro por operationId hace que la reversión sea idempotente
+                rollback.updateOne(
+                        Query.query(Criteria.where("_id").is(id).and(markerField).is(operationId)),
+                        new Update().inc("stock", cantidades.get(id)).inc(VERSION_FIELD, 1)
+                                .pull(markerField, operationId));
+            }
+            rollback.execute();
+        }
+
+        List<String> failed = new ArrayList<>();
+        for (String id : cantidades.keySet()) {
+            if (!applied.contains(id)) {
+                failed.add(id);
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,114 @@
+package com.api.service.catalogo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carga de una estructura en memoria que se construye recorriendo el
+ * catálogo (InMemorySearchIndex, SuggestionIndex, InventorySnapshot). Corre
+ * en su propio hilo para no retrasar el arranque y, si MongoDB falla, se
+ * reintenta cada retryInterval.
+ * <p>
+ * Los productos que cambian mientras se recorre el catálogo se releen al
+ * terminar: el cursor pudo leerlos antes del cambio y pisar lo que dejó el
+ * evento.
+ */
+final class BackgroundRebuild {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundRebuild.class);
+
+    private final String name;
+    private final Runnable load;
+    private final Consumer<Set<String>> refresh;
+    private final long retryMillis;
+    private final ScheduledExecutorService executor;
+
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    /**
+     * @param load    recorre el catálogo y lo vuelca en la estructura
+     * @param refresh relee de MongoDB los ids indicados
+     */
+    BackgroundRebuild(String name, Runnable load, Consumer<Set<String>> refresh, Duration retryInterval) {
+        this.name = name;
+        this.load = load;
+        this.refresh = refresh;
+        this.retryMillis = retryInterval.toMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "rebuild-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lanza la carga en segundo plano (con reintentos).
+     */
+    void start() {
+        executor.execute(this::attempt);
+    }
+
+    private void attempt() {
+        if (!run() && !executor.isShutdown()) {
+            executor.schedule(this::attempt, retryMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Una carga completa en el hilo actual.
+     *
+     * @return false si MongoDB falló (la estructura sigue sin estar lista)
+     */
+    boolean run() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        rebuilding = true;
+        try {
+            try {
+                load.run();
+            } finally {
+                rebuilding = false;
+            }
+            Set<String> changed = Set.copyOf(changedDuringRebuild);
+            changedDuringRebuild.removeAll(changed);
+            if (!changed.isEmpty()) {
+                refresh.accept(changed);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo construir {}, se reintenta en {} ms: {}", name, retryMillis, e.getMessage());
+            return false;
+        }
+        ready = true;
+        log.info("{} construido en {} ms", name, System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * Se llama antes de aplicar cada cambio: si el recorrido ya terminó, el cambio es posterior.
+     */
+    void changed(Collection<String> productIds) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(productIds);
+        }
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación del catálogo completo en NDJSON (un producto JSON por línea).
+ * Los productos se leen de un cursor de MongoDB y se escriben uno a uno en la
+ * respuesta: nunca hay una lista en memoria. La escritura es bloqueante, así
+ * que si el cliente lee despacio el cursor tampoco avanza (backpressure) y la
+ * memoria usada no depende del tamaño del catálogo.
+ */
+@Service
+public class CatalogExportService {
+
+    private static final int GZIP_BUFFER = 64 * 1024;
+
+    private final ProductRepository productRepository;
+    private final ObjectWriter productWriter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int flushEvery;
+
+    public CatalogExportService(
+            ProductRepository productRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.catalogo.export.batch-size:1000}") int batchSize,
+            @Value("${app.catalogo.export.flush-every:500}") int flushEvery) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.productWriter = objectMapper.writerFor(Product.class);
+        this.batchSize = batchSize;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Escribe todo el catálogo en 'out', comprimido con gzip si se pide.
+     *
+     * @return número de productos exportados
+     */
+    public long export(Collection<String> fields, OutputStream out, boolean gzip) throws IOException {
+        try (Stream<Product> products = productRepository.streamAll(fields, batchSize)) {
+            if (!gzip) {
+                return writeNdjson(products, out);
+            }
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER, true);
+            long written = writeNdjson(products, gzipOut);
+            gzipOut.finish();
+            return written;
+        }
+    }
+
+    /**
+     * Escribe cada producto como una línea JSON. Hace flush cada 'flushEvery'
+     * productos para que el cliente empiece a recibir datos enseguida.
+     */
+    public long writeNdjson(Stream<Product> products, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // El stream de salida lo gestiona el contenedor; no lo cerramos aquí
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long written = 0;
+        Iterator<Product> iterator = products.iterator();
+        while (iterator.hasNext()) {
+            productWriter.writeValue(generator, iterator.next());
+            generator.writeRaw('\n');
+            if (++written % flushEvery == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return written;
+    }
+}
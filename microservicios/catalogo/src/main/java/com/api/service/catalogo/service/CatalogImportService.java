@@ -0,0 +1,322 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.dto.ImportReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON leídos en streaming.
+ * Se procesa por lotes: mientras un lote se inserta en MongoDB (bulk
+ * UNORDERED) el siguiente se lee y se valida en paralelo con las mismas
+ * reglas de Bean Validation que Product. Como mucho hay dos lotes en
+ * memoria, sea cual sea el tamaño del fichero.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    // Columnas aceptadas en la cabecera del CSV; 'categorias' separadas por '|'
+    static final List<String> CSV_COLUMNS = List.of("nombre", "descripcion", "precio", "stock", "categorias", "imageUrl");
+
+    /**
+     * Fila leída: el producto o el motivo por el que no se pudo leer.
+     */
+    private record Row(long number, Product product, String error) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final Validator validator;
+    private final ObjectReader productReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int threads;
+    private final int maxErrors;
+    private final ExecutorService executor;
+
+    public CatalogImportService(
+            MongoTemplate mongoTemplate,
+            Validator validator,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.catalogo.import.batch-size:1000}") int batchSize,
+            @Value("${app.catalogo.import.validation-threads:4}") int threads,
+            @Value("${app.catalogo.import.max-errors:1000}") int maxErrors) {
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.maxErrors = maxErrors;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "catalog-import-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Errores de la importación (acotados a maxErrors) y contadores.
+     */
+    private final class Progress {
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rows;
+        private long inserted;
+        private long failed;
+
+        synchronized void fail(long row, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportReport.RowError(row, error));
+            }
+        }
+
+        synchronized void inserted(long count) {
+            inserted += count;
+        }
+    }
+
+    /**
+     * Importa todas las filas del flujo. Las filas con errores se informan
+     * en el resultado y no detienen la importación.
+     *
+     * @throws IllegalArgumentException si la cabecera del CSV no es válida
+     */
+    public ImportReport importProducts(InputStream in, Format format) throws IOException {
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == Format.CSV ? csvSource(reader) : ndjsonSource(reader);
+
+        CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+        List<Row> batch;
+        while (!(batch = source.next(batchSize)).isEmpty()) {
+            progress.rows += batch.size();
+            List<Row> valid = validate(batch, progress);
+            // El lote anterior tiene que haber terminado antes de enviar este (dos lotes como máximo)
+            join(pendingWrite);
+            pendingWrite = CompletableFuture.runAsync(() -> write(valid, progress), executor);
+        }
+        join(pendingWrite);
+
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        double rowsPerSecond = progress.rows * 1000.0 / millis;
+        log.info("Importación {}: {} filas, {} insertadas, {} con errores en {} ms ({} filas/s)",
+                format, progress.rows, progress.inserted, progress.failed, millis, Math.round(rowsPerSecond));
+        // La validación en paralelo no conserva el orden: se devuelven ordenados por fila
+        List<ImportReport.RowError> errors = progress.errors.stream()
+                .sorted(Comparator.comparingLong(ImportReport.RowError::row))
+                .toList();
+        return new ImportReport(progress.rows, progress.inserted, progress.failed, millis, rowsPerSecond,
+                errors, progress.failed > errors.size());
+    }
+
+    private interface RowSource {
+        List<Row> next(int max) throws IOException;
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        long[] lineNumber = { 0 };
+        return max -> {
+            List<Row> rows = new ArrayList<>(max);
+            String line;
+            while (rows.size() < max && (line = reader.readLine()) != null) {
+                lineNumber[0]++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    rows.add(new Row(lineNumber[0], productReader.readValue(line), null));
+                } catch (JsonProcessingException e) {
+                    rows.add(new Row(lineNumber[0], null, "JSON inválido: " + e.getOriginalMessage()));
+                }
+            }
+            return rows;
+        };
+    }
+
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return max -> List.of();
+        }
+        int[] columns = new int[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            // Quitamos el BOM que añade Excel al principio del fichero
+            String name = header.get(i).replace("\uFEFF", "").trim();
+            columns[i] = CSV_COLUMNS.indexOf(name);
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("Columna desconocida en el CSV: " + name
+                        + " (se aceptan " + String.join(", ", CSV_COLUMNS) + ")");
+            }
+        }
+        long[] recordNumber = { 0 };
+        return max -> {
+            List<Row> rows = new ArrayList<>(max);
+            List<String> fields;
+            while (rows.size() < max && (fields = csv.next()) != null) {
+                recordNumber[0]++;
+                rows.add(toRow(recordNumber[0], columns, fields));
+            }
+            return rows;
+        };
+    }
+
+    private static Row toRow(long number, int[] columns, List<String> fields) {
+        if (fields.size() != columns.length) {
+            return new Row(number, null, "Se esperaban " + columns.length + " columnas y hay " + fields.size());
+        }
+        Product product = new Product();
+        for (int i = 0; i < columns.length; i++) {
+            String value = fields.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            String column = CSV_COLUMNS.get(columns[i]);
+            try {
+                switch (column) {
+                    case "nombre" -> product.setNombre(value);
+                    case "descripcion" -> product.setDescripcion(value);
+                    case "precio" -> product.setPrecio(Double.parseDouble(value));
+                    case "stock" -> product.setStock(Integer.parseInt(value));
+                    case "categorias" -> product.setCategorias(Arrays.stream(value.split("\\|"))
+                            .map(String::trim)
+                            .filter(c -> !c.isEmpty())
+                            .toList());
+                    case "imageUrl" -> product.setImageUrl(value);
+                    default -> throw new IllegalStateException(column);
+                }
+            } catch (NumberFormatException e) {
+                return new Row(number, null, column + ": no es un número válido (" + value + ")");
+            }
+        }
+        return new Row(number, product, null);
+    }
+
+    /**
+     * Valida el lote repartido entre los hilos del pool.
+     *
+     * @return las filas válidas, ya con id asignado
+     */
+    private List<Row> validate(List<Row> batch, Progress progress) {
+        int chunk = Math.max(1, (batch.size() + threads - 1) / threads);
+        List<CompletableFuture<List<Row>>> parts = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += chunk) {
+            List<Row> part = batch.subList(from, Math.min(batch.size(), from + chunk));
+            parts.add(CompletableFuture.supplyAsync(() -> validatePart(part, progress), executor));
+        }
+        List<Row> valid = new ArrayList<>(batch.size());
+        parts.forEach(part -> valid.addAll(join(part)));
+        return valid;
+    }
+
+    private List<Row> validatePart(List<Row> part, Progress progress) {
+        List<Row> valid = new ArrayList<>(part.size());
+        for (Row row : part) {
+            if (row.error() != null) {
+                progress.fail(row.number(), row.error());
+                continue;
+            }
+            Set<ConstraintViolation<Product>> violations = validator.validate(row.product());
+            if (!violations.isEmpty()) {
+                progress.fail(row.number(), violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            Product product = row.product();
+            // Id asignado aquí para conocer los insertados sin releerlos
+            product.setId(new ObjectId().toHexString());
+            product.setImageStatus(null);
+            product.setVersion(0L); // El bulk insert no inicializa la versión como save()
+            valid.add(row);
+        }
+        return valid;
+    }
+
+    private void write(List<Row> rows, Progress progress) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        bulk.insert(rows.stream().map(Row::product).toList());
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // UNORDERED: el resto del lote se inserta igualmente
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                progress.fail(rows.get(error.getIndex()).number(), error.getMessage());
+            }
+        }
+        List<String> insertedIds = new ArrayList<>(rows.size() - failedIndexes.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                insertedIds.add(rows.get(i).product().getId());
+            }
+        }
+        progress.inserted(insertedIds.size());
+        if (!insertedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(insertedIds, ChangeType.CREADO));
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
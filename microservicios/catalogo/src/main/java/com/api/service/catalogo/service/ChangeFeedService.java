@@ -0,0 +1,287 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChange;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.dto.ChangeFeed;
+import com.api.service.catalogo.model.dto.SyncToken;
+import com.api.service.catalogo.repository.ProductRepository;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Feed de cambios para que la app móvil sincronice solo lo que cambió. Las
+ * escrituras de productos (ProductChangedEvent) se acumulan durante 'window'
+ * y un solo hilo las registra juntas: un $inc del contador global y un bulk
+ * en la colección "cambios" por ventana, no por petición. Los borrados
+ * quedan como lápidas durante 'tombstone-retention'.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    static final String COUNTERS_COLLECTION = "contadores";
+    static final String COUNTER_ID = "cambios";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final Duration settle;
+    private final Duration tombstoneRetention;
+    private final Clock clock;
+    private final long windowMillis;
+    private final int maxBatch;
+    private final ScheduledExecutorService flusher;
+
+    private final Object lock = new Object();
+    // Producto -> borrado; si cambia varias veces en la ventana vale el último evento
+    private Map<String, Boolean> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    @Autowired
+    public ChangeFeedService(
+            MongoTemplate mongoTemplate,
+            ProductRepository productRepository,
+            @Value("${app.catalogo.changes.settle:2s}") Duration settle,
+            @Value("${app.catalogo.changes.tombstone-retention:30d}") Duration tombstoneRetention,
+            @Value("${app.catalogo.changes.window:50ms}") Duration window,
+            @Value("${app.catalogo.changes.max-batch:1000}") int maxBatch) {
+        this(mongoTemplate, productRepository, settle, tombstoneRetention, window, maxBatch, Clock.systemUTC());
+    }
+
+    ChangeFeedService(MongoTemplate mongoTemplate, ProductRepository productRepository, Duration settle,
+            Duration tombstoneRetention, Duration window, int maxBatch, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.settle = settle;
+        this.tombstoneRetention = tombstoneRetention;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.maxBatch = maxBatch;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "change-feed-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Solo encola los productos: la petición que escribió no espera al feed.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.remote()) {
+            return; // Ya está en el feed: lo leímos de ahí
+        }
+        boolean deleted = event.type() == ChangeType.ELIMINADO;
+        synchronized (lock) {
+            event.productIds().forEach(id -> pending.put(id, deleted));
+            if (pending.size() >= maxBatch) {
+                flusher.execute(this::flush);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                flusher.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    void flush() {
+        Map<String, Boolean> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        try {
+            record(batch);
+        } catch (DataAccessException e) {
+            // La escritura ya está hecha: no la fallamos. El producto vuelve al feed en su próximo cambio
+            log.error("No se pudo registrar el cambio de {} productos en el feed", batch.size(), e);
+        }
+    }
+
+    /**
+     * Reserva un número por producto con un solo $inc del contador y los
+     * guarda con un bulk. Si otra escritura del mismo producto ya dejó un
+     * número mayor, se queda el suyo (el upsert condicionado choca con el _id).
+     * <p>
+     * changesSince da por escrito todo lo reservado hace más de 'settle'. Si
+     * el bulk termina más tarde, un cliente pudo avanzar el token por encima
+     * de estos números sin verlos: se vuelven a registrar con números nuevos.
+     *
+     * @param productIds producto -> si se ha borrado
+     */
+    void record(Map<String, Boolean> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            Instant started = clock.instant();
+            write(productIds);
+            // Mitad de 'settle' como margen para el desfase de relojes entre instancias
+            if (!clock.instant().isAfter(started.plus(settle.dividedBy(2)))) {
+                return;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                log.warn("El feed tardó más de {} en registrar {} productos; saldrán en su próximo cambio",
+                        settle, productIds.size());
+                return;
+            }
+        }
+    }
+
+    private void write(Map<String, Boolean> productIds) {
+        long last = nextSeq(productIds.size());
+        long seq = last - productIds.size();
+        Instant now = clock.instant();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductChange.class);
+        for (Map.Entry<String, Boolean> entry : productIds.entrySet()) {
+            boolean deleted = entry.getValue();
+            seq++;
+            Update update = new Update().set("seq", seq).set("eliminado", deleted).set("stampedAt", now);
+            if (deleted) {
+                update.set("expiraEn", now.plus(tombstoneRetention));
+            } else {
+                update.unset("expiraEn");
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(entry.getKey()).and("seq").lt(seq)), update);
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long nextSeq(int count) {
+        Document counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(COUNTER_ID)),
+                new Update().inc("seq", (long) count),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class,
+                COUNTERS_COLLECTION);
+        return counter.get("seq", Number.class).longValue();
+    }
+
+    long currentSeq() {
+        Document counter = mongoTemplate.findById(COUNTER_ID, Document.class, COUNTERS_COLLECTION);
+        return counter == null ? 0 : counter.get("seq", Number.class).longValue();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.execute(this::flush);
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Cambios posteriores al token, en orden de secuencia y como mucho
+     * 'limit'. No se entregan los de los últimos 'settle' segundos: un número
+     * reservado antes puede no estar guardado todavía y el cliente se lo
+     * saltaría al avanzar el token (si tarda más, record lo vuelve a registrar).
+     *
+     * @param token  último token del cliente, o null en la primera sincronización
+     * @param fields campos de los productos a devolver
+     * @throws IllegalArgumentException si el token no es válido
+     */
+    public ChangeFeed changesSince(String token, int limit, List<String> fields) {
+        Instant now = clock.instant();
+        SyncToken since = token != null ? SyncToken.decode(token) : null;
+        // Las lápidas posteriores al token se guardan al menos retention - settle desde que se entregó
+        if (since == null || since.issuedAtMillis() < now.minus(tombstoneRetention).plus(settle).toEpochMilli()) {
+            return new ChangeFeed(List.of(), List.of(),
+                    new SyncToken(currentSeq(), now.toEpochMilli()).encode(), false, true);
+        }
+
+        List<ProductChange> settled = settledSince(since.seq(), limit, now);
+        boolean hasMore = settled.size() > limit;
+        List<ProductChange> page = hasMore ? settled.subList(0, limit) : settled;
+
+        List<String> deleted = new ArrayList<>();
+        List<String> changedIds = new ArrayList<>();
+        page.forEach(change -> (change.isEliminado() ? deleted : changedIds).add(change.getProductId()));
+
+        List<Product> changed = new ArrayList<>(changedIds.size());
+        if (!changedIds.isEmpty()) {
+            Map<String, Product> byId = productRepository.findAllByIds(changedIds, fields).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+            for (String id : changedIds) {
+                Product product = byId.get(id);
+                if (product != null) {
+                    changed.add(product);
+                } else {
+                    // Borrado después de leer el feed: su lápida llegará con un número mayor
+                    deleted.add(id);
+                }
+            }
+        }
+
+        long lastSeq = page.isEmpty() ? since.seq() : page.get(page.size() - 1).getSeq();
+        return new ChangeFeed(changed, deleted, new SyncToken(lastSeq, now.toEpochMilli()).encode(), hasMore, false);
+    }
+
+    /**
+     * Cambios posteriores a 'seq' que ya se pueden entregar (ver changesSince),
+     * en orden de secuencia y como mucho 'limit'. Lo usa ChangeFeedWatcher.
+     */
+    List<ProductChange> settledSince(long seq, int limit) {
+        List<ProductChange> settled = settledSince(seq, limit, clock.instant());
+        return settled.size() > limit ? settled.subList(0, limit) : settled;
+    }
+
+    // Hasta limit + 1 cambios (el último solo indica que hay más); se corta en el primero sin asentar
+    private List<ProductChange> settledSince(long seq, int limit, Instant now) {
+        Query query = Query.query(Criteria.where("seq").gt(seq))
+                .with(Sort.by(Sort.Direction.ASC, "seq"))
+                .limit(limit + 1);
+        List<ProductChange> found = mongoTemplate.find(query, ProductChange.class);
+
+        Instant settled = now.minus(settle);
+        List<ProductChange> result = new ArrayList<>(found.size());
+        for (ProductChange change : found) {
+            if (change.getStampedAt().isAfter(settled)) {
+                break;
+            }
+            result.add(change);
+        }
+        return result;
+    }
+}
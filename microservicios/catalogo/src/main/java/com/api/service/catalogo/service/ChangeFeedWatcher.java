@@ -0,0 +1,78 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ProductChange;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lleva a esta instancia las escrituras que hacen las demás. Cada
+ * 'watch-interval' lee del feed de cambios lo posterior a la última lectura y
+ * lo publica como ProductChangedEvent remoto, así la caché de productos y los
+ * índices en memoria se actualizan igual que con una escritura local. Las
+ * escrituras de esta misma instancia también vuelven por aquí: se refrescan
+ * dos veces, sin más efecto.
+ */
+@Service
+public class ChangeFeedWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedWatcher.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    private final ChangeFeedService changeFeedService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // -1 hasta la primera lectura del contador
+    private long lastSeq = -1;
+
+    public ChangeFeedWatcher(ChangeFeedService changeFeedService, ApplicationEventPublisher eventPublisher) {
+        this.changeFeedService = changeFeedService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * @return productos notificados en esta pasada
+     */
+    @Scheduled(fixedDelayString = "${app.catalogo.changes.watch-interval:PT2S}")
+    public synchronized int poll() {
+        try {
+            if (lastSeq < 0) {
+                // Lo anterior ya está en MongoDB cuando los índices se cargan (después de arrancar)
+                lastSeq = changeFeedService.currentSeq();
+                return 0;
+            }
+            int notified = 0;
+            List<ProductChange> page;
+            do {
+                page = changeFeedService.settledSince(lastSeq, BATCH_SIZE);
+                List<String> changed = new ArrayList<>();
+                List<String> deleted = new ArrayList<>();
+                page.forEach(change -> (change.isEliminado() ? deleted : changed).add(change.getProductId()));
+                if (!changed.isEmpty()) {
+                    eventPublisher.publishEvent(new ProductChangedEvent(changed, ChangeType.ACTUALIZADO, true));
+                }
+                if (!deleted.isEmpty()) {
+                    eventPublisher.publishEvent(new ProductChangedEvent(deleted, ChangeType.ELIMINADO, true));
+                }
+                if (!page.isEmpty()) {
+                    lastSeq = page.get(page.size() - 1).getSeq();
+                }
+                notified += page.size();
+            } while (page.size() == BATCH_SIZE);
+            return notified;
+        } catch (DataAccessException e) {
+            // Se reintenta en la próxima pasada desde el mismo número
+            log.warn("No se pudo leer el feed de cambios: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ImageAsset;
+import com.api.service.catalogo.model.ImageVariants;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Guarda la imagen de un producto con sus versiones (miniatura, mediana y
+ * original). El contenido se identifica por su SHA-256 (colección
+ * "imagenes"): si la foto ya se subió antes se reutilizan sus URLs sin
+ * guardar nada. Las versiones se generan y suben en paralelo en un pool
+ * acotado; si está lleno, la tarea la ejecuta quien la pide.
+ */
+@Service
+public class ImageProcessingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessingService.class);
+
+    public record Stats(long processed, long deduplicated) {
+    }
+
+    private final ImageStorage storage;
+    private final MongoTemplate mongoTemplate;
+    private final int thumbnailSize;
+    private final int mediumSize;
+    private final ThreadPoolExecutor executor;
+
+    // La misma imagen subida dos veces a la vez en esta instancia se procesa una sola vez
+    private final Map<String, CompletableFuture<ImageVariants>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    public ImageProcessingService(
+            ImageStorage storage,
+            MongoTemplate mongoTemplate,
+            @Value("${app.catalogo.images.thumbnail-size:200}") int thumbnailSize,
+            @Value("${app.catalogo.images.medium-size:800}") int mediumSize,
+            @Value("${app.catalogo.images.variant-threads:4}") int threads) {
+        this.storage = storage;
+        this.mongoTemplate = mongoTemplate;
+        this.thumbnailSize = thumbnailSize;
+        this.mediumSize = mediumSize;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), task -> {
+                    Thread thread = new Thread(task, "image-variants-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Versiones de la imagen del fichero, subiéndolas solo si su contenido
+     * no estaba ya guardado.
+     */
+    public ImageVariants process(Path file, String contentType) throws IOException {
+        String hash = sha256(file);
+        ImageAsset existing = mongoTemplate.findById(hash, ImageAsset.class);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            return existing.getVariants();
+        }
+
+        CompletableFuture<ImageVariants> mine = new CompletableFuture<>();
+        CompletableFuture<ImageVariants> running = inFlight.putIfAbsent(hash, mine);
+        if (running != null) {
+            deduplicated.incrementAndGet();
+            return join(running);
+        }
+        try {
+            ImageVariants variants = generate(file, contentType);
+            try {
+                mongoTemplate.insert(new ImageAsset(hash, variants, Instant.now()));
+            } catch (DuplicateKeyException e) {
+                // Otra instancia guardó la misma imagen a la vez: nos quedamos con la suya
+                ImageAsset winner = mongoTemplate.findById(hash, ImageAsset.class);
+                if (winner != null) {
+                    variants = winner.getVariants();
+                }
+            }
+            processed.incrementAndGet();
+            mine.complete(variants);
+            return variants;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(hash, mine);
+        }
+    }
+
+    private ImageVariants generate(Path file, String contentType) throws IOException {
+        // El original se sube mientras se decodifica la imagen
+        CompletableFuture<String> full = async(() -> storage.store(file, contentType));
+        BufferedImage image = ImageIO.read(file.toFile());
+        if (image == null) {
+            // Formato que ImageIO no sabe leer (p. ej. webp): solo el original
+            String url = join(full);
+            return new ImageVariants(url, url, url);
+        }
+        CompletableFuture<String> thumbnail = async(() -> storeResized(image, thumbnailSize));
+        CompletableFuture<String> medium = async(() -> storeResized(image, mediumSize));
+        return new ImageVariants(join(thumbnail), join(medium), join(full));
+    }
+
+    private String storeResized(BufferedImage image, int maxSize) throws IOException {
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage resized = resize(image, maxSize, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Path temp = Files.createTempFile("catalogo-variant-", alpha ? ".png" : ".jpg");
+        try {
+            ImageIO.write(resized, alpha ? "png" : "jpg", temp.toFile());
+            return storage.store(temp, alpha ? "image/png" : "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reduce a la mitad mientras la imagen sea más del doble del tamaño final
+     * y termina con un paso bilineal: mucha mejor calidad que un solo paso y
+     * casi el mismo coste.
+     */
+    static BufferedImage resize(BufferedImage image, int maxSize, int type) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        double scale = Math.min(1.0, (double) maxSize / longest);
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private interface IoTask {
+        String run() throws IOException;
+    }
+
+    private CompletableFuture<String> async(IoTask task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(processed.get(), deduplicated.get());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Quedaron versiones de imágenes sin generar al apagar");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.api.service.catalogo.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Dónde se guardan las imágenes de producto. Se elige con
+ * app.catalogo.images.storage: "cloudinary" (por defecto) o "local"
+ * (directorio en disco, para tests y benchmarks).
+ */
+public interface ImageStorage {
+
+    /**
+     * Guarda la imagen leyéndola del fichero en streaming (sin cargarla
+     * entera en memoria).
+     *
+     * @return la URL pública de la imagen
+     */
+    String store(Path file, String contentType) throws IOException;
+}
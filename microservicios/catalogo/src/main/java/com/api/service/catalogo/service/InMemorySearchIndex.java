@@ -0,0 +1,372 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchCursor;
+import com.api.service.catalogo.model.dto.SearchPage;
+import com.api.service.catalogo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Motor de búsqueda en memoria (app.catalogo.search.engine=memory): índice
+ * invertido sobre nombre y descripción con los mismos pesos que el índice de
+ * texto de MongoConfig (3:2), puntuación BM25, términos sin acentos, prefijo
+ * en el último término (búsqueda mientras se escribe) y tolerancia a errores
+ * de escritura (distancia de edición acotada, respetando la primera letra).
+ * <p>
+ * Se construye al arrancar recorriendo el catálogo y se mantiene al día con
+ * los ProductChangedEvent, incluidos los que ChangeFeedWatcher trae de otras
+ * instancias. Guarda un resumen de cada producto (sin la
+ * descripción) para responder sin ir a MongoDB.
+ */
+@Service
+@ConditionalOnProperty(name = "app.catalogo.search.engine", havingValue = "memory")
+public class InMemorySearchIndex {
+
+    // Mismos pesos que el TextIndexDefinition de MongoConfig
+    static final float NOMBRE_WEIGHT = 3f;
+    static final float DESCRIPCION_WEIGHT = 2f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Penalización de los términos que no coinciden exactamente
+    private static final double PREFIX_FACTOR = 0.8;
+    private static final double FUZZY_FACTOR = 0.6;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MAX_FACETS = 20;
+
+    /**
+     * Datos de un producto indexado: el resumen que se devuelve, su longitud
+     * ponderada (para BM25) y sus términos (para poder desindexarlo).
+     */
+    private record IndexedProduct(Product summary, float length, Set<String> terms) {
+    }
+
+    public record Stats(int products, int terms, long postings, long estimatedBytes, long bytesPerProduct,
+                        boolean ready) {
+    }
+
+    private record Hit(IndexedProduct product, double score) {
+    }
+
+    // término -> (id de producto -> frecuencia ponderada); ordenado para buscar por prefijo
+    private final NavigableMap<String, Map<String, Float>> postings = new TreeMap<>();
+    private final Map<String, IndexedProduct> products = new HashMap<>();
+    private double totalLength;
+    private long postingCount;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ProductRepository productRepository;
+    private final BackgroundRebuild rebuild;
+
+    public InMemorySearchIndex(ProductRepository productRepository,
+            @Value("${app.catalogo.memory-indexes.retry-interval:30s}") Duration retryInterval) {
+        this.productRepository = productRepository;
+        this.rebuild = new BackgroundRebuild("índice de búsqueda en memoria", this::load, this::refresh,
+                retryInterval);
+    }
+
+    // En segundo plano: mientras no esté listo, ProductSearchService busca en MongoDB
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild.start();
+    }
+
+    /**
+     * Construye el índice en el hilo actual.
+     */
+    public void rebuild() {
+        rebuild.run();
+    }
+
+    private void load() {
+        try (Stream<Product> all = productRepository.streamAll(ProductFields.ALL, 1000)) {
+            all.forEach(this::index);
+        }
+    }
+
+    public boolean isReady() {
+        return rebuild.isReady();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        rebuild.changed(event.productIds());
+        if (event.type() == ProductChangedEvent.ChangeType.ELIMINADO) {
+            event.productIds().forEach(this::remove);
+            return;
+        }
+        refresh(event.productIds());
+    }
+
+    // Vuelve a leer los productos de MongoDB; los que ya no existen se quitan
+    private void refresh(Collection<String> productIds) {
+        Set<String> missing = new HashSet<>(productIds);
+        for (Product product : productRepository.findAllById(productIds)) {
+            index(product);
+            missing.remove(product.getId());
+        }
+        missing.forEach(this::remove);
+    }
+
+    public void index(Product product) {
+        Map<String, Float> frequencies = new HashMap<>();
+        List<String> nombre = SearchTextAnalyzer.tokenize(product.getNombre());
+        List<String> descripcion = SearchTextAnalyzer.tokenize(product.getDescripcion());
+        nombre.forEach(term -> frequencies.merge(term, NOMBRE_WEIGHT, Float::sum));
+        descripcion.forEach(term -> frequencies.merge(term, DESCRIPCION_WEIGHT, Float::sum));
+        float length = NOMBRE_WEIGHT * nombre.size() + DESCRIPCION_WEIGHT * descripcion.size();
+
+        Product summary = Product.builder()
+                .id(product.getId())
+                .nombre(product.getNombre())
+                .precio(product.getPrecio())
+                .stock(product.getStock())
+                .categorias(product.getCategorias() != null ? List.copyOf(product.getCategorias()) : null)
+                .imageUrl(product.getImageUrl())
+                .imageVariants(product.getImageVariants())
+                .imageStatus(product.getImageStatus())
+                .build();
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            frequencies.forEach((term, tf) -> {
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), tf);
+                postingCount++;
+            });
+            products.put(product.getId(), new IndexedProduct(summary, length, Set.copyOf(frequencies.keySet())));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String productId) {
+        IndexedProduct removed = products.remove(productId);
+        if (removed == null) {
+            return;
+        }
+        totalLength -= removed.length();
+        for (String term : removed.terms()) {
+            Map<String, Float> docs = postings.get(term);
+            if (docs != null && docs.remove(productId) != null) {
+                postingCount--;
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    public SearchPage search(ProductSearchCriteria criteria) {
+        SearchCursor after = criteria.cursor() != null ? SearchCursor.decode(criteria.cursor()) : null;
+        List<Hit> hits;
+        Map<String, Long> facetCounts = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = score(SearchTextAnalyzer.tokenize(criteria.q()));
+            hits = new ArrayList<>();
+            for (Map.Entry<String, Double> scored : scores.entrySet()) {
+                IndexedProduct product = products.get(scored.getKey());
+                if (!inPriceRange(product.summary(), criteria)) {
+                    continue;
+                }
+                // Facetas sin el filtro de categoría, igual que la búsqueda en MongoDB
+                List<String> categorias = product.summary().getCategorias();
+                if (categorias != null) {
+                    categorias.forEach(c -> facetCounts.merge(c, 1L, Long::sum));
+                }
+                if (criteria.categoria() != null && (categorias == null || !categorias.contains(criteria.categoria()))) {
+                    continue;
+                }
+                if (after != null && !isAfter(scored.getValue(), scored.getKey(), after)) {
+                    continue;
+                }
+                hits.add(new Hit(product, scored.getValue()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Top-k con un heap acotado: no se ordenan todos los resultados
+        Comparator<Hit> order = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(hit -> hit.product().summary().getId());
+        PriorityQueue<Hit> top = new PriorityQueue<>(order.reversed());
+        for (Hit hit : hits) {
+            top.offer(hit);
+            if (top.size() > criteria.limit() + 1) {
+                top.poll();
+            }
+        }
+        List<Hit> page = new ArrayList<>(top);
+        page.sort(order);
+        String next = null;
+        if (page.size() > criteria.limit()) {
+            page = page.subList(0, criteria.limit());
+            Hit last = page.get(page.size() - 1);
+            next = new SearchCursor(last.score(), last.product().summary().getId()).encode();
+        }
+
+        List<SearchPage.CategoryFacet> facets = facetCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_FACETS)
+                .map(e -> new SearchPage.CategoryFacet(e.getKey(), e.getValue()))
+                .toList();
+        return new SearchPage(project(page, criteria.fields()), facets, next);
+    }
+
+    /**
+     * BM25 por término de la consulta. Cada término se expande a sus
+     * variantes (prefijo si es el último, errores de escritura si no existe)
+     * y de cada producto se queda la mejor variante.
+     */
+    private Map<String, Double> score(List<String> queryTerms) {
+        Map<String, Double> scores = new HashMap<>();
+        int n = products.size();
+        if (n == 0) {
+            return scores;
+        }
+        double avgLength = totalLength / n;
+
+        List<String> distinct = queryTerms.stream().distinct().toList();
+        for (int i = 0; i < distinct.size(); i++) {
+            Map<String, Double> termScores = new HashMap<>();
+            expand(distinct.get(i), i == distinct.size() - 1).forEach((term, factor) -> {
+                Map<String, Float> docs = postings.get(term);
+                double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+                docs.forEach((id, tf) -> {
+                    double norm = tf + K1 * (1 - B + B * products.get(id).length() / avgLength);
+                    termScores.merge(id, factor * idf * tf * (K1 + 1) / norm, Math::max);
+                });
+            });
+            termScores.forEach((id, s) -> scores.merge(id, s, Double::sum));
+        }
+        return scores;
+    }
+
+    // término del índice -> factor de penalización
+    private Map<String, Double> expand(String term, boolean prefix) {
+        Map<String, Double> expansions = new HashMap<>();
+        if (postings.containsKey(term)) {
+            expansions.put(term, 1.0);
+        }
+        if (prefix) {
+            for (String candidate : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(candidate, PREFIX_FACTOR);
+            }
+        }
+        int maxEdits = SearchTextAnalyzer.maxEdits(term);
+        if (expansions.isEmpty() && maxEdits > 0) {
+            // Como en la mayoría de buscadores, la primera letra tiene que coincidir:
+            // así solo se recorre el tramo del vocabulario que empieza por ella
+            String first = term.substring(0, 1);
+            for (String candidate : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                if (SearchTextAnalyzer.boundedDistance(term, candidate, maxEdits) <= maxEdits) {
+                    expansions.put(candidate, FUZZY_FACTOR);
+                    if (expansions.size() >= MAX_EXPANSIONS) {
+                        break;
+                    }
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private static boolean inPriceRange(Product product, ProductSearchCriteria criteria) {
+        Double precio = product.getPrecio();
+        if (criteria.precioMin() != null && (precio == null || precio < criteria.precioMin())) {
+            return false;
+        }
+        return criteria.precioMax() == null || (precio != null && precio <= criteria.precioMax());
+    }
+
+    // Orden (score desc, id asc): solo lo que va después del cursor
+    private static boolean isAfter(double score, String id, SearchCursor after) {
+        return score < after.score() || (score == after.score() && id.compareTo(after.id()) > 0);
+    }
+
+    // Copia con solo los campos pedidos; la descripción no se guarda y se lee de MongoDB
+    private List<Product> project(List<Hit> page, List<String> fields) {
+        Map<String, String> descripciones = new HashMap<>();
+        if (fields.contains("descripcion") && !page.isEmpty()) {
+            productRepository.findAllById(page.stream().map(hit -> hit.product().summary().getId()).toList())
+                    .forEach(p -> descripciones.put(p.getId(), p.getDescripcion()));
+        }
+        return page.stream().map(hit -> {
+            Product s = hit.product().summary();
+            return Product.builder()
+                    .id(s.getId())
+                    .nombre(fields.contains("nombre") ? s.getNombre() : null)
+                    .descripcion(descripciones.get(s.getId()))
+                    .precio(fields.contains("precio") ? s.getPrecio() : null)
+                    .stock(fields.contains("stock") ? s.getStock() : null)
+                    .categorias(fields.contains("categorias") ? s.getCategorias() : null)
+                    .imageUrl(fields.contains("imageUrl") ? s.getImageUrl() : null)
+                    .imageVariants(fields.contains("imageVariants") ? s.getImageVariants() : null)
+                    .imageStatus(fields.contains("imageStatus") ? s.getImageStatus() : null)
+                    .build();
+        }).toList();
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Map.Entry<String, Map<String, Float>> entry : postings.entrySet()) {
+                // Nodo del TreeMap + String del término + HashMap de postings
+                bytes += 40 + 40 + 2L * entry.getKey().length() + 64;
+                // Cada posting: nodo del HashMap + Float (el id es compartido con 'products')
+                bytes += 48L * entry.getValue().size();
+            }
+            for (IndexedProduct product : products.values()) {
+                bytes += ProductCache.estimateBytes(product.summary()) + 32 + 16L * product.terms().size();
+            }
+            int count = products.size();
+            return new Stats(count, postings.size(), postingCount, bytes, count == 0 ? 0 : bytes / count, isReady());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuild.shutdown();
+    }
+}
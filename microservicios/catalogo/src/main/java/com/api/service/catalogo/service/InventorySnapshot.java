@@ -0,0 +1,595 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.dto.CategoryValue;
+import com.api.service.catalogo.model.dto.LowStockReport;
+import com.api.service.catalogo.model.dto.PriceHistogram;
+import com.api.service.catalogo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Copia en memoria del inventario en columnas para las consultas de
+ * analítica del back-office: precio y stock en arrays primitivos y las
+ * categorías codificadas con un diccionario (int por categoría). Un millón
+ * de productos ocupa unos 60 MB, menos de la mitad que una List&lt;Product&gt;
+ * con solo esos campos, y las agregaciones recorren los arrays repartidos
+ * entre los hilos del pool.
+ * <p>
+ * Se mantiene al día con ProductChangedEvent (también los remotos, ver
+ * ChangeFeedWatcher). Las consultas toman el lock de
+ * lectura mientras recorren; las escrituras, el de escritura (microsegundos).
+ */
+@Service
+public class InventorySnapshot {
+
+    private static final List<String> FIELDS = List.of("id", "precio", "stock", "categorias");
+    // Categorías por producto en columnas; las que pasen de aquí van a 'extraCategories'
+    private static final int CATEGORY_SLOTS = 3;
+    private static final int NO_CATEGORY = -1;
+    // Por debajo de esto no compensa repartir el recorrido entre hilos
+    private static final int MIN_ROWS_PER_CHUNK = 50_000;
+    private static final int LOAD_BATCH = 1000;
+
+    public record Stats(int products, int categories, long estimatedBytes, boolean ready) {
+    }
+
+    private final ProductRepository productRepository;
+    private final int threads;
+    private final ExecutorService executor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columnas: la fila i es un producto. Al borrar, la última fila pasa al hueco (sin huecos al recorrer)
+    private int size;
+    private double[] prices = new double[0]; // NaN si no tiene precio
+    private int[] stocks = new int[0];
+    private final int[][] categories = new int[CATEGORY_SLOTS][0];
+    private final Map<Integer, int[]> extraCategories = new HashMap<>();
+
+    // Id de la fila: los ObjectId en 12 bytes (int + long); el resto de ids como texto
+    private int[] idHigh = new int[0];
+    private long[] idLow = new long[0];
+    private String[] otherIds = new String[0];
+
+    // Id -> fila: hash abierto con sondeo lineal para los ObjectId (fila + 1; 0 = libre)
+    private int[] slots = new int[16];
+    private final Map<String, Integer> otherRows = new HashMap<>();
+
+    private final List<String> categoryNames = new ArrayList<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+
+    private final BackgroundRebuild rebuild;
+
+    public InventorySnapshot(ProductRepository productRepository,
+            @Value("${app.catalogo.analytics.scan-threads:4}") int threads,
+            @Value("${app.catalogo.memory-indexes.retry-interval:30s}") Duration retryInterval) {
+        this.productRepository = productRepository;
+        this.threads = threads;
+        this.rebuild = new BackgroundRebuild("copia del inventario", this::load, this::refresh, retryInterval);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "inventory-scan-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // En segundo plano y con reintentos: la analítica responde 503 hasta que haya copia
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild.start();
+    }
+
+    /**
+     * Carga la copia en el hilo actual.
+     */
+    public void rebuild() {
+        rebuild.run();
+    }
+
+    private void load() {
+        List<Product> batch = new ArrayList<>(LOAD_BATCH);
+        try (Stream<Product> all = productRepository.streamAll(FIELDS, LOAD_BATCH)) {
+            all.forEach(product -> {
+                batch.add(product);
+                if (batch.size() == LOAD_BATCH) {
+                    upsertAll(batch);
+                    batch.clear();
+                }
+            });
+            upsertAll(batch);
+        }
+    }
+
+    public boolean isReady() {
+        return rebuild.isReady();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        rebuild.changed(event.productIds());
+        if (event.type() == ProductChangedEvent.ChangeType.ELIMINADO) {
+            event.productIds().forEach(this::remove);
+            return;
+        }
+        refresh(event.productIds());
+    }
+
+    // Vuelve a leer los productos de MongoDB; los que ya no existen se quitan
+    private void refresh(Collection<String> productIds) {
+        Set<String> missing = new HashSet<>(productIds);
+        List<Product> found = productRepository.findAllByIds(productIds, FIELDS);
+        found.forEach(product -> missing.remove(product.getId()));
+        upsertAll(found);
+        missing.forEach(this::remove);
+    }
+
+    // --- Escrituras ---
+
+    void upsertAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::upsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(Product product) {
+        String id = product.getId();
+        int row = rowOf(id);
+        if (row < 0) {
+            row = append(id);
+        }
+        prices[row] = product.getPrecio() != null ? product.getPrecio() : Double.NaN;
+        stocks[row] = product.getStock() != null ? product.getStock() : 0;
+
+        extraCategories.remove(row);
+        int[] encoded = encodeCategories(product.getCategorias());
+        for (int slot = 0; slot < CATEGORY_SLOTS; slot++) {
+            categories[slot][row] = slot < encoded.length ? encoded[slot] : NO_CATEGORY;
+        }
+        if (encoded.length > CATEGORY_SLOTS) {
+            extraCategories.put(row, Arrays.copyOfRange(encoded, CATEGORY_SLOTS, encoded.length));
+        }
+    }
+
+    private int[] encodeCategories(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return new int[0];
+        }
+        return names.stream()
+                .filter(name -> name != null && !name.isBlank())
+                .distinct()
+                .mapToInt(name -> categoryIds.computeIfAbsent(name, n -> {
+                    categoryNames.add(n);
+                    return categoryNames.size() - 1;
+                }))
+                .toArray();
+    }
+
+    private int append(String id) {
+        if (size == prices.length) {
+            grow(Math.max(1024, size + (size >> 1)));
+        }
+        int row = size++;
+        if (isObjectIdHex(id)) {
+            idHigh[row] = Integer.parseUnsignedInt(id, 0, 8, 16);
+            idLow[row] = Long.parseUnsignedLong(id, 8, 24, 16);
+            otherIds[row] = null;
+            if (size * 2 > slots.length) {
+                rehash(slots.length * 2); // Ocupación entre 1/4 y 1/2
+            } else {
+                insertSlot(row);
+            }
+        } else {
+            otherIds[row] = id;
+            otherRows.put(id, row);
+        }
+        return row;
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                return;
+            }
+            unlink(row);
+            extraCategories.remove(row);
+            int last = size - 1;
+            if (row != last) {
+                // La última fila ocupa el hueco
+                unlink(last);
+                prices[row] = prices[last];
+                stocks[row] = stocks[last];
+                for (int[] column : categories) {
+                    column[row] = column[last];
+                }
+                int[] extra = extraCategories.remove(last);
+                if (extra != null) {
+                    extraCategories.put(row, extra);
+                }
+                idHigh[row] = idHigh[last];
+                idLow[row] = idLow[last];
+                otherIds[row] = otherIds[last];
+                if (otherIds[row] != null) {
+                    otherRows.put(otherIds[row], row);
+                } else {
+                    insertSlot(row);
+                }
+            }
+            extraCategories.remove(last);
+            otherIds[last] = null;
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void grow(int capacity) {
+        prices = Arrays.copyOf(prices, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        for (int slot = 0; slot < CATEGORY_SLOTS; slot++) {
+            categories[slot] = Arrays.copyOf(categories[slot], capacity);
+        }
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        otherIds = Arrays.copyOf(otherIds, capacity);
+    }
+
+    // --- Índice id -> fila ---
+
+    private static boolean isObjectIdHex(String id) {
+        if (id.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < 24; i++) {
+            char c = id.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(int high, long low) {
+        long h = (low ^ ((long) high << 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int rowOf(String id) {
+        if (!isObjectIdHex(id)) {
+            Integer row = otherRows.get(id);
+            return row != null ? row : -1;
+        }
+        int high = Integer.parseUnsignedInt(id, 0, 8, 16);
+        long low = Long.parseUnsignedLong(id, 8, 24, 16);
+        int mask = slots.length - 1;
+        for (int i = hash(high, low) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int row = slots[i] - 1;
+            if (idHigh[row] == high && idLow[row] == low) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void insertSlot(int row) {
+        int mask = slots.length - 1;
+        int i = hash(idHigh[row], idLow[row]) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = row + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int row = 0; row < size; row++) {
+            if (otherIds[row] == null) {
+                insertSlot(row);
+            }
+        }
+    }
+
+    /**
+     * Quita la fila del índice. En sondeo lineal no se puede dejar la
+     * casilla vacía sin más: se adelantan las siguientes del mismo grupo.
+     */
+    private void unlink(int row) {
+        if (otherIds[row] != null) {
+            otherRows.remove(otherIds[row]);
+            return;
+        }
+        int mask = slots.length - 1;
+        int hole = hash(idHigh[row], idLow[row]) & mask;
+        while (slots[hole] != row + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int moved = slots[i] - 1;
+            int home = hash(idHigh[moved], idLow[moved]) & mask;
+            // Se puede adelantar si su casilla ideal no está entre el hueco y su posición actual
+            boolean between = hole <= i ? home > hole && home <= i : home > hole || home <= i;
+            if (!between) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private String idAt(int row) {
+        String other = otherIds[row];
+        return other != null ? other : String.format("%08x%016x", idHigh[row], idLow[row]);
+    }
+
+    // --- Consultas ---
+
+    /**
+     * Parte de un recorrido: las filas [from, to).
+     */
+    private interface Chunk<T> {
+        T scan(int from, int to);
+    }
+
+    /**
+     * Reparte las filas entre los hilos del pool. Hay que llamarlo con el lock
+     * de lectura tomado.
+     */
+    private <T> List<T> scan(Chunk<T> chunk) {
+        int n = size;
+        int chunks = Math.max(1, Math.min(threads, n / MIN_ROWS_PER_CHUNK));
+        if (chunks == 1) {
+            return List.of(chunk.scan(0, n));
+        }
+        int step = (n + chunks - 1) / chunks;
+        List<CompletableFuture<T>> parts = new ArrayList<>(chunks);
+        for (int from = 0; from < n; from += step) {
+            int start = from;
+            int end = Math.min(n, from + step);
+            parts.add(CompletableFuture.supplyAsync(() -> chunk.scan(start, end), executor));
+        }
+        List<T> results = new ArrayList<>(parts.size());
+        for (CompletableFuture<T> part : parts) {
+            try {
+                results.add(part.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Productos, unidades y valor (precio * stock) por categoría, de mayor a
+     * menor valor.
+     */
+    public List<CategoryValue> valueByCategory() {
+        lock.readLock().lock();
+        try {
+            int none = categoryNames.size(); // Última posición: productos sin categoría
+            double[] prices = this.prices;
+            int[] stocks = this.stocks;
+            int[][] columns = categories;
+
+            List<double[][]> partials = scan((from, to) -> {
+                // [0] productos, [1] unidades, [2] valor por categoría
+                double[][] acc = new double[3][none + 1];
+                for (int row = from; row < to; row++) {
+                    int stock = stocks[row];
+                    double value = Double.isNaN(prices[row]) ? 0 : prices[row] * stock;
+                    if (columns[0][row] == NO_CATEGORY) {
+                        add(acc, none, stock, value);
+                        continue;
+                    }
+                    for (int slot = 0; slot < CATEGORY_SLOTS && columns[slot][row] != NO_CATEGORY; slot++) {
+                        add(acc, columns[slot][row], stock, value);
+                    }
+                    if (columns[CATEGORY_SLOTS - 1][row] != NO_CATEGORY) {
+                        int[] extra = extraCategories.get(row);
+                        if (extra != null) {
+                            for (int category : extra) {
+                                add(acc, category, stock, value);
+                            }
+                        }
+                    }
+                }
+                return acc;
+            });
+
+            double[][] total = new double[3][none + 1];
+            for (double[][] partial : partials) {
+                for (int k = 0; k < 3; k++) {
+                    for (int c = 0; c <= none; c++) {
+                        total[k][c] += partial[k][c];
+                    }
+                }
+            }
+            List<CategoryValue> result = new ArrayList<>();
+            for (int c = 0; c <= none; c++) {
+                if (total[0][c] > 0) {
+                    result.add(new CategoryValue(c < none ? categoryNames.get(c) : null,
+                            (long) total[0][c], (long) total[1][c], total[2][c]));
+                }
+            }
+            result.sort(Comparator.comparingDouble(CategoryValue::valor).reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void add(double[][] acc, int category, int stock, double value) {
+        acc[0][category]++;
+        acc[1][category] += stock;
+        acc[2][category] += value;
+    }
+
+    /**
+     * Productos con stock menor que 'threshold': el total y los 'limit' de
+     * menos stock.
+     */
+    public LowStockReport lowStock(int threshold, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] stocks = this.stocks;
+            Comparator<Integer> byStock = Comparator.comparingInt(row -> stocks[row]);
+
+            record Partial(long count, PriorityQueue<Integer> lowest) {
+            }
+            List<Partial> partials = scan((from, to) -> {
+                long count = 0;
+                // Montículo de máximos: se queda con los 'limit' de menos stock del tramo
+                PriorityQueue<Integer> lowest = new PriorityQueue<>(byStock.reversed());
+                for (int row = from; row < to; row++) {
+                    if (stocks[row] >= threshold) {
+                        continue;
+                    }
+                    count++;
+                    if (lowest.size() < limit) {
+                        lowest.add(row);
+                    } else if (limit > 0 && stocks[row] < stocks[lowest.peek()]) {
+                        lowest.poll();
+                        lowest.add(row);
+                    }
+                }
+                return new Partial(count, lowest);
+            });
+
+            long total = 0;
+            List<Integer> candidates = new ArrayList<>();
+            for (Partial partial : partials) {
+                total += partial.count();
+                candidates.addAll(partial.lowest());
+            }
+            List<LowStockReport.Item> items = candidates.stream()
+                    .map(row -> new LowStockReport.Item(idAt(row), stocks[row]))
+                    .sorted(Comparator.comparingInt(LowStockReport.Item::stock).thenComparing(LowStockReport.Item::id))
+                    .limit(limit)
+                    .toList();
+            return new LowStockReport(total, items);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Histograma de precios con 'buckets' tramos. Sin min o max se usan los
+     * del catálogo; los precios fuera del rango no cuentan.
+     *
+     * @throws IllegalArgumentException si el rango o los tramos no son válidos
+     */
+    public PriceHistogram priceHistogram(int buckets, Double min, Double max) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("El número de tramos debe ser positivo");
+        }
+        lock.readLock().lock();
+        try {
+            double[] prices = this.prices;
+            int[] stocks = this.stocks;
+            double low = min != null ? min : Double.POSITIVE_INFINITY;
+            double high = max != null ? max : Double.NEGATIVE_INFINITY;
+            if (min == null || max == null) {
+                List<double[]> ranges = scan((from, to) -> {
+                    double lo = Double.POSITIVE_INFINITY;
+                    double hi = Double.NEGATIVE_INFINITY;
+                    for (int row = from; row < to; row++) {
+                        double price = prices[row];
+                        if (!Double.isNaN(price)) {
+                            lo = Math.min(lo, price);
+                            hi = Math.max(hi, price);
+                        }
+                    }
+                    return new double[] { lo, hi };
+                });
+                for (double[] range : ranges) {
+                    low = min != null ? low : Math.min(low, range[0]);
+                    high = max != null ? high : Math.max(high, range[1]);
+                }
+            }
+            if (low > high) {
+                if (min != null && max != null) {
+                    throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo");
+                }
+                return new PriceHistogram(0, 0, List.of()); // Ningún producto con precio
+            }
+
+            double start = low;
+            double end = high;
+            double width = (high - low) / buckets;
+            List<long[][]> partials = scan((from, to) -> {
+                long[][] acc = new long[2][buckets]; // [0] productos, [1] unidades
+                for (int row = from; row < to; row++) {
+                    double price = prices[row];
+                    if (Double.isNaN(price) || price < start || price > end) {
+                        continue;
+                    }
+                    int bucket = width == 0 ? 0 : Math.min(buckets - 1, (int) ((price - start) / width));
+                    acc[0][bucket]++;
+                    acc[1][bucket] += stocks[row];
+                }
+                return acc;
+            });
+
+            List<PriceHistogram.Bucket> result = new ArrayList<>(buckets);
+            for (int b = 0; b < buckets; b++) {
+                long productos = 0;
+                long unidades = 0;
+                for (long[][] partial : partials) {
+                    productos += partial[0][b];
+                    unidades += partial[1][b];
+                }
+                double desde = low + b * width;
+                result.add(new PriceHistogram.Bucket(desde, b == buckets - 1 ? high : desde + width, productos, unidades));
+            }
+            return new PriceHistogram(low, high, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            int capacity = prices.length;
+            // Columnas (8 + 4 + 3*4 + 4 + 8 + 4 bytes por fila reservada) + índice + ids no ObjectId
+            long bytes = capacity * 40L + slots.length * 4L
+                    + otherRows.size() * 112L + extraCategories.size() * 64L + categoryNames.size() * 96L;
+            return new Stats(size, categoryNames.size(), bytes, isReady());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuild.shutdown();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.api.service.catalogo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Guarda las imágenes en un directorio local y devuelve su URL file://.
+ */
+@Service
+@ConditionalOnProperty(name = "app.catalogo.images.storage", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+
+    private final Path directory;
+
+    public LocalImageStorage(@Value("${app.catalogo.images.local-dir:${java.io.tmpdir}/catalogo-images}") Path directory)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        Path target = directory.resolve(UUID.randomUUID() + extension(contentType));
+        Files.copy(file, target);
+        return target.toUri().toString();
+    }
+
+    private static String extension(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        return switch (contentType) {
+            case "image/jpeg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "image/webp" -> ".webp";
+            case "image/gif" -> ".gif";
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché LRU en memoria delante de ProductRepository.findById, acotada por
+ * número de entradas. Cada ProductChangedEvent quita los productos afectados
+ * e incrementa la "generación", así una lectura que empezó antes de la
+ * escritura no puede guardar la versión vieja. Las escrituras de otras
+ * instancias llegan por el feed de cambios (ChangeFeedWatcher) unos segundos
+ * después; el TTL solo acota lo que se pierda si el feed falla.
+ * <p>
+ * Con serve-stale activado, una entrada caducada se devuelve al momento y se
+ * refresca en segundo plano; si MongoDB falla al refrescar se sigue sirviendo
+ * la copia anterior.
+ */
+@Service
+public class ProductCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCache.class);
+
+    private record Entry(Product product, long loadedAtMillis, long bytes) {
+    }
+
+    /**
+     * Estadísticas para el endpoint de administración.
+     */
+    public record Stats(long hits, long misses, long staleHits, long evictions, long invalidations,
+                        int size, long estimatedBytes, double hitRatio) {
+    }
+
+    // LinkedHashMap en modo "access-order" = LRU
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final ProductRepository productRepository;
+    private final Executor refreshExecutor;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final boolean serveStale;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCache(
+            ProductRepository productRepository,
+            @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+            @Value("${app.catalogo.product-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.catalogo.product-cache.ttl:5m}") Duration ttl,
+            @Value("${app.catalogo.product-cache.serve-stale:false}") boolean serveStale) {
+        this.productRepository = productRepository;
+        this.refreshExecutor = refreshExecutor;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.serveStale = serveStale;
+    }
+
+    public Optional<Product> findById(String id) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(id);
+        }
+
+        if (entry != null && now - entry.loadedAtMillis() < ttlMillis) {
+            hits.incrementAndGet();
+            return Optional.of(entry.product());
+        }
+        if (entry != null && serveStale) {
+            staleHits.incrementAndGet();
+            refreshInBackground(id);
+            return Optional.of(entry.product());
+        }
+
+        misses.incrementAndGet();
+        return load(id);
+    }
+
+    private Optional<Product> load(String id) {
+        // La generación se lee antes de ir a MongoDB (ver put)
+        long expectedGeneration = generation.get();
+        Optional<Product> product = productRepository.findById(id);
+        if (product.isPresent()) {
+            put(id, product.get(), expectedGeneration);
+        } else {
+            remove(id);
+        }
+        return product;
+    }
+
+    private void refreshInBackground(String id) {
+        if (!refreshing.add(id)) {
+            return; // Ya hay un refresco en curso para este producto
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                load(id);
+            } catch (RuntimeException e) {
+                // Seguimos sirviendo la copia anterior hasta el próximo intento
+                log.warn("No se pudo refrescar el producto {} en caché: {}", id, e.getMessage());
+            } finally {
+                refreshing.remove(id);
+            }
+        });
+    }
+
+    private synchronized void put(String id, Product product, long expectedGeneration) {
+        if (generation.get() != expectedGeneration) {
+            return; // Hubo una escritura mientras leíamos: no guardamos la versión vieja
+        }
+        remove(id);
+        Entry entry = new Entry(product, System.currentTimeMillis(), estimateBytes(product));
+        entries.put(id, entry);
+        currentBytes += entry.bytes();
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            currentBytes -= it.next().getValue().bytes();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void remove(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            currentBytes -= removed.bytes();
+        }
+    }
+
+    @EventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        event.productIds().forEach(this::remove);
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized Stats stats() {
+        long hitCount = hits.get() + staleHits.get();
+        long total = hitCount + misses.get();
+        return new Stats(hits.get(), misses.get(), staleHits.get(), evictions.get(), invalidations.get(),
+                entries.size(), currentBytes, total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    // Aproximación del tamaño en heap: cabeceras de objeto + 2 bytes por carácter
+    static long estimateBytes(Product product) {
+        long bytes = 96; // Product + Entry + nodo del LinkedHashMap
+        bytes += stringBytes(product.getId()) + stringBytes(product.getNombre())
+                + stringBytes(product.getDescripcion()) + stringBytes(product.getImageUrl());
+        bytes += product.getPrecio() != null ? 16 : 0;
+        bytes += product.getStock() != null ? 16 : 0;
+        if (product.getCategorias() != null) {
+            bytes += 40;
+            for (String categoria : product.getCategorias()) {
+                bytes += stringBytes(categoria) + 8;
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
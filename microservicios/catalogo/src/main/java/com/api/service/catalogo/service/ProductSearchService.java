@@ -0,0 +1,32 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchPage;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+/**
+ * Elige el motor de la búsqueda: el índice en memoria si está activado
+ * (app.catalogo.search.engine=memory) y ya terminó de construirse, o la
+ * agregación $text de MongoDB en otro caso.
+ */
+@Service
+public class ProductSearchService {
+
+    private final ProductRepository productRepository;
+    private final ObjectProvider<InMemorySearchIndex> searchIndex;
+
+    public ProductSearchService(ProductRepository productRepository, ObjectProvider<InMemorySearchIndex> searchIndex) {
+        this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+    }
+
+    public SearchPage search(ProductSearchCriteria criteria) {
+        InMemorySearchIndex index = searchIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.search(criteria);
+        }
+        return productRepository.search(criteria);
+    }
+}
@@ -0,0 +1,83 @@
+package com.api.service.catalogo.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para el índice de búsqueda en memoria: minúsculas y
+ * sin acentos ("Café" y "cafe" son el mismo término).
+ */
+final class SearchTextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTextAnalyzer() {
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Términos del texto ya normalizados; se descartan los de una letra.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        for (String term : SEPARATORS.split(fold(text))) {
+            if (term.length() > 1) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Máximo de errores tolerados según la longitud del término.
+     */
+    static int maxEdits(String term) {
+        if (term.length() <= 3) {
+            return 0;
+        }
+        return term.length() <= 6 ? 1 : 2;
+    }
+
+    /**
+     * Distancia de Levenshtein, cortando en cuanto supera 'max'.
+     *
+     * @return la distancia, o max + 1 si es mayor que max
+     */
+    static int boundedDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
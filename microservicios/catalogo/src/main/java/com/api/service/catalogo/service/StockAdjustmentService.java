@@ -0,0 +1,157 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.dto.StockAdjustment;
+import com.api.service.catalogo.model.dto.StockAdjustmentReport;
+import com.api.service.catalogo.model.dto.StockAdjustmentResult;
+import com.api.service.catalogo.model.dto.StockChange;
+import com.api.service.catalogo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ajustes de stock de las sesiones de reposición. Las líneas del mismo
+ * producto se agrupan en un solo cambio, y las sesiones que llegan dentro
+ * de la misma ventana (p. ej. varios reponedores a la vez) comparten un
+ * único bulk. Cada sesión conserva su propia operación y su resultado: dos
+ * bajas que caben por separado no fallan por sumarse. Un solo hilo aplica
+ * las ventanas en orden.
+ */
+@Service
+public class StockAdjustmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAdjustmentService.class);
+
+    private record Pending(Map<String, StockChange> changes,
+            CompletableFuture<Map<String, StockAdjustmentResult>> result) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long windowMillis;
+    private final int maxBatch;
+    private final ScheduledExecutorService flusher;
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private int pendingChanges;
+    private boolean flushScheduled;
+
+    public StockAdjustmentService(
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.catalogo.stock-adjustments.window:20ms}") Duration window,
+            @Value("${app.catalogo.stock-adjustments.max-batch:5000}") int maxBatch) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.windowMillis = window.toMillis();
+        this.maxBatch = maxBatch;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stock-adjust-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Aplica las líneas y espera al bulk de su ventana.
+     *
+     * @throws ArithmeticException si el stock final de algún producto no cabe en un int
+     */
+    public StockAdjustmentReport adjust(List<StockAdjustment> items) {
+        Map<String, StockChange> changes = new LinkedHashMap<>();
+        items.forEach(item -> changes.merge(item.productId(), StockChange.of(item), StockChange::then));
+        // Fuera de rango falla aquí, no en el bulk que comparte con otras sesiones
+        changes.values().forEach(StockChange::target);
+
+        Map<String, StockAdjustmentResult> results;
+        try {
+            results = submit(changes).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        List<StockAdjustmentResult> ordered = changes.keySet().stream().map(results::get).toList();
+        int applied = (int) ordered.stream()
+                .filter(result -> result.estado() == StockAdjustmentResult.Estado.APLICADO)
+                .count();
+        return new StockAdjustmentReport(items.size(), changes.size(), applied, ordered);
+    }
+
+    CompletableFuture<Map<String, StockAdjustmentResult>> submit(Map<String, StockChange> changes) {
+        Pending request = new Pending(changes, new CompletableFuture<>());
+        synchronized (lock) {
+            pending.add(request);
+            pendingChanges += changes.size();
+            if (pendingChanges >= maxBatch) {
+                // Ventana llena: no tiene sentido esperar más
+                flusher.execute(this::flush);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                flusher.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return request.result();
+    }
+
+    void flush() {
+        List<Pending> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            pendingChanges = 0;
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Map<String, StockAdjustmentResult>> results;
+        try {
+            // Las sesiones se aplican en el orden en que llegaron
+            results = productRepository.applyStockChanges(batch.stream().map(Pending::changes).toList());
+        } catch (RuntimeException e) {
+            batch.forEach(request -> request.result().completeExceptionally(e));
+            return;
+        }
+        // El bulk ya está escrito: cada sesión recibe su resultado antes de avisar a los listeners
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+
+        Set<String> applied = new LinkedHashSet<>();
+        results.forEach(sessionResults -> sessionResults.values().stream()
+                .filter(result -> result.estado() == StockAdjustmentResult.Estado.APLICADO)
+                .forEach(result -> applied.add(result.productId())));
+        if (!applied.isEmpty()) {
+            try {
+                eventPublisher.publishEvent(ProductChangedEvent.stock(List.copyOf(applied)));
+            } catch (RuntimeException e) {
+                // Un fallo de los índices o del feed no debe hacer que el reponedor repita deltas ya aplicados
+                log.warn("No se pudo notificar el ajuste de stock de {} productos", applied.size(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.execute(this::flush);
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,287 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ReservationStatus;
+import com.api.service.catalogo.model.StockReservation;
+import com.api.service.catalogo.model.dto.StockItem;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reservas de stock con caducidad. Al reservar, el stock se descuenta del
+ * producto (así el GET del producto sigue mostrando el disponible sin
+ * cálculos); al confirmar (pedido PAGADO) se queda descontado y al liberar
+ * (CANCELADO o expiración) se devuelve.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    // Campo interno que marca las reservas reclamadas por una pasada del barrido
+    private static final String SWEEP_FIELD = "barridoId";
+
+    private static final List<ReservationStatus> RELEASABLE = List.of(
+            ReservationStatus.PENDIENTE, ReservationStatus.ACTIVA, ReservationStatus.LIBERANDO);
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int sweepBatchSize;
+
+    public StockReservationService(
+            MongoTemplate mongoTemplate,
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.reservas.ttl:15m}") Duration defaultTtl,
+            @Value("${app.reservas.max-ttl:1h}") Duration maxTtl,
+            @Value("${app.reservas.sweep-batch-size:1000}") int sweepBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Resultado de reservar: la reserva y, si falló, los productos sin stock.
+     */
+    public record ReservationResult(StockReservation reservation, List<String> failedProductIds) {
+
+        public boolean isReserved() {
+            return failedProductIds.isEmpty();
+        }
+    }
+
+    /**
+     * @param ttl caducidad pedida; null usa app.reservas.ttl y nunca pasa de
+     *            app.reservas.max-ttl (una reserva no puede bloquear stock sin límite)
+     * @param propietario userId (o sub) de quien reserva
+     */
+    public ReservationResult reserve(String reservaId, List<StockItem> items, Duration ttl, String propietario) {
+        // Si ya existe (reintento del cliente) devolvemos la misma reserva
+        if (reservaId != null) {
+            StockReservation existing = mongoTemplate.findById(reservaId, StockReservation.class);
+            if (existing != null) {
+                return new ReservationResult(existing, List.of());
+            }
+        }
+
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        items.forEach(item -> cantidades.merge(item.productId(), item.cantidad(), Integer::sum));
+
+        Instant now = Instant.now();
+        StockReservation reservation = StockReservation.builder()
+                .id(reservaId != null ? reservaId : UUID.randomUUID().toString())
+                .items(cantidades.entrySet().stream()
+                        .map(e -> new StockItem(e.getKey(), e.getValue()))
+                        .toList())
+                .propietario(propietario)
+                .estado(ReservationStatus.PENDIENTE)
+                .createdAt(now)
+                .expiresAt(now.plus(effectiveTtl(ttl)))
+                .build();
+
+        try {
+            mongoTemplate.insert(reservation);
+        } catch (DuplicateKeyException e) {
+            // Otra petición con el mismo reservaId se adelantó
+            return new ReservationResult(mongoTemplate.findById(reservation.getId(), StockReservation.class), List.of());
+        }
+
+        List<String> failed = productRepository.reserveStock(reservation.getId(), cantidades);
+        if (!failed.isEmpty()) {
+            // reserveStock ya revirtió lo aplicado
+            close(reservation.getId(), ReservationStatus.PENDIENTE, ReservationStatus.LIBERADA);
+            reservation.setEstado(ReservationStatus.LIBERADA);
+            return new ReservationResult(reservation, failed);
+        }
+
+        if (!close(reservation.getId(), ReservationStatus.PENDIENTE, ReservationStatus.ACTIVA)) {
+            // La liberaron (o expiró) mientras descontábamos: devolvemos lo apartado
+            productRepository.releaseReservations(Map.of(reservation.getId(), cantidades));
+            eventPublisher.publishEvent(ProductChangedEvent.stock(cantidades.keySet()));
+            reservation.setEstado(ReservationStatus.LIBERADA);
+            return new ReservationResult(reservation, List.copyOf(cantidades.keySet()));
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.stock(cantidades.keySet()));
+        reservation.setEstado(ReservationStatus.ACTIVA);
+        return new ReservationResult(reservation, List.of());
+    }
+
+    public Optional<StockReservation> find(String reservaId) {
+        return Optional.ofNullable(mongoTemplate.findById(reservaId, StockReservation.class));
+    }
+
+    Duration effectiveTtl(Duration ttl) {
+        if (ttl == null) {
+            return defaultTtl.compareTo(maxTtl) > 0 ? maxTtl : defaultTtl;
+        }
+        return ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl;
+    }
+
+    /**
+     * Pedido pagado: el stock queda descontado definitivamente.
+     *
+     * @throws IllegalStateException si la reserva ya se liberó o expiró
+     */
+    public Optional<StockReservation> confirm(String reservaId) {
+        StockReservation confirmed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(reservaId).and("estado").is(ReservationStatus.ACTIVA)),
+                new Update()
+                        .set("estado", ReservationStatus.CONFIRMADA)
+                        .set("cerradaEn", Instant.now())
+                        .unset("expiresAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                StockReservation.class);
+
+        if (confirmed != null) {
+            productRepository.confirmReservation(reservaId,
+                    confirmed.getItems().stream().map(StockItem::productId).toList());
+            return Optional.of(confirmed);
+        }
+
+        StockReservation existing = mongoTemplate.findById(reservaId, StockReservation.class);
+        if (existing == null) {
+            return Optional.empty();
+        }
+        if (existing.getEstado() == ReservationStatus.CONFIRMADA) {
+            return Optional.of(existing);
+        }
+        throw new IllegalStateException("La reserva ya fue liberada o expiró");
+    }
+
+    /**
+     * Pedido cancelado: devuelve el stock apartado.
+     *
+     * @throws IllegalStateException si la reserva ya estaba confirmada
+     */
+    public Optional<StockReservation> release(String reservaId) {
+        StockReservation claimed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(reservaId).and("estado").in(RELEASABLE)),
+                // expiresAt = ahora: si algo falla a mitad, el barrido la reintenta
+                new Update().set("estado", ReservationStatus.LIBERANDO).set("expiresAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                StockReservation.class);
+
+        if (claimed != null) {
+            productRepository.releaseReservations(Map.of(reservaId, cantidades(claimed)));
+            eventPublisher.publishEvent(ProductChangedEvent.stock(cantidades(claimed).keySet()));
+            close(reservaId, ReservationStatus.LIBERANDO, ReservationStatus.LIBERADA);
+            claimed.setEstado(ReservationStatus.LIBERADA);
+            return Optional.of(claimed);
+        }
+
+        StockReservation existing = mongoTemplate.findById(reservaId, StockReservation.class);
+        if (existing == null) {
+            return Optional.empty();
+        }
+        if (existing.getEstado() == ReservationStatus.LIBERADA) {
+            return Optional.of(existing);
+        }
+        throw new IllegalStateException("La reserva ya fue confirmada");
+    }
+
+    /**
+     * Barrido de reservas expiradas. Usa el índice {estado, expiresAt} de la
+     * colección "reservas" (nunca recorre "products") y procesa cada lote con
+     * un número fijo de operaciones: reclamar, un bulk de devolución de stock
+     * y cerrar.
+     *
+     * @return número de reservas liberadas
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.sweep-interval:PT5S}")
+    public int sweepExpired() {
+        int released = 0;
+        while (true) {
+            Instant now = Instant.now();
+            Query expired = Query.query(Criteria.where("estado").in(RELEASABLE).and("expiresAt").lte(now))
+                    .limit(sweepBatchSize);
+            expired.fields().include("_id");
+            List<String> ids = mongoTemplate.find(expired, StockReservation.class).stream()
+                    .map(StockReservation::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // 1. Reclamamos el lote (otra instancia del catálogo no lo procesará)
+            String sweepId = UUID.randomUUID().toString();
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(ids).and("estado").in(RELEASABLE).and("expiresAt").lte(now)),
+                    new Update().set("estado", ReservationStatus.LIBERANDO).set(SWEEP_FIELD, sweepId),
+                    StockReservation.class);
+            List<StockReservation> claimed = mongoTemplate.find(
+                    Query.query(Criteria.where(SWEEP_FIELD).is(sweepId)), StockReservation.class);
+
+            // 2. Un solo bulk devuelve el stock de todo el lote
+            Map<String, Map<String, Integer>> cantidadesPorReserva = new LinkedHashMap<>();
+            claimed.forEach(r -> cantidadesPorReserva.put(r.getId(), cantidades(r)));
+            productRepository.releaseReservations(cantidadesPorReserva);
+            Set<String> productIds = new HashSet<>();
+            cantidadesPorReserva.values().forEach(c -> productIds.addAll(c.keySet()));
+            if (!productIds.isEmpty()) {
+                eventPublisher.publishEvent(ProductChangedEvent.stock(productIds));
+            }
+
+            // 3. Cerramos el lote
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where(SWEEP_FIELD).is(sweepId).and("estado").is(ReservationStatus.LIBERANDO)),
+                    new Update()
+                            .set("estado", ReservationStatus.LIBERADA)
+                            .set("cerradaEn", Instant.now())
+                            .unset(SWEEP_FIELD),
+                    StockReservation.class);
+
+            released += claimed.size();
+            if (ids.size() < sweepBatchSize) {
+                break;
+            }
+        }
+        if (released > 0) {
+            log.info("Reservas expiradas liberadas: {}", released);
+        }
+        return released;
+    }
+
+    private boolean close(String reservaId, ReservationStatus from, ReservationStatus to) {
+        Update update = new Update().set("estado", to);
+        if (to == ReservationStatus.LIBERADA || to == ReservationStatus.CONFIRMADA) {
+            update.set("cerradaEn", Instant.now());
+        }
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(reservaId).and("estado").is(from)),
+                update,
+                StockReservation.class).getModifiedCount() == 1;
+    }
+
+    private static Map<String, Integer> cantidades(StockReservation reservation) {
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        reservation.getItems().forEach(item -> cantidades.put(item.productId(), item.cantidad()));
+        return cantidades;
+    }
+}
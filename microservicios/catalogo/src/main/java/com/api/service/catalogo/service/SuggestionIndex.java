@@ -0,0 +1,444 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.dto.Suggestion;
+import com.api.service.catalogo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Autocompletado de /api/catalogo/suggest: un radix trie sobre los nombres de
+ * producto (desde el principio y desde cada palabra) y las categorías, sin
+ * acentos ni mayúsculas. Cada nodo guarda ya calculadas sus mejores K
+ * sugerencias (por stock), así que una consulta solo recorre el prefijo y
+ * devuelve ese array, sin ordenar ni copiar nada.
+ * <p>
+ * Las lecturas no se bloquean: las aristas y el top de cada nodo son
+ * inmutables y se sustituyen enteros. Las escrituras (ProductChangedEvent,
+ * locales o de otras instancias) se serializan y solo recalculan los nodos del camino de cada clave.
+ */
+@Service
+public class SuggestionIndex {
+
+    private static final List<String> FIELDS = List.of("id", "nombre", "stock", "categorias");
+    // Claves por nombre: el nombre completo y desde cada una de las siguientes palabras
+    private static final int MAX_KEYS_PER_NAME = 4;
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    private static final Comparator<Suggestion> ORDER = Comparator.comparingLong(Suggestion::peso).reversed()
+            .thenComparing(Suggestion::texto);
+
+    public record Stats(int products, int categories, int keys, int nodes, long estimatedBytes, boolean ready) {
+    }
+
+    private record IndexedProduct(Suggestion suggestion, Set<String> keys, Set<String> categorias, long stock) {
+    }
+
+    private record IndexedCategory(Suggestion suggestion, String key, int products) {
+    }
+
+    /**
+     * Aristas de un nodo ordenadas por su primer carácter (búsqueda binaria).
+     */
+    private record Edges(char[] first, String[] labels, Node[] targets) {
+
+        static final Edges EMPTY = new Edges(new char[0], new String[0], new Node[0]);
+
+        int find(char c) {
+            return Arrays.binarySearch(first, c);
+        }
+
+        int size() {
+            return first.length;
+        }
+
+        Edges with(String label, Node target) {
+            int at = -find(label.charAt(0)) - 1;
+            int n = first.length;
+            char[] f = new char[n + 1];
+            String[] l = new String[n + 1];
+            Node[] t = new Node[n + 1];
+            System.arraycopy(first, 0, f, 0, at);
+            System.arraycopy(labels, 0, l, 0, at);
+            System.arraycopy(targets, 0, t, 0, at);
+            f[at] = label.charAt(0);
+            l[at] = label;
+            t[at] = target;
+            System.arraycopy(first, at, f, at + 1, n - at);
+            System.arraycopy(labels, at, l, at + 1, n - at);
+            System.arraycopy(targets, at, t, at + 1, n - at);
+            return new Edges(f, l, t);
+        }
+
+        Edges replace(int i, String label, Node target) {
+            String[] l = labels.clone();
+            Node[] t = targets.clone();
+            l[i] = label;
+            t[i] = target;
+            return new Edges(first, l, t);
+        }
+
+        Edges without(int i) {
+            int n = first.length;
+            char[] f = new char[n - 1];
+            String[] l = new String[n - 1];
+            Node[] t = new Node[n - 1];
+            System.arraycopy(first, 0, f, 0, i);
+            System.arraycopy(labels, 0, l, 0, i);
+            System.arraycopy(targets, 0, t, 0, i);
+            System.arraycopy(first, i + 1, f, i, n - i - 1);
+            System.arraycopy(labels, i + 1, l, i, n - i - 1);
+            System.arraycopy(targets, i + 1, t, i, n - i - 1);
+            return new Edges(f, l, t);
+        }
+    }
+
+    private static final class Node {
+        volatile Edges edges = Edges.EMPTY;
+        // Mejores K sugerencias del subárbol, ordenadas
+        volatile Suggestion[] top = NONE;
+        // Sugerencias cuya clave termina en este nodo (solo las usan los escritores)
+        Suggestion[] own = NONE;
+    }
+
+    private final Node root = new Node();
+    private final Map<String, IndexedProduct> products = new HashMap<>();
+    private final Map<String, IndexedCategory> categories = new HashMap<>();
+    private int keyCount;
+
+    private final ProductRepository productRepository;
+    private final int topK;
+    private final BackgroundRebuild rebuild;
+
+    public SuggestionIndex(ProductRepository productRepository,
+            @Value("${app.catalogo.suggest.top-k:10}") int topK,
+            @Value("${app.catalogo.memory-indexes.retry-interval:30s}") Duration retryInterval) {
+        this.productRepository = productRepository;
+        this.topK = topK;
+        this.rebuild = new BackgroundRebuild("índice de sugerencias", this::load, this::refresh, retryInterval);
+    }
+
+    // En segundo plano y con reintentos: /suggest responde 503 hasta que haya índice
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild.start();
+    }
+
+    /**
+     * Construye el índice en el hilo actual.
+     */
+    public void rebuild() {
+        rebuild.run();
+    }
+
+    private void load() {
+        try (Stream<Product> all = productRepository.streamAll(FIELDS, 1000)) {
+            all.forEach(this::index);
+        }
+    }
+
+    public boolean isReady() {
+        return rebuild.isReady();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        rebuild.changed(event.productIds());
+        if (event.type() == ProductChangedEvent.ChangeType.ELIMINADO) {
+            event.productIds().forEach(this::remove);
+            return;
+        }
+        refresh(event.productIds());
+    }
+
+    // Vuelve a leer los productos de MongoDB; los que ya no existen se quitan
+    private void refresh(Collection<String> productIds) {
+        Set<String> missing = new HashSet<>(productIds);
+        for (Product product : productRepository.findAllById(productIds)) {
+            index(product);
+            missing.remove(product.getId());
+        }
+        missing.forEach(this::remove);
+    }
+
+    /**
+     * Mejores sugerencias para lo que lleva escrito el usuario (como mucho K).
+     * La lista devuelta es una vista del top del nodo, sin copiarlo.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            Edges edges = node.edges;
+            int i = edges.find(key.charAt(pos));
+            if (i < 0) {
+                return List.of();
+            }
+            String label = edges.labels()[i];
+            int n = Math.min(label.length(), key.length() - pos);
+            if (!key.regionMatches(pos, label, 0, n)) {
+                return List.of();
+            }
+            pos += n;
+            node = edges.targets()[i];
+        }
+        Suggestion[] top = node.top;
+        return Collections.unmodifiableList(Arrays.asList(top).subList(0, Math.min(limit, top.length)));
+    }
+
+    public synchronized void index(Product product) {
+        removeLocked(product.getId());
+        long stock = product.getStock() != null ? product.getStock() : 0;
+
+        Set<String> keys = new LinkedHashSet<>();
+        Suggestion suggestion = null;
+        if (product.getNombre() != null) {
+            suggestion = new Suggestion(product.getNombre(), Suggestion.Tipo.PRODUCTO, product.getId(), stock);
+            String nombre = normalize(product.getNombre()).strip();
+            int from = 0;
+            while (from >= 0 && !nombre.isEmpty() && keys.size() < MAX_KEYS_PER_NAME) {
+                keys.add(nombre.substring(from));
+                int space = nombre.indexOf(' ', from);
+                from = space < 0 ? -1 : space + 1;
+            }
+            for (String key : keys) {
+                insert(root, key, 0, suggestion);
+            }
+            keyCount += keys.size();
+        }
+
+        Set<String> categorias = new LinkedHashSet<>();
+        if (product.getCategorias() != null) {
+            product.getCategorias().stream().filter(c -> c != null && !c.isBlank()).forEach(categorias::add);
+        }
+        categorias.forEach(c -> adjustCategory(c, stock, 1));
+        products.put(product.getId(), new IndexedProduct(suggestion, keys, categorias, stock));
+    }
+
+    public synchronized void remove(String productId) {
+        removeLocked(productId);
+    }
+
+    private void removeLocked(String productId) {
+        IndexedProduct removed = products.remove(productId);
+        if (removed == null) {
+            return;
+        }
+        for (String key : removed.keys()) {
+            delete(root, key, 0, removed.suggestion());
+        }
+        keyCount -= removed.keys().size();
+        removed.categorias().forEach(c -> adjustCategory(c, -removed.stock(), -1));
+    }
+
+    // El peso de una categoría es el stock total de sus productos
+    private void adjustCategory(String categoria, long stock, int products) {
+        IndexedCategory old = categories.remove(categoria);
+        long peso = stock;
+        int count = products;
+        if (old != null) {
+            delete(root, old.key(), 0, old.suggestion());
+            keyCount--;
+            peso += old.suggestion().peso();
+            count += old.products();
+        }
+        String key = normalize(categoria).strip();
+        if (count <= 0 || key.isEmpty()) {
+            return;
+        }
+        Suggestion suggestion = new Suggestion(categoria, Suggestion.Tipo.CATEGORIA, null, peso);
+        insert(root, key, 0, suggestion);
+        keyCount++;
+        categories.put(categoria, new IndexedCategory(suggestion, key, count));
+    }
+
+    private void insert(Node node, String key, int pos, Suggestion suggestion) {
+        if (pos == key.length()) {
+            Suggestion[] own = Arrays.copyOf(node.own, node.own.length + 1);
+            own[own.length - 1] = suggestion;
+            node.own = own;
+            recompute(node);
+            return;
+        }
+        Edges edges = node.edges;
+        int i = edges.find(key.charAt(pos));
+        if (i < 0) {
+            Node leaf = new Node();
+            leaf.own = new Suggestion[] { suggestion };
+            leaf.top = leaf.own;
+            node.edges = edges.with(key.substring(pos), leaf);
+            recompute(node);
+            return;
+        }
+        String label = edges.labels()[i];
+        Node target = edges.targets()[i];
+        int common = 1;
+        while (common < label.length() && pos + common < key.length()
+                && label.charAt(common) == key.charAt(pos + common)) {
+            common++;
+        }
+        if (common == label.length()) {
+            insert(target, key, pos + common, suggestion);
+        } else {
+            // Partimos la arista: el nodo intermedio se completa antes de publicarlo
+            Node middle = new Node();
+            middle.edges = Edges.EMPTY.with(label.substring(common), target);
+            middle.top = target.top;
+            insert(middle, key, pos + common, suggestion);
+            node.edges = edges.replace(i, label.substring(0, common), middle);
+        }
+        recompute(node);
+    }
+
+    private void delete(Node node, String key, int pos, Suggestion suggestion) {
+        if (pos == key.length()) {
+            node.own = Arrays.stream(node.own).filter(s -> s != suggestion).toArray(Suggestion[]::new);
+            recompute(node);
+            return;
+        }
+        Edges edges = node.edges;
+        int i = edges.find(key.charAt(pos));
+        if (i < 0 || !key.startsWith(edges.labels()[i], pos)) {
+            return;
+        }
+        String label = edges.labels()[i];
+        Node target = edges.targets()[i];
+        delete(target, key, pos + label.length(), suggestion);
+
+        Edges below = target.edges;
+        if (target.own.length == 0 && below.size() == 0) {
+            node.edges = edges.without(i);
+        } else if (target.own.length == 0 && below.size() == 1) {
+            // Nodo sin sugerencias propias y con un solo hijo: se fusiona con él
+            node.edges = edges.replace(i, label + below.labels()[0], below.targets()[0]);
+        }
+        recompute(node);
+    }
+
+    /**
+     * Top K del nodo a partir de sus sugerencias propias y del top de cada
+     * hijo (sin repetir: un producto puede llegar por varias claves).
+     */
+    private void recompute(Node node) {
+        Suggestion[] best = new Suggestion[topK];
+        int size = merge(best, 0, node.own);
+        for (Node child : node.edges.targets()) {
+            size = merge(best, size, child.top);
+        }
+        node.top = size == 0 ? NONE : Arrays.copyOf(best, size);
+    }
+
+    private int merge(Suggestion[] best, int size, Suggestion[] candidates) {
+        for (Suggestion candidate : candidates) {
+            if (size == best.length && ORDER.compare(candidate, best[size - 1]) >= 0) {
+                continue;
+            }
+            boolean present = false;
+            for (int j = 0; j < size && !present; j++) {
+                present = best[j] == candidate;
+            }
+            if (present) {
+                continue;
+            }
+            int at = size == best.length ? size - 1 : size++;
+            while (at > 0 && ORDER.compare(candidate, best[at - 1]) < 0) {
+                best[at] = best[at - 1];
+                at--;
+            }
+            best[at] = candidate;
+        }
+        return size;
+    }
+
+    /**
+     * Minúsculas, sin acentos y con un solo espacio entre palabras; el
+     * espacio final se conserva ("sony " ya no sugiere "sonymax").
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Lo habitual es teclear sin acentos: entonces no hace falta descomponer el texto
+        String folded = isAscii(text) ? text : SearchTextAnalyzer.fold(text);
+        StringBuilder key = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = Character.toLowerCase(folded.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && key.length() > 0) {
+                    key.append(' ');
+                }
+                pendingSpace = false;
+                key.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        if (pendingSpace && key.length() > 0) {
+            key.append(' ');
+        }
+        return key.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized Stats stats() {
+        int nodes = 0;
+        long bytes = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            nodes++;
+            Edges edges = node.edges;
+            // Nodo + Edges con sus tres arrays + etiquetas + arrays de sugerencias
+            bytes += 32 + 16 + 3 * 16L + edges.size() * (2L + 4 + 4) + 16L + 4L * node.top.length
+                    + 16L + 4L * node.own.length;
+            for (int i = 0; i < edges.size(); i++) {
+                bytes += 40 + 2L * edges.labels()[i].length();
+                pending.push(edges.targets()[i]);
+            }
+        }
+        // Cada producto: entrada del mapa + record de la sugerencia con su texto
+        for (IndexedProduct product : products.values()) {
+            bytes += 32 + (product.suggestion() != null ? 40 + 2L * product.suggestion().texto().length() : 0);
+        }
+        bytes += 64L * categories.size();
+        return new Stats(products.size(), categories.size(), keyCount, nodes, bytes, isReady());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuild.shutdown();
+    }
+}
@@ -0,0 +1,197 @@
+package com.api.service.catalogo.config;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChange;
+import com.api.service.catalogo.model.StockReservation;
+import com.api.service.catalogo.model.dto.IndexReport;
+import com.api.service.catalogo.model.dto.IndexReport.Estado;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MongoIndexManagerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOps;
+
+    // Índices que "existen" en cada colección simulada
+    private final Map<String, List<Document>> existing = new HashMap<>();
+    private MongoIndexManager manager;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("products");
+        when(mongoTemplate.getCollectionName(StockReservation.class)).thenReturn("reservas");
+        when(mongoTemplate.getCollectionName(ProductChange.class)).thenReturn("cambios");
+        when(mongoTemplate.indexOps(anyString())).thenReturn(indexOps);
+        when(mongoTemplate.getCollection(anyString())).thenAnswer(invocation -> collection(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MongoCollection<Document> collection(String name) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        ListIndexesIterable<Document> indexes = mock(ListIndexesIterable.class);
+        when(indexes.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.addAll(existing.getOrDefault(name, List.of()));
+            return target;
+        });
+        when(collection.listIndexes()).thenReturn(indexes);
+
+        when(collection.aggregate(anyList())).thenAnswer(invocation -> {
+            List<Document> pipeline = invocation.getArgument(0);
+            AggregateIterable<Document> aggregation = mock(AggregateIterable.class);
+            when(aggregation.into(any())).thenAnswer(into -> {
+                Collection<Document> target = into.getArgument(0);
+                if (pipeline.get(0).containsKey("$collStats")) {
+                    target.add(new Document("storageStats", new Document("indexSizes",
+                            new Document("_id_", 4096).append("precio_1", 8192))));
+                } else if (name.equals("products")) {
+                    target.add(new Document("name", "precio_1").append("accesses", new Document("ops", 42L)));
+                }
+                return target;
+            });
+            return aggregation;
+        });
+        return collection;
+    }
+
+    private static Document index(String name, Document key) {
+        return new Document("name", name).append("key", key);
+    }
+
+    private MongoIndexManager manager(List<ManagedIndex> indexes) {
+        manager = new MongoIndexManager(mongoTemplate, indexes, Duration.ofHours(1));
+        return manager;
+    }
+
+    @Test
+    void sync_ShouldOnlyBuildMissingIndexes_CriticalFirst() {
+        existing.put("products", new ArrayList<>(List.of(
+                index("_id_", new Document("_id", 1)),
+                index("nombre_text_descripcion_text", new Document("_fts", "text").append("_ftsx", 1)))));
+
+        manager(MongoConfig.declaredIndexes(mongoTemplate)).sync();
+
+        // Faltaban categorias+precio, la de imágenes pendientes, las dos de reservas y las dos del feed
+        verify(indexOps, times(6)).ensureIndex(any(IndexDefinition.class));
+        // $text siempre usa el índice de texto: un {precio:1} suelto solo costaría en cada escritura
+        assertFalse(manager.states().containsKey("products.precio_1"));
+        var order = inOrder(indexOps);
+        order.verify(indexOps).ensureIndex(argThat(d -> d.getIndexKeys().containsKey("categorias")));
+        order.verify(indexOps).ensureIndex(argThat(d -> d.getIndexKeys().containsKey("cerradaEn")));
+        assertTrue(manager.criticalReady());
+        assertTrue(manager.states().values().stream().allMatch(estado -> estado == Estado.LISTO));
+
+        // Una segunda pasada no vuelve a tocar nada
+        manager.sync();
+        verify(indexOps, times(6)).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void failedBuild_ShouldKeepTheInstanceOutOfService_UntilARetrySucceeds() {
+        ManagedIndex precio = new ManagedIndex("products", new Index().on("precio", Sort.Direction.ASC), true);
+        ManagedIndex ttl = new ManagedIndex("reservas",
+                new Index().on("cerradaEn", Sort.Direction.ASC).expire(Duration.ofDays(1)), false);
+        MongoIndexHealthIndicator health = new MongoIndexHealthIndicator(manager(List.of(ttl, precio)));
+        when(indexOps.ensureIndex(any(IndexDefinition.class)))
+                .thenThrow(new MongoTimeoutException("sin servidor"))
+                .thenReturn("ok");
+
+        manager.sync();
+        assertEquals(Status.OUT_OF_SERVICE, health.health().getStatus());
+        assertEquals(Estado.ERROR, manager.states().get("products.precio_1"));
+
+        manager.sync();
+        assertEquals(Status.UP, health.health().getStatus());
+        assertEquals(Estado.LISTO, manager.states().get("products.precio_1"));
+    }
+
+    @Test
+    void differentTtl_ShouldBeReportedButNotRebuilt() {
+        existing.put("reservas", List.of(index("cerradaEn_1", new Document("cerradaEn", 1))
+                .append("expireAfterSeconds", 3600)));
+        ManagedIndex ttl = new ManagedIndex("reservas",
+                new Index().on("cerradaEn", Sort.Direction.ASC).expire(Duration.ofDays(1)), false);
+
+        manager(List.of(ttl)).sync();
+
+        verify(indexOps, never()).ensureIndex(any(IndexDefinition.class));
+        assertEquals(Estado.DISTINTO, manager.states().get("reservas.cerradaEn_1"));
+        assertTrue(manager.criticalReady());
+    }
+
+    @Test
+    void compoundKeys_ShouldMatchInOrder() {
+        ManagedIndex compound = new ManagedIndex("products",
+                new Index().on("categorias", Sort.Direction.ASC).on("precio", Sort.Direction.ASC), true);
+
+        assertEquals("categorias_1_precio_1", compound.name());
+        assertTrue(compound.sameKeys(index("x", new Document("categorias", 1).append("precio", 1L))));
+        assertFalse(compound.sameKeys(index("x", new Document("precio", 1).append("categorias", 1))));
+        assertFalse(compound.sameKeys(index("x", new Document("categorias", 1).append("precio", -1))));
+        assertFalse(compound.sameKeys(index("x", new Document("categorias", 1))));
+        // El servidor puede devolver la dirección como double
+        assertTrue(compound.sameKeys(index("x", new Document("categorias", 1.0).append("precio", 1.0))));
+    }
+
+    @Test
+    void report_ShouldIncludeSizesUsageAndUndeclaredIndexes() {
+        existing.put("products", List.of(
+                index("_id_", new Document("_id", 1)),
+                index("precio_1", new Document("precio", 1))));
+        ManagedIndex precio = new ManagedIndex("products", new Index().on("precio", Sort.Direction.ASC), true);
+        ManagedIndex categorias = new ManagedIndex("products", new Index().on("categorias", Sort.Direction.ASC), true);
+        when(indexOps.ensureIndex(any(IndexDefinition.class))).thenThrow(new MongoTimeoutException("sin servidor"));
+        manager(List.of(precio, categorias)).sync();
+
+        List<IndexReport> report = manager.report();
+
+        assertEquals(List.of(
+                new IndexReport("products", "_id_", Estado.NO_DECLARADO, false, 4096L, null, null, null),
+                new IndexReport("products", "precio_1", Estado.LISTO, true, 8192L, 42L, null, null),
+                new IndexReport("products", "categorias_1", Estado.ERROR, true, null, null, null,
+                        "sin servidor")), report);
+    }
+}
@@ -1,26 +1,51 @@
 package com.api.service.catalogo.controller;
 
+import com.api.service.catalogo.exception.InvalidQueryException;
 import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchPage;
 import com.api.service.catalogo.repository.ProductRepository;
 import com.api.service.catalogo.service.FileUploadService;
+import com.api.service.catalogo.service.ProductCache;
+import com.api.service.catalogo.service.ProductSearchService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
 
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,6 +61,15 @@ class ProductControllerTest {
     @Mock
     private FileUploadService fileUploadService;
 
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductController productController;
 
@@ -61,23 +95,142 @@ class ProductControllerTest {
     }
 
     @Test
-    void getAllProducts_ShouldReturnList() throws Exception {
+    void getAllProducts_ShouldReturnFirstPage() throws Exception {
         // Arrange
-        when(productRepository.findAll()).thenReturn(Arrays.asList(product));
+        when(productRepository.findPage(isNull(), anyInt(), eq(ProductFields.SUMMARY))).thenReturn(Arrays.asList(product));
 
         // Act & Assert
         mockMvc.perform(get("/api/catalogo"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].nombre").value("Laptop Gamer"))
-                .andExpect(jsonPath("$[0].id").value("prod-1"));
+                .andExpect(jsonPath("$[0].id").value("prod-1"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllProducts_ShouldReturnNextCursor_WhenMorePagesExist() throws Exception {
+        // Arrange: se piden size + 1 para detectar la página siguiente
+        String cursor = "65f000000000000000000001";
+        List<Product> products = List.of(
+                Product.builder().id("65f000000000000000000002").nombre("A").build(),
+                Product.builder().id("65f000000000000000000003").nombre("B").build(),
+                Product.builder().id("65f000000000000000000004").nombre("C").build());
+        when(productRepository.findPage(eq(cursor), eq(3), anyList())).thenReturn(products);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/catalogo").param("cursor", cursor).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "65f000000000000000000003"));
+    }
+
+    @Test
+    void getProductsByIds_ShouldUseOneQuery_AndKeepRequestOrderWithNotFoundMarkers() throws Exception {
+        when(productRepository.findAllByIds(eq(new LinkedHashSet<>(List.of("b", "x", "a"))), eq(ProductFields.SUMMARY)))
+                .thenReturn(List.of(
+                        Product.builder().id("a").nombre("A").build(),
+                        Product.builder().id("b").nombre("B").build()));
+
+        mockMvc.perform(post("/api/catalogo/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[\"b\",\"x\",\"a\",\"b\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].product.nombre").value("B"))
+                .andExpect(jsonPath("$[1].id").value("x"))
+                .andExpect(jsonPath("$[1].found").value(false))
+                .andExpect(jsonPath("$[1].product").doesNotExist())
+                .andExpect(jsonPath("$[2].product.nombre").value("A"))
+                .andExpect(jsonPath("$[3].found").value(true));
+
+        verify(productRepository, times(1)).findAllByIds(any(), any());
+        verifyNoInteractions(productCache);
+    }
+
+    @Test
+    void getAllProducts_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/catalogo").param("cursor", "no-es-un-id"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getAllProducts_WithFields_ShouldProjectOnlyRequestedFields() throws Exception {
+        when(productRepository.findPage(isNull(), anyInt(), eq(List.of("id", "nombre", "precio"))))
+                .thenReturn(List.of(Product.builder().id("prod-1").nombre("Laptop Gamer").precio(1500.0).build()));
+
+        mockMvc.perform(get("/api/catalogo").param("fields", "nombre,precio"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nombre").value("Laptop Gamer"))
+                .andExpect(jsonPath("$[0].descripcion").doesNotExist())
+                .andExpect(jsonPath("$[0].stock").doesNotExist());
+    }
+
+    @Test
+    void getAllProducts_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/catalogo").param("fields", "nombre,password"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(productRepository);
+    }
 
-        verify(productRepository, times(1)).findAll();
+    @Test
+    void searchProducts_ShouldReturnPageWithFacets_InOneRepositoryCall() throws Exception {
+        SearchPage page = new SearchPage(List.of(product),
+                List.of(new SearchPage.CategoryFacet("Tecnologia", 7)), "cursor-2");
+        when(productSearchService.search(any(ProductSearchCriteria.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/catalogo/search")
+                        .param("q", "laptop")
+                        .param("categoria", "Tecnologia")
+                        .param("precioMax", "2000")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("prod-1"))
+                .andExpect(jsonPath("$.facets[0].categoria").value("Tecnologia"))
+                .andExpect(jsonPath("$.facets[0].count").value(7))
+                .andExpect(jsonPath("$.next").value("cursor-2"));
+
+        ArgumentCaptor<ProductSearchCriteria> criteria = ArgumentCaptor.forClass(ProductSearchCriteria.class);
+        verify(productSearchService, times(1)).search(criteria.capture());
+        assertEquals(new ProductSearchCriteria("laptop", "Tecnologia", null, 2000.0, null, 10, ProductFields.SUMMARY),
+                criteria.getValue());
+    }
+
+    @Test
+    void searchProducts_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        when(productSearchService.search(any(ProductSearchCriteria.class)))
+                .thenThrow(new InvalidQueryException("Cursor de búsqueda inválido"));
+
+        mockMvc.perform(get("/api/catalogo/search").param("q", "laptop").param("cursor", "xx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchProducts_WithUnexpectedIllegalArgument_ShouldNotBeReportedAsBadRequest() {
+        when(productSearchService.search(any(ProductSearchCriteria.class)))
+                .thenThrow(new IllegalArgumentException("Fallo interno"));
+
+        assertThrows(ServletException.class,
+                () -> mockMvc.perform(get("/api/catalogo/search").param("q", "laptop")));
+    }
+
+    @Test
+    void getProductsByCategoria_ShouldUseSummaryProjection() throws Exception {
+        when(productRepository.findByCategoria("Tecnologia", ProductFields.SUMMARY)).thenReturn(List.of(product));
+
+        mockMvc.perform(get("/api/catalogo/categoria/{categoria}", "Tecnologia"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nombre").value("Laptop Gamer"));
     }
 
     @Test
     void getProductById_WhenExists_ShouldReturnProduct() throws Exception {
         // Arrange
-        when(productRepository.findById("prod-1")).thenReturn(Optional.of(product));
+        when(productCache.findById("prod-1")).thenReturn(Optional.of(product));
 
         // Act & Assert
         mockMvc.perform(get("/api/catalogo/{id}", "prod-1"))
@@ -88,7 +241,7 @@ class ProductControllerTest {
     @Test
     void getProductById_WhenNotExists_ShouldReturn404() throws Exception {
         // Arrange
-        when(productRepository.findById("non-existent")).thenReturn(Optional.empty());
+        when(productCache.findById("non-existent")).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/api/catalogo/{id}", "non-existent"))
@@ -96,7 +249,7 @@ class ProductControllerTest {
     }
 
     @Test
-    void createProduct_WithImage_ShouldUploadAndSave() throws Exception {
+    void createProduct_WithImage_ShouldSaveWithPendingImage_AndUploadInBackground() throws Exception {
         // Arrange: Preparamos el archivo y el JSON del producto
         MockMultipartFile imageFile = new MockMultipartFile(
                 "image", "foto.jpg", MediaType.IMAGE_JPEG_VALUE, "fake-image-content".getBytes());
@@ -104,19 +257,45 @@ class ProductControllerTest {
         MockMultipartFile productJson = new MockMultipartFile(
                 "product", "", MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(product));
 
-        // Simulamos la respuesta de Cloudinary y del Repositorio
-        when(fileUploadService.uploadFile(any())).thenReturn("http://cloudinary.com/foto-nueva.jpg");
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // La imagen queda en disco esperando al pool de subidas
+        FileUploadService.PendingUpload upload = new FileUploadService.PendingUpload(
+                Path.of("foto.tmp"), MediaType.IMAGE_JPEG_VALUE);
+        when(fileUploadService.stage(any())).thenReturn(upload);
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+            // MongoDB asigna el id al insertar
+            Product saved = invocation.getArgument(0);
+            saved.setId("prod-nuevo");
+            return saved;
+        });
 
         // Act: Hacemos un POST multipart
         mockMvc.perform(multipart("/api/catalogo")
                 .file(imageFile)
                 .file(productJson))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.imageUrl").value("http://cloudinary.com/foto-nueva.jpg"));
+                .andExpect(jsonPath("$.imageStatus").value("PENDIENTE"))
+                .andExpect(jsonPath("$.imageUrl").doesNotExist());
 
-        // Assert: Verificamos que se llamó al servicio de subida
-        verify(fileUploadService, times(1)).uploadFile(any());
+        // Assert: la subida se encola con el id ya asignado
+        verify(fileUploadService, times(1)).uploadInBackground("prod-nuevo", upload);
+        // Con la hora de alta de la subida, para que el barrido la pase a ERROR si se pierde
+        verify(productRepository).save(argThat(p -> p.getImagePendienteDesde() != null));
+    }
+
+    @Test
+    void createProduct_WhenUploadQueueIsFull_ShouldReturn503WithoutSaving() throws Exception {
+        MockMultipartFile imageFile = new MockMultipartFile(
+                "image", "foto.jpg", MediaType.IMAGE_JPEG_VALUE, "fake-image-content".getBytes());
+        MockMultipartFile productJson = new MockMultipartFile(
+                "product", "", MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(product));
+        when(fileUploadService.stage(any())).thenThrow(new RejectedExecutionException("cola llena"));
+
+        mockMvc.perform(multipart("/api/catalogo")
+                .file(imageFile)
+                .file(productJson))
+                .andExpect(status().isServiceUnavailable());
+
+        verify(productRepository, never()).save(any());
     }
 
     @Test
@@ -126,10 +305,11 @@ class ProductControllerTest {
                 .nombre("Laptop Gamer Pro")
                 .precio(2000.0)
                 .stock(5)
+                .version(3L)
                 .build();
 
-        when(productRepository.findById("prod-1")).thenReturn(Optional.of(product));
-        when(productRepository.save(any(Product.class))).thenReturn(updatedDetails);
+        when(productRepository.updateDetails(eq("prod-1"), eq(3L), any(Product.class)))
+                .thenReturn(Optional.of(updatedDetails));
 
         // Act
         mockMvc.perform(put("/api/catalogo/{id}", "prod-1")
@@ -137,6 +317,45 @@ class ProductControllerTest {
                 .content(objectMapper.writeValueAsString(updatedDetails)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.nombre").value("Laptop Gamer Pro"));
+
+        // Assert: un $set en un solo viaje, sin leer ni reescribir el documento
+        verify(productRepository, never()).findById(anyString());
+        verify(productRepository, never()).save(any(Product.class));
+        verify(eventPublisher).publishEvent(ProductChangedEvent.of("prod-1", ChangeType.ACTUALIZADO));
+    }
+
+    @Test
+    void updateProduct_WhenVersionIsStale_ShouldReturnConflict() throws Exception {
+        Product staleDetails = Product.builder().nombre("Laptop").precio(1500.0).stock(10).version(2L).build();
+        when(productRepository.updateDetails(eq("prod-1"), eq(2L), any(Product.class))).thenReturn(Optional.empty());
+        when(productRepository.existsById("prod-1")).thenReturn(true);
+
+        mockMvc.perform(put("/api/catalogo/{id}", "prod-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(staleDetails)))
+                .andExpect(status().isConflict());
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void updateStock_ShouldSetStockWithVersion_OrReturn404() throws Exception {
+        product.setStock(25);
+        when(productRepository.setStock("prod-1", 7L, 25)).thenReturn(Optional.of(product));
+        when(productRepository.setStock("missing", null, 1)).thenReturn(Optional.empty());
+        when(productRepository.existsById("missing")).thenReturn(false);
+
+        mockMvc.perform(put("/api/catalogo/stock/{id}", "prod-1")
+                .param("stock", "25")
+                .param("version", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(25));
+        mockMvc.perform(put("/api/catalogo/stock/{id}", "missing")
+                .param("stock", "1"))
+                .andExpect(status().isNotFound());
+
+        verify(eventPublisher).publishEvent(ProductChangedEvent.of("prod-1", ChangeType.STOCK));
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
@@ -148,12 +367,15 @@ class ProductControllerTest {
         // Act & Assert
         mockMvc.perform(delete("/api/catalogo/{id}", "prod-1"))
                 .andExpect(status().isNoContent());
+
+        // La caché y los índices en memoria se enteran de la baja
+        verify(eventPublisher).publishEvent(ProductChangedEvent.of("prod-1", ChangeType.ELIMINADO));
     }
 
     @Test
     void reduceStock_WhenSufficient_ShouldReduce() throws Exception {
-        // Arrange
-        when(productRepository.findById("prod-1")).thenReturn(Optional.of(product));
+        // Arrange: El stock original era 10, reducimos 5 -> quedan 5
+        when(productRepository.decrementStock("prod-1", 5)).thenReturn(Optional.of(5));
 
         // Act
         mockMvc.perform(put("/api/catalogo/stock/reducir/{id}", "prod-1")
@@ -161,16 +383,18 @@ class ProductControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Stock actualizado"));
 
-        // Assert: El stock original era 10, reducimos 5 -> debe quedar en 5
-        // Verificamos que se guardó el producto (podríamos capturar el argumento para
-        // ser más precisos)
-        verify(productRepository, times(1)).save(any(Product.class));
+        // Assert: el descuento es una sola operación atómica, sin leer ni guardar el documento
+        verify(productRepository, times(1)).decrementStock("prod-1", 5);
+        verify(productRepository, never()).findById(anyString());
+        verify(productRepository, never()).save(any(Product.class));
+        verify(eventPublisher).publishEvent(ProductChangedEvent.of("prod-1", ChangeType.STOCK));
     }
 
     @Test
     void reduceStock_WhenInsufficient_ShouldReturnBadRequest() throws Exception {
-        // Arrange: Stock es 10, pedimos 20
-        when(productRepository.findById("prod-1")).thenReturn(Optional.of(product));
+        // Arrange: Stock es 10, pedimos 20 -> la condición stock >= cantidad no se cumple
+        when(productRepository.decrementStock("prod-1", 20)).thenReturn(Optional.empty());
+        when(productRepository.existsById("prod-1")).thenReturn(true);
 
         // Act
         mockMvc.perform(put("/api/catalogo/stock/reducir/{id}", "prod-1")
@@ -181,4 +405,67 @@ class ProductControllerTest {
         // Assert: No se debe llamar a save
         verify(productRepository, never()).save(any(Product.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void reduceStock_WhenProductNotExists_ShouldReturn404() throws Exception {
+        when(productRepository.decrementStock("non-existent", 1)).thenReturn(Optional.empty());
+        when(productRepository.existsById("non-existent")).thenReturn(false);
+
+        mockMvc.perform(put("/api/catalogo/stock/reducir/{id}", "non-existent")
+                .param("cantidad", "1"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Producto no encontrado"));
+    }
+
+    @Test
+    void reduceStockBulk_ShouldMergeItems_AndReduceInOneCall() throws Exception {
+        when(productRepository.decrementStockAll(anyString(), anyMap())).thenReturn(List.of());
+
+        String body = """
+                {"items": [
+                  {"productId": "prod-1", "cantidad": 2},
+                  {"productId": "prod-2", "cantidad": 1},
+                  {"productId": "prod-1", "cantidad": 3}
+                ]}""";
+
+        mockMvc.perform(put("/api/catalogo/stock/reducir")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Stock actualizado"));
+
+        verify(productRepository, times(1)).decrementStockAll(anyString(), eq(Map.of("prod-1", 5, "prod-2", 1)));
+    }
+
+    @Test
+    void reduceStockBulk_WhenAnyItemFails_ShouldReturnBadRequest() throws Exception {
+        when(productRepository.decrementStockAll(anyString(), anyMap())).thenReturn(List.of("prod-2"));
+
+        mockMvc.perform(put("/api/catalogo/stock/reducir")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\": [{\"productId\": \"prod-1\", \"cantidad\": 1}, {\"productId\": \"prod-2\", \"cantidad\": 99}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Stock insuficiente o producto no encontrado: prod-2"));
+    }
+
+    @Test
+    void sizeOrStockBelowMin_ShouldReturnBadRequest() throws Exception {
+        // Mismo proxy que crea Spring por @Validated (standaloneSetup usa el controlador sin proxy)
+        MethodValidationPostProcessor validation = new MethodValidationPostProcessor();
+        validation.setProxyTargetClass(true);
+        validation.afterPropertiesSet();
+        MockMvc validated = MockMvcBuilders
+                .standaloneSetup(validation.postProcessAfterInitialization(productController, "productController"))
+                .build();
+
+        validated.perform(get("/api/catalogo").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        validated.perform(get("/api/catalogo/search").param("q", "laptop").param("size", "-5"))
+                .andExpect(status().isBadRequest());
+        validated.perform(put("/api/catalogo/stock/prod-1").param("stock", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("stock: ")));
+
+        verifyNoInteractions(productRepository, productSearchService);
+    }
+}
@@ -0,0 +1,110 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara resolver N productos con N findById (lo que hace hoy el carrito
+ * llamando N veces a GET /api/catalogo/{id}) contra una sola consulta $in
+ * (POST /api/catalogo/batch), contra un MongoDB real (se omite si no hay
+ * Docker disponible). No incluye el salto por el gateway, que se suma a
+ * cada una de las N peticiones individuales. Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class ProductBatchLookupBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBatchLookupBenchmarkTest.class);
+
+    private static final int PRODUCTS = 20_000;
+    private static final int[] BATCH_SIZES = { 10, 50, 200, 500 };
+    private static final int SAMPLES = 20;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final List<String> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Product.class);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .nombre("Producto " + i)
+                    .descripcion("Descripción del producto " + i)
+                    .precio(10.0 + i % 1000)
+                    .stock(i % 100)
+                    .categorias(List.of("Tecnologia"))
+                    .build());
+        }
+        mongoTemplate.insertAll(products).forEach(p -> ids.add(p.getId()));
+    }
+
+    @Test
+    void batchLookup_ShouldBeFasterThanSingleLookups() {
+        Random random = new Random(42);
+        for (int size : BATCH_SIZES) {
+            long single = 0;
+            long batch = 0;
+            for (int s = 0; s < SAMPLES + 2; s++) {
+                List<String> wanted = new ArrayList<>(ids);
+                Collections.shuffle(wanted, random);
+                wanted = wanted.subList(0, size);
+
+                long start = System.nanoTime();
+                for (String id : wanted) {
+                    productRepository.findById(id).orElseThrow();
+                }
+                long singleNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                List<Product> found = productRepository.findAllByIds(wanted, ProductFields.SUMMARY);
+                long batchNanos = System.nanoTime() - start;
+                assertEquals(size, found.size());
+
+                // Las dos primeras vueltas son de calentamiento
+                if (s >= 2) {
+                    single += singleNanos;
+                    batch += batchNanos;
+                }
+            }
+            log.info(String.format("%d ids: %d findById = %.2f ms, un $in = %.2f ms (x%.1f)", size, size,
+                    single / 1e6 / SAMPLES, batch / 1e6 / SAMPLES, (double) single / batch));
+            assertTrue(batch < single, "Una consulta $in debería ser más rápida que " + size + " findById");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import com.mongodb.ExplainVerbosity;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latencia por página del listado paginado por cursor a medida que la
+ * colección crece hasta 1M de productos (se omite si no hay Docker).
+ * Además del tiempo, comprueba con explain() que cada página examina solo
+ * 'PAGE_SIZE' documentos, sea cual sea el tamaño de la colección o la
+ * posición del cursor. Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class ProductPaginationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductPaginationBenchmarkTest.class);
+
+    private static final int[] SIZES = { 10_000, 100_000, 1_000_000 };
+    private static final int PAGE_SIZE = 50;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int SAMPLES = 200;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    void keysetPage_ShouldKeepConstantCost_AsCollectionGrows() {
+        mongoTemplate.dropCollection(Product.class);
+        List<ObjectId> ids = new ArrayList<>();
+
+        for (int size : SIZES) {
+            insertUpTo(size, ids);
+
+            // Cursor cerca del final: con skip/offset sería el peor caso
+            String deepCursor = ids.get(size - PAGE_SIZE * 2).toHexString();
+            double firstMs = averagePageMillis(null);
+            double deepMs = averagePageMillis(deepCursor);
+
+            log.info(String.format("%,d productos: primera página %.2f ms, página profunda %.2f ms",
+                    size, firstMs, deepMs));
+
+            assertEquals(PAGE_SIZE + 1, productRepository.findPage(
+                    ids.get(size / 2).toHexString(), PAGE_SIZE + 1, ProductFields.SUMMARY).size());
+            assertTrue(docsExamined(deepCursor) <= PAGE_SIZE + 1,
+                    "La página profunda no debería recorrer más documentos que el tamaño de página");
+            // Con skip/offset la página profunda crecería con la colección; por cursor cuesta lo mismo
+            assertTrue(deepMs < Math.max(firstMs * 3, 5.0),
+                    "La página profunda no debería ser mucho más lenta que la primera");
+        }
+    }
+
+    private void insertUpTo(int size, List<ObjectId> ids) {
+        var collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class));
+        List<Document> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = ids.size(); i < size; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            batch.add(new Document("_id", id)
+                    .append("nombre", "Producto " + i)
+                    .append("descripcion", "Descripción del producto " + i)
+                    .append("precio", 10.0 + i % 1000)
+                    .append("stock", i % 100));
+            if (batch.size() == INSERT_BATCH) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch);
+        }
+    }
+
+    private double averagePageMillis(String cursor) {
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            productRepository.findPage(cursor, PAGE_SIZE + 1, ProductFields.SUMMARY);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / SAMPLES;
+    }
+
+    private int docsExamined(String cursor) {
+        Document explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .find(new Document("_id", new Document("$gt", new ObjectId(cursor))))
+                .sort(new Document("_id", 1))
+                .limit(PAGE_SIZE + 1)
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+        return explain.get("executionStats", Document.class).getInteger("totalDocsExamined");
+    }
+}
@@ -0,0 +1,106 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara el listado completo con la proyección resumen (tamaño de la
+ * respuesta JSON y latencia de la consulta) contra un MongoDB real
+ * (se omite si no hay Docker disponible). Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class ProductProjectionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductProjectionBenchmarkTest.class);
+
+    private static final int PRODUCTS = 20_000;
+    private static final int PAGE_SIZE = 200;
+    private static final int SAMPLES = 200;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Product.class);
+        // Descripciones largas como las del catálogo real (~1 KB)
+        String descripcion = "Descripción detallada del producto con especificaciones. ".repeat(18);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .nombre("Producto " + i)
+                    .descripcion(descripcion)
+                    .precio(10.0 + i % 1000)
+                    .stock(i % 100)
+                    .categorias(List.of("Tecnologia", "Hogar"))
+                    .imageUrl("https://res.cloudinary.com/demo/image/upload/producto-" + i + ".jpg")
+                    .build());
+        }
+        mongoTemplate.insertAll(products);
+    }
+
+    @Test
+    void summaryProjection_ShouldShrinkPayloadAndLatency() throws Exception {
+        // Calentamiento
+        measure(ProductFields.ALL);
+        measure(ProductFields.SUMMARY);
+
+        long[] full = measure(ProductFields.ALL);
+        long[] summary = measure(ProductFields.SUMMARY);
+
+        log.info(String.format("Página de %d: completa %,d bytes / %.2f ms, resumen %,d bytes / %.2f ms (%.0f%% menos bytes)",
+                PAGE_SIZE, full[0], full[1] / 1_000_000.0, summary[0], summary[1] / 1_000_000.0,
+                100.0 * (full[0] - summary[0]) / full[0]));
+
+        assertTrue(summary[0] * 3 < full[0], "El resumen debería pesar menos de un tercio de la respuesta completa");
+        assertTrue(summary[1] < full[1] * 2, "La proyección no debería hacer más lenta la consulta");
+        assertNull(productRepository.findPage(null, 1, ProductFields.SUMMARY).get(0).getDescripcion());
+    }
+
+    // [bytes JSON de una página, nanos medios por consulta]
+    private long[] measure(Collection<String> fields) throws Exception {
+        List<Product> page = List.of();
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            page = productRepository.findPage(null, PAGE_SIZE, fields);
+        }
+        long avgNanos = (System.nanoTime() - start) / SAMPLES;
+        return new long[] { objectMapper.writeValueAsBytes(page).length, avgNanos };
+    }
+}
@@ -0,0 +1,224 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.ImageStatus;
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.dto.StockChange;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de estrés del descuento de stock contra un MongoDB real
+ * (se omite si no hay Docker disponible).
+ */
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class ProductRepositoryConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductRepositoryConcurrencyTest.class);
+
+    private static final int INITIAL_STOCK = 1_000;
+    private static final int REQUESTS = 5_000;
+    private static final int THREADS = 64;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String productId;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        productId = productRepository.save(Product.builder()
+                .nombre("Consola")
+                .precio(500.0)
+                .stock(INITIAL_STOCK)
+                .build()).getId();
+    }
+
+    @Test
+    void parallelDecrements_ShouldNeverOversell() throws Exception {
+        long start = System.nanoTime();
+        int sold = runInParallel(() -> productRepository.decrementStock(productId, 1).isPresent());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("decrementStock atómico: {} peticiones en {} ms", REQUESTS, elapsedMs);
+
+        assertEquals(INITIAL_STOCK, sold);
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void legacyReadModifySave_ShouldNotOversell_ThanksToVersion() throws Exception {
+        // Camino anterior (findById + save): con @Version las copias viejas fallan en vez de pisar el stock
+        AtomicInteger conflicts = new AtomicInteger();
+        long start = System.nanoTime();
+        int sold = runInParallel(() -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            if (product.getStock() < 1) {
+                return false;
+            }
+            product.setStock(product.getStock() - 1);
+            try {
+                productRepository.save(product);
+                return true;
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.incrementAndGet();
+                return false;
+            }
+        });
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("findById + save: {} peticiones en {} ms, vendidas {} de {}, {} conflictos de versión",
+                REQUESTS, elapsedMs, sold, INITIAL_STOCK, conflicts.get());
+
+        assertTrue(sold <= INITIAL_STOCK);
+        assertTrue(sold + conflicts.get() <= REQUESTS);
+        assertEquals(INITIAL_STOCK - sold, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void decrementStockAll_ShouldRollBackAppliedItems_WhenAnyItemFails() {
+        String otherId = productRepository.save(Product.builder()
+                .nombre("Mando")
+                .precio(60.0)
+                .stock(1)
+                .build()).getId();
+
+        List<String> failed = productRepository.decrementStockAll("op-1", Map.of(productId, 10, otherId, 5));
+
+        assertEquals(List.of(otherId), failed);
+        assertEquals(INITIAL_STOCK, productRepository.findById(productId).orElseThrow().getStock());
+        assertEquals(1, productRepository.findById(otherId).orElseThrow().getStock());
+    }
+
+    @Test
+    void decrementStockAll_ShouldRemoveItsMarker_WhenApplied() {
+        List<String> failed = productRepository.decrementStockAll("op-1", Map.of(productId, 10));
+
+        assertEquals(List.of(), failed);
+        Document stored = mongoTemplate.findById(productId, Document.class, "products");
+        assertEquals(List.of(), stored.getList(ProductRepositoryImpl.OPERATIONS_FIELD, String.class, List.of()));
+        assertEquals(INITIAL_STOCK - 10, stored.getInteger("stock"));
+    }
+
+    @Test
+    void applyStockChanges_ShouldRemoveItsMarkers_WhenTheBulkFailsHalfway() {
+        // Un stock que no es numérico hace fallar el $inc después de aplicar el primer producto
+        String brokenId = mongoTemplate.insert(new Document("nombre", "Roto").append("stock", "muchos"), "products")
+                .getObjectId("_id").toHexString();
+        Map<String, StockChange> session = new LinkedHashMap<>();
+        session.put(productId, new StockChange(null, 5));
+        session.put(brokenId, new StockChange(null, 5));
+
+        assertThrows(DataAccessException.class, () -> productRepository.applyStockChanges(List.of(session)));
+
+        Document stored = mongoTemplate.findById(productId, Document.class, "products");
+        assertEquals(List.of(), stored.getList(ProductRepositoryImpl.OPERATIONS_FIELD, String.class, List.of()));
+    }
+
+    @Test
+    void save_ShouldKeepTheMarkerOfAnOperationInProgress() {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(productId)),
+                new Update().push(ProductRepositoryImpl.OPERATIONS_FIELD, "op-1"), Product.class);
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        product.setNombre("Consola Pro");
+        productRepository.save(product);
+
+        assertEquals(List.of("op-1"), productRepository.findById(productId).orElseThrow().getUltimasOperaciones());
+    }
+
+    @Test
+    void expirePendingImages_ShouldOnlyMarkUploadsPendingBeforeTheCutoff() {
+        Instant now = Instant.now();
+        String stale = productRepository.save(Product.builder().nombre("Perdida").precio(1.0).stock(1)
+                .imageStatus(ImageStatus.PENDIENTE).imagePendienteDesde(now.minusSeconds(3600)).build()).getId();
+        String recent = productRepository.save(Product.builder().nombre("En cola").precio(1.0).stock(1)
+                .imageStatus(ImageStatus.PENDIENTE).imagePendienteDesde(now).build()).getId();
+
+        assertEquals(List.of(stale), productRepository.expirePendingImages(now.minusSeconds(600)));
+
+        Product expired = productRepository.findById(stale).orElseThrow();
+        assertEquals(ImageStatus.ERROR, expired.getImageStatus());
+        assertNull(expired.getImagePendienteDesde());
+        assertEquals(ImageStatus.PENDIENTE, productRepository.findById(recent).orElseThrow().getImageStatus());
+        // Una subida que termina tarde ya no pisa el ERROR
+        assertFalse(productRepository.completeImage(stale, null, ImageStatus.LISTA));
+    }
+
+    @Test
+    void concurrentEditsWithSameVersion_ShouldApplyOnlyOne() throws Exception {
+        long version = productRepository.findById(productId).orElseThrow().getVersion();
+
+        // Varios administradores guardan a la vez partiendo de la misma versión
+        int applied = runInParallel(() -> productRepository.setStock(productId, version, 7).isPresent());
+
+        assertEquals(1, applied);
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(7, product.getStock());
+        assertEquals(version + 1, product.getVersion());
+    }
+
+    private int runInParallel(Callable<Boolean> decrement) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(pool.submit(decrement));
+            }
+            int successes = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    successes++;
+                }
+            }
+            return successes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
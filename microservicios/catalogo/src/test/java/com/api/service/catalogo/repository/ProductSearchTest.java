@@ -0,0 +1,98 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.config.MongoConfig;
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda por relevancia con facetas y cursor contra un MongoDB real
+ * (se omite si no hay Docker disponible).
+ */
+@DataMongoTest
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ProductSearchTest {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        productRepository.saveAll(List.of(
+                product("Laptop gamer", "Laptop con teclado RGB", 1500.0, "Tecnologia"),
+                product("Funda para laptop", "Accesorio", 30.0, "Accesorios"),
+                product("Mochila", "Mochila para laptop de 15 pulgadas", 60.0, "Accesorios"),
+                product("Monitor", "Monitor 4k", 300.0, "Tecnologia")));
+    }
+
+    private static Product product(String nombre, String descripcion, double precio, String categoria) {
+        return Product.builder().nombre(nombre).descripcion(descripcion).precio(precio).stock(5)
+                .categorias(List.of(categoria)).build();
+    }
+
+    private static ProductSearchCriteria criteria(String categoria, Double precioMax, String cursor, int limit) {
+        return new ProductSearchCriteria("laptop", categoria, null, precioMax, cursor, limit, ProductFields.SUMMARY);
+    }
+
+    @Test
+    void search_ShouldRankByRelevance_AndCountCategories() {
+        SearchPage page = productRepository.search(criteria(null, null, null, 10));
+
+        assertEquals(3, page.items().size());
+        // El nombre pesa más que la descripción
+        assertNotEquals("Mochila", page.items().get(0).getNombre());
+        assertEquals("Mochila", page.items().get(2).getNombre());
+        assertNull(page.items().get(0).getDescripcion());
+        assertEquals(List.of(new SearchPage.CategoryFacet("Accesorios", 2), new SearchPage.CategoryFacet("Tecnologia", 1)),
+                page.facets());
+        assertNull(page.next());
+    }
+
+    @Test
+    void search_ShouldFilterByCategoryAndPrice_ButKeepAllFacets() {
+        SearchPage page = productRepository.search(criteria("Accesorios", 50.0, null, 10));
+
+        assertEquals(List.of("Funda para laptop"), page.items().stream().map(Product::getNombre).toList());
+        assertEquals(1, page.facets().size()); // El precio sí reduce las facetas
+    }
+
+    @Test
+    void search_ShouldPageWithCursor_WithoutRepeatingResults() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchPage page = productRepository.search(criteria(null, null, cursor, 1));
+            page.items().forEach(p -> seen.add(p.getId()));
+            cursor = page.next();
+        } while (cursor != null);
+
+        assertEquals(3, seen.size());
+        assertEquals(3, seen.stream().distinct().count());
+    }
+}
@@ -0,0 +1,116 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara el camino anterior de edición de stock (findById + save, que
+ * reescribe el documento entero) con el $set versionado en un solo viaje,
+ * contra un MongoDB real (se omite si no hay Docker disponible). Registra los
+ * valores y comprueba límites holgados; se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class ProductWriteBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductWriteBenchmarkTest.class);
+
+    private static final int PRODUCTS = 2_000;
+    private static final int WRITES = 5_000;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private List<String> ids;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Product.class);
+        // Descripciones largas como las del catálogo real (~1 KB)
+        String descripcion = "Descripción detallada del producto con especificaciones. ".repeat(18);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .nombre("Producto " + i)
+                    .descripcion(descripcion)
+                    .precio(10.0 + i % 1000)
+                    .stock(100)
+                    .categorias(List.of("Tecnologia", "Hogar"))
+                    .imageUrl("https://res.cloudinary.com/demo/image/upload/producto-" + i + ".jpg")
+                    .build());
+        }
+        ids = productRepository.saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    @Test
+    void versionedSet_ShouldOutperformReadModifySave() {
+        // Calentamiento
+        legacyWrites(500);
+        partialWrites(500);
+
+        double legacy = legacyWrites(WRITES);
+        double partial = partialWrites(WRITES);
+
+        log.info(String.format("Edición de stock: findById + save %.0f escrituras/s, $set versionado %.0f escrituras/s (x%.1f)",
+                legacy, partial, partial / legacy));
+
+        assertTrue(partial > legacy, "El $set versionado debería superar a findById + save");
+
+        // El $set no toca el resto del documento
+        Product product = productRepository.findById(ids.get(0)).orElseThrow();
+        assertEquals(List.of("Tecnologia", "Hogar"), product.getCategorias());
+        assertNotNull(product.getDescripcion());
+    }
+
+    private double legacyWrites(int writes) {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            Product product = productRepository.findById(ids.get(random.nextInt(ids.size()))).orElseThrow();
+            product.setStock(random.nextInt(1000));
+            productRepository.save(product);
+        }
+        return writes * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+
+    private double partialWrites(int writes) {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++) {
+            productRepository.setStock(ids.get(random.nextInt(ids.size())), null, random.nextInt(1000));
+        }
+        return writes * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+}
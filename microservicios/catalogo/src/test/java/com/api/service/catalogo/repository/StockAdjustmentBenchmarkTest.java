@@ -0,0 +1,123 @@
+package com.api.service.catalogo.repository;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.dto.StockAdjustmentResult;
+import com.api.service.catalogo.model.dto.StockChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sesión de reposición de 5.000 líneas (2.000 productos, varios escaneados
+ * más de una vez): una llamada a PUT /stock/{id} por línea (findById + save)
+ * frente al bulk agrupado, contra un MongoDB real (se omite si no hay Docker
+ * disponible). Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class StockAdjustmentBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAdjustmentBenchmarkTest.class);
+
+    private static final int PRODUCTS = 2_000;
+    private static final int LINES = 5_000;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private List<String> ids;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Product.class);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .nombre("Producto " + i)
+                    .descripcion("Descripción detallada del producto con especificaciones. ".repeat(18))
+                    .precio(10.0 + i % 1000)
+                    .stock(50)
+                    .categorias(List.of("Tecnologia", "Hogar"))
+                    .build());
+        }
+        ids = productRepository.saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    @Test
+    void restockSession_ShouldApplyAsOneBulkWrite() {
+        // Líneas de la sesión: stock contado o unidades repuestas
+        Random random = new Random(42);
+        List<String> lineIds = new ArrayList<>(LINES);
+        List<StockChange> lineChanges = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            lineIds.add(ids.get(random.nextInt(PRODUCTS)));
+            lineChanges.add(random.nextBoolean() ? new StockChange(random.nextInt(100), 0)
+                    : new StockChange(null, 1 + random.nextInt(10)));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LINES; i++) {
+            Product product = productRepository.findById(lineIds.get(i)).orElseThrow();
+            StockChange change = lineChanges.get(i);
+            product.setStock((change.set() != null ? change.set() : product.getStock()) + change.delta());
+            productRepository.save(product);
+        }
+        long legacyMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        productRepository.findAllById(ids).forEach(p -> expected.put(p.getId(), p.getStock()));
+
+        // Mismo resultado partiendo del mismo stock: se vuelve al inicial y se aplica agrupado
+        mongoTemplate.updateMulti(new Query(), new Update().set("stock", 50), Product.class);
+        start = System.nanoTime();
+        Map<String, StockChange> merged = new LinkedHashMap<>();
+        for (int i = 0; i < LINES; i++) {
+            merged.merge(lineIds.get(i), lineChanges.get(i), StockChange::then);
+        }
+        Map<String, StockAdjustmentResult> results = productRepository.applyStockChanges(List.of(merged)).get(0);
+        long bulkMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        log.info(String.format("Sesión de %d líneas (%d productos): una petición por línea %d ms (%.0f líneas/s), "
+                        + "bulk agrupado %d ms (%.0f líneas/s)",
+                LINES, merged.size(), legacyMs, LINES * 1000.0 / legacyMs, bulkMs, LINES * 1000.0 / bulkMs));
+
+        assertTrue(bulkMs < legacyMs, "El bulk agrupado debería ser más rápido que una petición por línea");
+        assertEquals(merged.size(), results.size());
+        results.values().forEach(result -> {
+            assertEquals(StockAdjustmentResult.Estado.APLICADO, result.estado());
+            assertEquals(expected.get(result.productId()), result.stock());
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.api.service.catalogo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundRebuildTest {
+
+    private BackgroundRebuild rebuild;
+
+    @AfterEach
+    void tearDown() {
+        if (rebuild != null) {
+            rebuild.shutdown();
+        }
+    }
+
+    @Test
+    void start_ShouldRetryInTheBackground_UntilMongoAnswers() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        rebuild = new BackgroundRebuild("prueba", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new DataAccessResourceFailureException("MongoDB caído");
+            }
+        }, ids -> { }, Duration.ofMillis(10));
+
+        rebuild.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!rebuild.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(rebuild.isReady());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void run_ShouldRefreshOnlyTheProductsChangedWhileLoading() {
+        List<Set<String>> refreshed = new CopyOnWriteArrayList<>();
+        BackgroundRebuild[] self = new BackgroundRebuild[1];
+        rebuild = new BackgroundRebuild("prueba", () -> self[0].changed(List.of("p1", "p2")),
+                refreshed::add, Duration.ofSeconds(30));
+        self[0] = rebuild;
+
+        rebuild.changed(List.of("antes"));
+        assertTrue(rebuild.run());
+        rebuild.changed(List.of("despues"));
+
+        assertEquals(List.of(Set.of("p1", "p2")), refreshed);
+    }
+
+    @Test
+    void run_ShouldNotBeReady_WhenMongoFails() {
+        rebuild = new BackgroundRebuild("prueba", () -> {
+            throw new DataAccessResourceFailureException("MongoDB caído");
+        }, ids -> { }, Duration.ofSeconds(30));
+
+        assertFalse(rebuild.run());
+        assertFalse(rebuild.isReady());
+    }
+}
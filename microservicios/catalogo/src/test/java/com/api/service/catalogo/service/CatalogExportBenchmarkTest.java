@@ -0,0 +1,84 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Exporta un catálogo generado de 1M productos y comprueba que el heap vivo
+ * no crece con él. El cursor real (tamaño de lote) se prueba en
+ * CatalogExportCursorBenchmarkTest. Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class CatalogExportBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogExportBenchmarkTest.class);
+
+    private static final int LARGE_CATALOG = 1_000_000;
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    private static Product product(int i) {
+        return Product.builder()
+                .id(String.format("%024x", i))
+                .nombre("Producto " + i)
+                .descripcion("Descripción del producto " + i)
+                .precio(10.0 + i % 1000)
+                .stock(i % 100)
+                .categorias(List.of("Tecnologia"))
+                .build();
+    }
+
+    @Test
+    void writeNdjson_ShouldKeepHeapFlat_For1MProducts() throws Exception {
+        CatalogExportService exportService =
+                new CatalogExportService(mock(ProductRepository.class), new ObjectMapper(), 1000, 500);
+        // Cursor simulado: genera los productos bajo demanda, como el de MongoDB
+        Stream<Product> products = IntStream.range(0, LARGE_CATALOG).mapToObj(CatalogExportBenchmarkTest::product);
+        CountingOutputStream out = new CountingOutputStream();
+
+        long start = System.nanoTime();
+        long written;
+        long growth;
+        int collections;
+        try (LiveHeap heap = new LiveHeap()) {
+            written = exportService.writeNdjson(products, out);
+            growth = heap.growth();
+            collections = heap.collections();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info(String.format("Exportados %,d productos (%,d bytes) en %,d ms; heap vivo +%,d KB tras %d GC",
+                written, out.count, millis, growth / 1024, collections));
+        assertEquals(LARGE_CATALOG, written);
+        assertTrue(growth < MAX_HEAP_GROWTH, "El heap no debería crecer con el tamaño del catálogo");
+    }
+
+    // Descarta lo escrito y solo cuenta bytes (simula un cliente que consume la respuesta)
+    static class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exportación contra un MongoDB real (se omite si no hay Docker disponible):
+ * cuenta los getMore del cursor para comprobar que se lee en lotes de
+ * 'batch-size' y mide el heap vivo mientras tanto. Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class CatalogExportCursorBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogExportCursorBenchmarkTest.class);
+
+    private static final int PRODUCTS = 200_000;
+    private static final int BATCH_SIZE = 1000;
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    // Tamaño de lote pedido en cada getMore sobre la colección de productos
+    private static final List<Integer> getMoreBatchSizes = new CopyOnWriteArrayList<>();
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @TestConfiguration
+    static class CommandCounter {
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer getMoreCounter() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if ("getMore".equals(event.getCommandName())
+                            && "products".equals(event.getCommand().getString("collection").getValue())) {
+                        getMoreBatchSizes.add(event.getCommand().getInt32("batchSize").getValue());
+                    }
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Product.class);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .nombre("Producto " + i)
+                    .descripcion("Descripción del producto " + i)
+                    .precio(10.0 + i % 1000)
+                    .stock(i % 100)
+                    .categorias(List.of("Tecnologia"))
+                    .build());
+        }
+        mongoTemplate.insertAll(products);
+        getMoreBatchSizes.clear();
+    }
+
+    @Test
+    void export_ShouldReadTheCursorInBatches_WithFlatHeap() throws Exception {
+        CatalogExportService exportService =
+                new CatalogExportService(productRepository, new ObjectMapper(), BATCH_SIZE, 500);
+        CatalogExportBenchmarkTest.CountingOutputStream out = new CatalogExportBenchmarkTest.CountingOutputStream();
+
+        long start = System.nanoTime();
+        long written;
+        long growth;
+        try (LiveHeap heap = new LiveHeap()) {
+            written = exportService.export(ProductFields.ALL, out, false);
+            growth = heap.growth();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info(String.format("Exportados %,d productos (%,d bytes) en %,d ms con %d getMore; heap vivo +%,d KB",
+                written, out.count, millis, getMoreBatchSizes.size(), growth / 1024));
+        assertEquals(PRODUCTS, written);
+        // El find trae el primer lote; cada getMore, uno más del mismo tamaño
+        int expected = PRODUCTS / BATCH_SIZE - 1;
+        assertTrue(Math.abs(getMoreBatchSizes.size() - expected) <= 1,
+                "Se esperaban unos " + expected + " getMore, hubo " + getMoreBatchSizes.size());
+        assertTrue(getMoreBatchSizes.stream().allMatch(size -> size == BATCH_SIZE));
+        assertTrue(growth < MAX_HEAP_GROWTH, "El heap no debería crecer con el tamaño del catálogo");
+    }
+}
@@ -0,0 +1,77 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogExportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private CatalogExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new CatalogExportService(productRepository, new ObjectMapper(), 1000, 500);
+    }
+
+    private static Product product(int i) {
+        return Product.builder()
+                .id(String.format("%024x", i))
+                .nombre("Producto " + i)
+                .descripcion("Descripción del producto " + i)
+                .precio(10.0 + i % 1000)
+                .stock(i % 100)
+                .categorias(List.of("Tecnologia"))
+                .build();
+    }
+
+    @Test
+    void export_ShouldWriteOneJsonLinePerProduct() throws Exception {
+        when(productRepository.streamAll(ProductFields.ALL, 1000))
+                .thenReturn(IntStream.range(0, 3).mapToObj(CatalogExportServiceTest::product));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.export(ProductFields.ALL, out, false);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, written);
+        assertEquals(3, lines.length);
+        assertEquals("Producto 1", new ObjectMapper().readTree(lines[1]).get("nombre").asText());
+    }
+
+    @Test
+    void export_WithGzip_ShouldCompressAndCloseCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(productRepository.streamAll(ProductFields.ALL, 1000))
+                .thenReturn(IntStream.range(0, 2).mapToObj(CatalogExportServiceTest::product)
+                        .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(ProductFields.ALL, out, true);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(2, new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n").length);
+        }
+        assertTrue(closed.get(), "El cursor debe cerrarse al terminar");
+    }
+}
@@ -0,0 +1,107 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.dto.ImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Importa un CSV generado de 1M filas contra un MongoTemplate simulado:
+ * registra las filas/s y comprueba que el heap vivo no crece con el tamaño
+ * del fichero. Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class CatalogImportBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportBenchmarkTest.class);
+
+    private static final int LARGE_FILE_ROWS = 1_000_000;
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    @Test
+    void importCsv_ShouldKeepHeapFlat_For1MRows() throws Exception {
+        // Mocks sin registro de invocaciones: si no, guardarían todos los lotes
+        MongoTemplate template = mock(MongoTemplate.class, withSettings().stubOnly());
+        BulkOperations bulk = mock(BulkOperations.class, withSettings().stubOnly());
+        when(template.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Product.class))).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        CatalogImportService importService = new CatalogImportService(template,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                mock(ApplicationEventPublisher.class, withSettings().stubOnly()), 1000, 2, 100);
+
+        try (LiveHeap heap = new LiveHeap()) {
+            ImportReport report = importService.importProducts(new GeneratedCsv(LARGE_FILE_ROWS),
+                    CatalogImportService.Format.CSV);
+
+            long growth = heap.growth();
+            log.info(String.format("Importadas %,d filas en %,d ms (%,.0f filas/s); heap vivo +%,d KB tras %d GC",
+                    report.inserted(), report.millis(), report.rowsPerSecond(), growth / 1024, heap.collections()));
+            assertEquals(LARGE_FILE_ROWS, report.inserted());
+            assertTrue(growth < MAX_HEAP_GROWTH, "El heap no debería crecer con el tamaño del fichero");
+        } finally {
+            importService.shutdown();
+        }
+    }
+
+    /**
+     * CSV generado bajo demanda (no existe entero en memoria), como un
+     * cuerpo de petición que llega por la red.
+     */
+    private static class GeneratedCsv extends InputStream {
+
+        private final int rows;
+        private byte[] current = "nombre,descripcion,precio,stock,categorias\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+        private int row;
+
+        GeneratedCsv(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == current.length && !advance()) {
+                return -1;
+            }
+            return current[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position == current.length && !advance()) {
+                return -1;
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean advance() {
+            if (row == rows) {
+                return false;
+            }
+            current = ("Producto " + row + ",\"Descripción, del producto " + row + "\"," + (10 + row % 1000)
+                    + "," + row % 100 + ",Tecnologia|Hogar\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            row++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.dto.ImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CatalogImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = service(mongoTemplate, eventPublisher, 2, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    private static CatalogImportService service(MongoTemplate template, ApplicationEventPublisher publisher,
+            int batchSize, int maxErrors) {
+        return new CatalogImportService(template, Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(), publisher, batchSize, 2, maxErrors);
+    }
+
+    private static InputStream text(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Product>> insertedBatches() {
+        ArgumentCaptor<List<Product>> batches = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, atLeastOnce()).insert(batches.capture());
+        return batches.getAllValues();
+    }
+
+    @Test
+    void importCsv_ShouldInsertValidRows_AndReportInvalidOnes() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOperations);
+        String csv = """
+                nombre,precio,stock,categorias,descripcion
+                Laptop,1000,5,Tecnologia|Computacion,"Pantalla 15"", con coma"
+                Monitor,abc,1,,
+                ,10,1,,Sin nombre
+                "Silla
+                de oficina",80,-1,Hogar,
+                Mesa,120,3,Hogar,
+                """;
+
+        ImportReport report = importService.importProducts(text(csv), CatalogImportService.Format.CSV);
+
+        assertEquals(5, report.rows());
+        assertEquals(2, report.inserted());
+        assertEquals(3, report.failed());
+        assertEquals(List.of(2L, 3L, 4L), report.errors().stream().map(ImportReport.RowError::row).toList());
+        assertTrue(report.errors().get(0).error().startsWith("precio"));
+        assertTrue(report.errors().get(2).error().startsWith("stock"));
+
+        Product laptop = insertedBatches().get(0).get(0);
+        assertEquals("Pantalla 15\", con coma", laptop.getDescripcion());
+        assertEquals(List.of("Tecnologia", "Computacion"), laptop.getCategorias());
+        assertNotNull(laptop.getId());
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void importCsv_WithUnknownColumn_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> importService.importProducts(
+                text("nombre,color\nLaptop,rojo\n"), CatalogImportService.Format.CSV));
+    }
+
+    @Test
+    void importNdjson_ShouldReportBadLines_AndCapErrors() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOperations);
+        StringBuilder ndjson = new StringBuilder("{\"nombre\":\"Laptop\",\"precio\":1000,\"stock\":5}\n");
+        for (int i = 0; i < 7; i++) {
+            ndjson.append("{roto\n");
+        }
+
+        ImportReport report = importService.importProducts(text(ndjson.toString()), CatalogImportService.Format.NDJSON);
+
+        assertEquals(8, report.rows());
+        assertEquals(1, report.inserted());
+        assertEquals(7, report.failed());
+        assertEquals(5, report.errors().size());
+        assertTrue(report.errorsTruncated());
+    }
+
+    @Test
+    void importNdjson_ShouldReportRowsRejectedByMongo() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOperations);
+        // El segundo documento del lote choca con un índice único
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        MongoBulkWriteException mongoError = new MongoBulkWriteException(BulkWriteResult.acknowledged(1, 0, 0, 0,
+                List.of(), List.of()), List.of(duplicate), null, new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("bulk", mongoError));
+
+        ImportReport report = importService.importProducts(text("""
+                {"nombre":"Laptop"}
+                {"nombre":"Laptop duplicada"}
+                """), CatalogImportService.Format.NDJSON);
+
+        assertEquals(1, report.inserted());
+        assertEquals(List.of(new ImportReport.RowError(2, "E11000 duplicate key")), report.errors());
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(ChangeType.CREADO, event.getValue().type());
+        assertEquals(1, event.getValue().productIds().size());
+    }
+}
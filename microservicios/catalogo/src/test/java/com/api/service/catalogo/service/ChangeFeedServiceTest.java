@@ -0,0 +1,198 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChange;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ChangeFeed;
+import com.api.service.catalogo.model.dto.SyncToken;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-05-01T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ChangeFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ChangeFeedService(mongoTemplate, productRepository, Duration.ofSeconds(2), Duration.ofDays(30),
+                Duration.ofSeconds(10), 1000, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static ProductChange change(String id, long seq, boolean eliminado, Instant stampedAt) {
+        return ProductChange.builder().productId(id).seq(seq).eliminado(eliminado).stampedAt(stampedAt).build();
+    }
+
+    private static String token(long seq, Instant issuedAt) {
+        return new SyncToken(seq, issuedAt.toEpochMilli()).encode();
+    }
+
+    @Test
+    void firstSync_ShouldAskForFullDownload_WithCurrentToken() {
+        when(mongoTemplate.findById("cambios", Document.class, "contadores")).thenReturn(new Document("seq", 42L));
+
+        ChangeFeed feed = service.changesSince(null, 100, ProductFields.SUMMARY);
+
+        assertTrue(feed.reset());
+        assertTrue(feed.changed().isEmpty());
+        assertEquals(42, SyncToken.decode(feed.token()).seq());
+    }
+
+    @Test
+    void changesSince_ShouldReturnChangedAndDeleted_AndStopAtUnsettledChanges() {
+        Instant old = NOW.minusSeconds(60);
+        when(mongoTemplate.find(any(Query.class), eq(ProductChange.class))).thenReturn(List.of(
+                change("a", 11, false, old),
+                change("b", 12, true, old),
+                change("c", 13, false, old),
+                change("d", 14, false, NOW.minusMillis(500))));
+        // "c" se borró después: no llega en la consulta de productos
+        when(productRepository.findAllByIds(List.of("a", "c"), ProductFields.SUMMARY))
+                .thenReturn(List.of(Product.builder().id("a").nombre("Taza").build()));
+
+        ChangeFeed feed = service.changesSince(token(10, NOW.minusSeconds(3600)), 100, ProductFields.SUMMARY);
+
+        assertFalse(feed.reset());
+        assertEquals(List.of("a"), feed.changed().stream().map(Product::getId).toList());
+        assertEquals(List.of("b", "c"), feed.deleted());
+        // "d" todavía no se entrega: el token se queda en 13
+        assertEquals(13, SyncToken.decode(feed.token()).seq());
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    void changesSince_ShouldPage_AndRejectInvalidOrExpiredTokens() {
+        Instant old = NOW.minusSeconds(60);
+        when(mongoTemplate.find(any(Query.class), eq(ProductChange.class)))
+                .thenReturn(List.of(change("b", 5, true, old), change("e", 6, true, old)));
+
+        ChangeFeed page = service.changesSince(token(4, NOW), 1, ProductFields.SUMMARY);
+        assertEquals(List.of("b"), page.deleted());
+        assertTrue(page.hasMore());
+        assertEquals(5, SyncToken.decode(page.token()).seq());
+
+        assertThrows(IllegalArgumentException.class, () -> service.changesSince("%%%", 10, ProductFields.SUMMARY));
+
+        // Más antiguo que las lápidas guardadas: hay que volver a descargar todo
+        when(mongoTemplate.findById("cambios", Document.class, "contadores")).thenReturn(null);
+        assertTrue(service.changesSince(token(4, NOW.minus(Duration.ofDays(31))), 10, ProductFields.SUMMARY).reset());
+    }
+
+    @Test
+    void productChanged_ShouldReserveOneRangeAndUpsertEachProductConditionally() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("contadores"))).thenReturn(new Document("seq", 7L));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductChange.class)).thenReturn(bulk);
+
+        service.onProductChanged(new ProductChangedEvent(List.of("x", "y", "x"), ChangeType.ELIMINADO));
+        service.flush();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).upsert(queries.capture(), updates.capture());
+        verify(bulk).execute();
+        // Dos ids distintos: el contador sube 2 y quedan los números 6 y 7
+        assertEquals(new Document("_id", "x").append("seq", new Document("$lt", 6L)),
+                queries.getAllValues().get(0).getQueryObject());
+        assertEquals(7L, updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("seq"));
+        assertNotNull(updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("expiraEn"));
+    }
+
+    @Test
+    void lateWrite_ShouldBeRecordedAgainWithNewNumbers() {
+        // El primer bulk termina 3 s después de reservar: más que settle/2
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW, NOW, NOW.plusSeconds(3));
+        service = new ChangeFeedService(mongoTemplate, productRepository, Duration.ofSeconds(2), Duration.ofDays(30),
+                Duration.ofSeconds(10), 1000, clock);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("contadores"))).thenReturn(new Document("seq", 7L), new Document("seq", 9L));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductChange.class)).thenReturn(bulk);
+
+        service.onProductChanged(ProductChangedEvent.of("x", ChangeType.STOCK));
+        service.flush();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).upsert(any(Query.class), updates.capture());
+        verify(bulk, times(2)).execute();
+        assertEquals(9L, updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("seq"));
+    }
+
+    @Test
+    void productChanged_ShouldNotFailTheWrite_WhenTheFeedIsUnavailable() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("contadores"))).thenThrow(new DataAccessResourceFailureException("caído"));
+
+        service.onProductChanged(ProductChangedEvent.of("x", ChangeType.STOCK));
+        assertDoesNotThrow(service::flush);
+    }
+
+    @Test
+    void remoteChanges_ShouldNotBeRecordedAgain() {
+        service.onProductChanged(new ProductChangedEvent(List.of("x"), ChangeType.ACTUALIZADO, true));
+        service.flush();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void productChanged_ShouldNotWriteInTheRequestThread_AndShareOneRangePerWindow() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("contadores"))).thenReturn(new Document("seq", 3L));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductChange.class)).thenReturn(bulk);
+
+        service.onProductChanged(ProductChangedEvent.of("x", ChangeType.STOCK));
+        service.onProductChanged(ProductChangedEvent.of("y", ChangeType.STOCK));
+        service.onProductChanged(ProductChangedEvent.of("x", ChangeType.ELIMINADO));
+        verifyNoInteractions(mongoTemplate);
+
+        service.flush();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<Update> counter = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), counter.capture(), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("contadores"));
+        assertEquals(2L, counter.getValue().getUpdateObject().get("$inc", Document.class).get("seq"));
+        verify(bulk, times(2)).upsert(any(Query.class), updates.capture());
+        verify(bulk).execute();
+        // Vale el último evento de "x": el borrado
+        assertEquals(true, updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class).get("eliminado"));
+        assertEquals(false, updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("eliminado"));
+    }
+}
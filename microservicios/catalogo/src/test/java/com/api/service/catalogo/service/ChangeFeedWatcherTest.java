@@ -0,0 +1,68 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ProductChange;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedWatcherTest {
+
+    @Mock
+    private ChangeFeedService changeFeedService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ChangeFeedWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        watcher = new ChangeFeedWatcher(changeFeedService, eventPublisher);
+    }
+
+    private static ProductChange change(String id, long seq, boolean eliminado) {
+        return ProductChange.builder().productId(id).seq(seq).eliminado(eliminado).build();
+    }
+
+    @Test
+    void poll_ShouldStartAtTheCurrentCounter_AndPublishLaterChangesAsRemote() {
+        when(changeFeedService.currentSeq()).thenReturn(10L);
+        when(changeFeedService.settledSince(10L, ChangeFeedWatcher.BATCH_SIZE))
+                .thenReturn(List.of(change("a", 11, false), change("b", 12, true), change("c", 13, false)));
+        when(changeFeedService.settledSince(13L, ChangeFeedWatcher.BATCH_SIZE)).thenReturn(List.of());
+
+        assertEquals(0, watcher.poll());
+        assertEquals(3, watcher.poll());
+        assertEquals(0, watcher.poll());
+
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(List.of("a", "c"), ChangeType.ACTUALIZADO, true));
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(List.of("b"), ChangeType.ELIMINADO, true));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void poll_ShouldRetryFromTheSameNumber_WhenMongoFails() {
+        when(changeFeedService.currentSeq()).thenReturn(5L);
+        when(changeFeedService.settledSince(5L, ChangeFeedWatcher.BATCH_SIZE))
+                .thenThrow(new DataAccessResourceFailureException("caído"))
+                .thenReturn(List.of(change("a", 6, false)));
+
+        watcher.poll();
+        assertEquals(0, watcher.poll());
+        assertEquals(1, watcher.poll());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+}
@@ -0,0 +1,127 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ImageStatus;
+import com.api.service.catalogo.model.ImageVariants;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileUploadServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @TempDir
+    Path imagesDir;
+
+    private FileUploadService uploadService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploadService = new FileUploadService(processing(new LocalImageStorage(imagesDir)),
+                productRepository, eventPublisher, 2, 1, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        uploadService.shutdown();
+    }
+
+    private ImageProcessingService processing(ImageStorage storage) {
+        return new ImageProcessingService(storage, mongoTemplate, 200, 800, 2);
+    }
+
+    private static MockMultipartFile image(String content) {
+        return new MockMultipartFile("image", "foto.jpg", "image/jpeg", content.getBytes());
+    }
+
+    @Test
+    void uploadInBackground_ShouldStoreImage_AndCompleteProduct() throws Exception {
+        when(productRepository.completeImage(eq("prod-1"), any(), eq(ImageStatus.LISTA))).thenReturn(true);
+
+        FileUploadService.PendingUpload upload = uploadService.stage(image("contenido"));
+        uploadService.uploadInBackground("prod-1", upload);
+
+        ArgumentCaptor<ImageVariants> variants = ArgumentCaptor.forClass(ImageVariants.class);
+        verify(productRepository, timeout(5000)).completeImage(eq("prod-1"), variants.capture(), eq(ImageStatus.LISTA));
+        // No es una imagen decodificable: las tres versiones apuntan al original
+        assertEquals("contenido", Files.readString(Path.of(URI.create(variants.getValue().full()))));
+        assertEquals(variants.getValue().full(), variants.getValue().thumbnail());
+        verify(eventPublisher, timeout(5000)).publishEvent(ProductChangedEvent.of("prod-1", ChangeType.ACTUALIZADO));
+        // El temporal se borra y el hueco de la cola se libera
+        verify(productRepository, timeout(5000).times(1)).completeImage(any(), any(), any());
+        assertFalse(Files.exists(upload.file()));
+    }
+
+    @Test
+    void uploadInBackground_WhenStorageFails_ShouldMarkImageAsError() throws Exception {
+        FileUploadService failing = new FileUploadService(processing((file, contentType) -> {
+            throw new IOException("sin conexión");
+        }), productRepository, eventPublisher, 1, 1, Duration.ofMinutes(10));
+        try {
+            failing.uploadInBackground("prod-1", failing.stage(image("contenido")));
+
+            verify(productRepository, timeout(5000)).completeImage(eq("prod-1"), isNull(), eq(ImageStatus.ERROR));
+        } finally {
+            failing.shutdown();
+        }
+    }
+
+    @Test
+    void sweepStalePending_ShouldMarkLostUploadsAsError_AndPublishTheirChanges() {
+        when(productRepository.expirePendingImages(any(Instant.class))).thenReturn(List.of("prod-1", "prod-2"));
+
+        Instant before = Instant.now();
+        assertEquals(2, uploadService.sweepStalePending());
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(productRepository).expirePendingImages(cutoff.capture());
+        assertFalse(cutoff.getValue().isAfter(before.minus(Duration.ofMinutes(10)).plusSeconds(5)));
+        verify(eventPublisher).publishEvent(ProductChangedEvent.of("prod-1", ChangeType.ACTUALIZADO));
+        verify(eventPublisher).publishEvent(ProductChangedEvent.of("prod-2", ChangeType.ACTUALIZADO));
+    }
+
+    @Test
+    void stage_ShouldRejectWhenTooManyUploadsArePending() throws Exception {
+        FileUploadService.PendingUpload first = uploadService.stage(image("a"));
+
+        assertThrows(RejectedExecutionException.class, () -> uploadService.stage(image("b")));
+
+        uploadService.discard(first);
+        assertFalse(Files.exists(first.file()));
+        uploadService.discard(uploadService.stage(image("c")));
+    }
+}
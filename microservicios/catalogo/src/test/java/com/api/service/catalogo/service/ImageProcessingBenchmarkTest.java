@@ -0,0 +1,87 @@
+package com.api.service.catalogo.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rendimiento del procesado de un lote de 1.000 imágenes (800x600) con el
+ * almacenamiento local: todas distintas y con la mitad repetidas. Las
+ * subidas llegan desde 4 hilos, como el pool de FileUploadService. Se
+ * ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class ImageProcessingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessingBenchmarkTest.class);
+
+    private static final int IMAGES = 1_000;
+    private static final int UPLOAD_THREADS = 4;
+
+    @TempDir
+    Path imagesDir;
+
+    @TempDir
+    Path uploadsDir;
+
+    @Test
+    void batchThroughput() throws Exception {
+        List<Path> unique = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            unique.add(ImageProcessingServiceTest.writeJpeg(uploadsDir, 800, 600, i));
+        }
+        List<Path> halfRepeated = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            halfRepeated.add(unique.get(i % (IMAGES / 2)));
+        }
+
+        run("distintas", unique, IMAGES);
+        run("50% repetidas", halfRepeated, IMAGES / 2);
+    }
+
+    private void run(String label, List<Path> files, int expectedProcessed) throws Exception {
+        ImageProcessingService processing = new ImageProcessingService(
+                new LocalImageStorage(imagesDir.resolve(label.replaceAll("\\W", ""))),
+                ImageProcessingServiceTest.inMemoryAssets(), 200, 800, 4);
+        ExecutorService uploads = Executors.newFixedThreadPool(UPLOAD_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(uploads.submit(() -> {
+                    try {
+                        return processing.process(file, "image/jpeg");
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            ImageProcessingService.Stats stats = processing.stats();
+            log.info("Imágenes ({}): {} en {} s = {} imágenes/s, {} procesadas, {} deduplicadas",
+                    label, files.size(), String.format("%.1f", seconds), String.format("%.0f", files.size() / seconds),
+                    stats.processed(), stats.deduplicated());
+            assertEquals(expectedProcessed, stats.processed());
+            // Las repetidas no se vuelven a procesar
+            assertEquals(files.size() - expectedProcessed, stats.deduplicated());
+        } finally {
+            uploads.shutdown();
+            processing.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ImageAsset;
+import com.api.service.catalogo.model.ImageVariants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageProcessingServiceTest {
+
+    @TempDir
+    Path imagesDir;
+
+    @TempDir
+    Path uploadsDir;
+
+    private ImageProcessingService processing;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        processing = new ImageProcessingService(
+                new LocalImageStorage(imagesDir), inMemoryAssets(), 200, 800, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        processing.shutdown();
+    }
+
+    /**
+     * MongoTemplate que guarda los ImageAsset en un mapa (con la clave única del _id).
+     */
+    static MongoTemplate inMemoryAssets() {
+        Map<String, ImageAsset> assets = new ConcurrentHashMap<>();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findById(anyString(), eq(ImageAsset.class)))
+                .thenAnswer(invocation -> assets.get(invocation.<String>getArgument(0)));
+        when(mongoTemplate.insert(any(ImageAsset.class))).thenAnswer(invocation -> {
+            ImageAsset asset = invocation.getArgument(0);
+            if (assets.putIfAbsent(asset.getHash(), asset) != null) {
+                throw new DuplicateKeyException("E11000 " + asset.getHash());
+            }
+            return asset;
+        });
+        return mongoTemplate;
+    }
+
+    static Path writeJpeg(Path dir, int width, int height, int seed) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(seed * 7919 & 0xFFFFFF));
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.WHITE);
+        g.fillOval(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        image.setRGB(seed % width, 0, seed);
+        Path file = dir.resolve("foto-" + seed + ".jpg");
+        ImageIO.write(image, "jpg", file.toFile());
+        return file;
+    }
+
+    private static BufferedImage read(String url) throws IOException {
+        return ImageIO.read(Path.of(URI.create(url)).toFile());
+    }
+
+    private long storedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(imagesDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void process_ShouldStoreThumbnailMediumAndOriginal() throws IOException {
+        ImageVariants variants = processing.process(writeJpeg(uploadsDir, 1600, 1200, 1), "image/jpeg");
+
+        assertEquals(1600, read(variants.full()).getWidth());
+        assertEquals(800, read(variants.medium()).getWidth());
+        assertEquals(600, read(variants.medium()).getHeight());
+        assertEquals(200, read(variants.thumbnail()).getWidth());
+        assertEquals(3, storedFiles());
+    }
+
+    @Test
+    void process_ShouldReuseVariants_WhenTheSameContentIsUploadedAgain() throws IOException {
+        Path original = writeJpeg(uploadsDir, 640, 480, 2);
+        Path copy = Files.copy(original, uploadsDir.resolve("copia.jpg"));
+
+        ImageVariants first = processing.process(original, "image/jpeg");
+        ImageVariants second = processing.process(copy, "image/jpeg");
+
+        assertEquals(first, second);
+        assertEquals(3, storedFiles());
+        assertEquals(new ImageProcessingService.Stats(1, 1), processing.stats());
+    }
+
+    @Test
+    void resize_ShouldKeepAspectRatio_AndNeverUpscale() {
+        BufferedImage tall = new BufferedImage(300, 1200, BufferedImage.TYPE_INT_RGB);
+        BufferedImage small = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage resized = ImageProcessingService.resize(tall, 200, BufferedImage.TYPE_INT_RGB);
+        assertEquals(50, resized.getWidth());
+        assertEquals(200, resized.getHeight());
+        assertEquals(100, ImageProcessingService.resize(small, 200, BufferedImage.TYPE_INT_RGB).getWidth());
+    }
+}
@@ -0,0 +1,86 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latencia de consulta y memoria por producto del índice en memoria con un
+ * catálogo sintético de 100k productos. Registra los valores y comprueba
+ * límites holgados; se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class InMemorySearchIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemorySearchIndexBenchmarkTest.class);
+
+    private static final int PRODUCTS = 100_000;
+    private static final int QUERIES = 200;
+    private static final String[] WORDS = { "laptop", "monitor", "teclado", "raton", "cafe", "cafetera", "taza",
+            "mochila", "silla", "mesa", "lampara", "auriculares", "camara", "telefono", "cargador", "cable",
+            "altavoz", "impresora", "tinta", "papel", "cuaderno", "boligrafo", "zapatilla", "camiseta" };
+    private static final String[] QUERIES_TEXT = { "laptop", "cafe taza", "auricularse", "impres", "silla mesa" };
+
+    @Test
+    void queryLatencyAndMemoryPerProduct() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+
+        InMemorySearchIndex index = new InMemorySearchIndex(mock(ProductRepository.class), Duration.ofSeconds(30));
+        Random random = new Random(42);
+        for (int i = 0; i < PRODUCTS; i++) {
+            index.index(Product.builder()
+                    .id(String.format("%024x", i))
+                    .nombre(word(random) + " " + word(random) + " " + i)
+                    .descripcion(word(random) + " " + word(random) + " " + word(random) + " modelo " + (i % 500))
+                    .precio(10.0 + i % 1000)
+                    .stock(i % 100)
+                    .categorias(List.of("cat-" + i % 20))
+                    .build());
+        }
+        System.gc();
+        long measuredBytes = memory.getHeapMemoryUsage().getUsed() - before;
+
+        // Calentamiento del JIT antes de medir
+        for (int i = 0; i < QUERIES / 4; i++) {
+            index.search(criteria(QUERIES_TEXT[i % QUERIES_TEXT.length]));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(criteria(QUERIES_TEXT[i % QUERIES_TEXT.length]));
+        }
+        double avgMs = (System.nanoTime() - start) / 1_000_000.0 / QUERIES;
+
+        InMemorySearchIndex.Stats stats = index.stats();
+        log.info(String.format("Índice en memoria: %,d productos, %,d términos, %.3f ms por consulta, "
+                        + "%,d bytes/producto estimados, %,d bytes/producto medidos",
+                stats.products(), stats.terms(), avgMs, stats.bytesPerProduct(), measuredBytes / PRODUCTS));
+
+        assertEquals(PRODUCTS, stats.products());
+        assertTrue(avgMs < 250, "Una consulta no debería tardar más de 250 ms");
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static ProductSearchCriteria criteria(String q) {
+        return new ProductSearchCriteria(q, null, null, null, null, 20, ProductFields.SUMMARY);
+    }
+}
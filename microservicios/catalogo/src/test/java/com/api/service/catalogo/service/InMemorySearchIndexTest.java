@@ -0,0 +1,128 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.ProductFields;
+import com.api.service.catalogo.model.dto.ProductSearchCriteria;
+import com.api.service.catalogo.model.dto.SearchPage;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemorySearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private InMemorySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InMemorySearchIndex(productRepository, Duration.ofSeconds(30));
+        index.index(product("1", "Café de Colombia", "Café molido tostado", 12.0, "Despensa"));
+        index.index(product("2", "Taza para cafe", "Cerámica blanca", 8.0, "Hogar"));
+        index.index(product("3", "Cafetera italiana", "Para preparar café en casa", 35.0, "Hogar"));
+        index.index(product("4", "Monitor", "Monitor 4k", 300.0, "Tecnologia"));
+    }
+
+    private static Product product(String id, String nombre, String descripcion, double precio, String categoria) {
+        return Product.builder().id(id).nombre(nombre).descripcion(descripcion).precio(precio).stock(5)
+                .categorias(List.of(categoria)).build();
+    }
+
+    private SearchPage search(String q) {
+        return index.search(new ProductSearchCriteria(q, null, null, null, null, 10, ProductFields.SUMMARY));
+    }
+
+    private static List<String> ids(SearchPage page) {
+        return page.items().stream().map(Product::getId).toList();
+    }
+
+    @Test
+    void search_ShouldIgnoreAccentsAndCase() {
+        assertEquals(ids(search("café")), ids(search("CAFE")));
+        assertTrue(ids(search("cafe")).containsAll(List.of("1", "2")));
+    }
+
+    @Test
+    void search_ShouldRankNombreAboveDescripcion() {
+        index.index(product("5", "Cable USB", "Para auriculares", 5.0, "Tecnologia"));
+        index.index(product("6", "Auriculares", "Inalambricos", 50.0, "Tecnologia"));
+
+        assertEquals(List.of("6", "5"), ids(search("auriculares")));
+    }
+
+    @Test
+    void search_ShouldTolerateTypos_AndMatchPrefixOfLastTerm() {
+        assertEquals(List.of("4"), ids(search("monitr")));
+        assertTrue(ids(search("cafet")).contains("3"));
+    }
+
+    @Test
+    void search_ShouldFilterCategory_KeepFacets_AndPageWithCursor() {
+        SearchPage hogar = index.search(new ProductSearchCriteria(
+                "cafe", "Hogar", null, null, null, 1, ProductFields.SUMMARY));
+
+        assertEquals(1, hogar.items().size());
+        assertEquals(3, hogar.facets().stream().mapToLong(SearchPage.CategoryFacet::count).sum());
+        assertNull(hogar.items().get(0).getDescripcion());
+
+        List<String> seen = new ArrayList<>(ids(hogar));
+        SearchPage next = index.search(new ProductSearchCriteria(
+                "cafe", "Hogar", null, null, hogar.next(), 1, ProductFields.SUMMARY));
+        seen.addAll(ids(next));
+        assertEquals(List.of("2", "3"), seen.stream().sorted().toList());
+        assertNull(next.next());
+    }
+
+    @Test
+    void productChangedEvents_ShouldKeepIndexUpToDate() {
+        when(productRepository.findAllById(List.of("4")))
+                .thenReturn(List.of(product("4", "Monitor curvo", "Monitor gaming", 350.0, "Tecnologia")));
+
+        index.onProductChanged(ProductChangedEvent.of("4", ChangeType.ACTUALIZADO));
+        assertEquals(List.of("4"), ids(search("curvo")));
+
+        index.onProductChanged(ProductChangedEvent.of("4", ChangeType.ELIMINADO));
+        assertTrue(search("monitor").items().isEmpty());
+        assertEquals(3, index.stats().products());
+    }
+
+    @Test
+    void changesDuringRebuild_ShouldNotBeOverwrittenByTheStream() {
+        Product staleMonitor = product("4", "Monitor", "Monitor 4k", 300.0, "Tecnologia");
+        Product staleTaza = product("2", "Taza para cafe", "Cerámica blanca", 8.0, "Hogar");
+        when(productRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            // "2" ya se borró; "4" se renombró
+            return ids.contains("4")
+                    ? List.of(product("4", "Monitor curvo", "Monitor gaming", 350.0, "Tecnologia"))
+                    : List.of();
+        });
+        // El cursor leyó las versiones viejas antes de que llegaran los eventos
+        when(productRepository.streamAll(ProductFields.ALL, 1000)).thenReturn(Stream.of(staleMonitor, staleTaza)
+                .peek(product -> index.onProductChanged(ProductChangedEvent.of(product.getId(),
+                        product.getId().equals("2") ? ChangeType.ELIMINADO : ChangeType.ACTUALIZADO))));
+
+        index.rebuild();
+
+        assertEquals(List.of("4"), ids(search("curvo")));
+        assertFalse(ids(search("taza")).contains("2"));
+        assertTrue(index.isReady());
+    }
+}
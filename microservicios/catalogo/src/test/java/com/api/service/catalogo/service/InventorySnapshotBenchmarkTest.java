@@ -0,0 +1,97 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Memoria y latencia de la analítica con un millón de productos: la copia en
+ * columnas frente a la List&lt;Product&gt; que habría que cargar con Spring
+ * Data (solo id, precio, stock y categorías). Registra los valores y
+ * comprueba límites holgados; se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class InventorySnapshotBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshotBenchmarkTest.class);
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final String[] CATEGORIES = { "Tecnologia", "Hogar", "Cocina", "Deportes", "Jardin", "Moda",
+            "Juguetes", "Libros", "Oficina", "Mascotas" };
+
+    @Test
+    void columnarSnapshotVsProductList() {
+        Random random = new Random(42);
+        long before = usedHeap();
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .id(new ObjectId().toHexString())
+                    .precio(Math.round(random.nextDouble() * 100_000) / 100.0)
+                    .stock(random.nextInt(200))
+                    .categorias(List.of(CATEGORIES[random.nextInt(CATEGORIES.length)],
+                            CATEGORIES[random.nextInt(CATEGORIES.length)]))
+                    .build());
+        }
+        long listBytes = usedHeap() - before;
+
+        InventorySnapshot snapshot = new InventorySnapshot(mock(ProductRepository.class), 4, Duration.ofSeconds(30));
+        try {
+            for (int from = 0; from < PRODUCTS; from += 1000) {
+                snapshot.upsertAll(products.subList(from, from + 1000));
+            }
+            products = null;
+            long snapshotBytes = usedHeap() - before;
+
+            double byCategory = millis(snapshot::valueByCategory);
+            double lowStock = millis(() -> snapshot.lowStock(5, 100));
+            double histogram = millis(() -> snapshot.priceHistogram(50, null, null));
+
+            log.info(String.format("Inventario de %,d productos: List<Product> %,d MB, copia en columnas %,d MB "
+                            + "(estimado %,d MB); valor por categoría %.1f ms, stock bajo %.1f ms, histograma %.1f ms",
+                    PRODUCTS, listBytes >> 20, snapshotBytes >> 20, snapshot.stats().estimatedBytes() >> 20,
+                    byCategory, lowStock, histogram));
+
+            assertEquals(PRODUCTS, snapshot.stats().products());
+            assertTrue(snapshotBytes * 2 < listBytes, "La copia en columnas debería ocupar bastante menos");
+            assertTrue(byCategory < 500 && lowStock < 500 && histogram < 500);
+        } finally {
+            snapshot.shutdown();
+        }
+    }
+
+    // Media de varias ejecuciones tras calentar
+    private static double millis(Supplier<?> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / runs;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
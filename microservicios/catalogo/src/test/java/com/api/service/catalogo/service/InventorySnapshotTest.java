@@ -0,0 +1,171 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.dto.CategoryValue;
+import com.api.service.catalogo.model.dto.LowStockReport;
+import com.api.service.catalogo.model.dto.PriceHistogram;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventorySnapshotTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private InventorySnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = new InventorySnapshot(productRepository, 4, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshot.shutdown();
+    }
+
+    private static Product product(String id, Double precio, Integer stock, String... categorias) {
+        return Product.builder().id(id).precio(precio).stock(stock).categorias(List.of(categorias)).build();
+    }
+
+    @Test
+    void valueByCategory_ShouldCountEveryCategory_IncludingOverflowAndUncategorized() {
+        snapshot.upsertAll(List.of(
+                product("a", 10.0, 3, "Hogar"),
+                product("b", 2.0, 5, "Hogar", "Cocina", "Ofertas", "Verano"),
+                product("c", null, 7, "Cocina"),
+                product("d", 1.0, 4)));
+
+        List<CategoryValue> values = snapshot.valueByCategory();
+
+        assertEquals(new CategoryValue("Hogar", 2, 8, 40.0), values.get(0));
+        assertTrue(values.contains(new CategoryValue("Cocina", 2, 12, 10.0)));
+        assertTrue(values.contains(new CategoryValue("Verano", 1, 5, 10.0)));
+        assertTrue(values.contains(new CategoryValue(null, 1, 4, 4.0)));
+    }
+
+    @Test
+    void lowStockAndHistogram_ShouldScanAllRows() {
+        snapshot.upsertAll(List.of(
+                product("a", 5.0, 0, "X"),
+                product("b", 15.0, 2, "X"),
+                product("c", 25.0, 9, "X"),
+                product("d", 30.0, 1, "X")));
+
+        LowStockReport low = snapshot.lowStock(5, 2);
+        assertEquals(3, low.total());
+        assertEquals(List.of(new LowStockReport.Item("a", 0), new LowStockReport.Item("d", 1)), low.items());
+
+        PriceHistogram histogram = snapshot.priceHistogram(5, null, null);
+        assertEquals(5.0, histogram.min());
+        assertEquals(30.0, histogram.max());
+        assertEquals(List.of(1L, 0L, 1L, 0L, 2L), histogram.buckets().stream().map(PriceHistogram.Bucket::productos).toList());
+        assertEquals(2, snapshot.priceHistogram(2, 10.0, 20.0).buckets().stream()
+                .mapToLong(PriceHistogram.Bucket::unidades).sum());
+        assertThrows(IllegalArgumentException.class, () -> snapshot.priceHistogram(2, 20.0, 10.0));
+    }
+
+    @Test
+    void removals_ShouldKeepTheIdIndexConsistent() {
+        Random random = new Random(7);
+        List<String> ids = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String id = i % 10 == 0 ? "legacy-" + i : new ObjectId().toHexString();
+            ids.add(id);
+            products.add(product(id, 1.0, random.nextInt(100), "Cat" + i % 7));
+        }
+        snapshot.upsertAll(products);
+
+        Set<String> expected = new HashSet<>(ids);
+        for (int i = 0; i < 2_500; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            snapshot.remove(id);
+            expected.remove(id);
+        }
+        // Reinsertar uno que sigue: se actualiza su fila, no se duplica
+        String kept = expected.iterator().next();
+        snapshot.upsertAll(List.of(product(kept, 1.0, 0, "Cat0")));
+
+        LowStockReport all = snapshot.lowStock(Integer.MAX_VALUE, 10_000);
+        assertEquals(expected.size(), all.total());
+        assertEquals(expected, all.items().stream().map(LowStockReport.Item::id).collect(Collectors.toSet()));
+        assertEquals(expected.size(), snapshot.stats().products());
+    }
+
+    @Test
+    void parallelScan_ShouldMatchSequentialTotals() {
+        List<Product> products = new ArrayList<>();
+        long units = 0;
+        for (int i = 0; i < 200_000; i++) {
+            products.add(product(new ObjectId().toHexString(), 2.0, i % 10, "Cat" + i % 3));
+            units += i % 10;
+        }
+        snapshot.upsertAll(products);
+
+        long total = snapshot.valueByCategory().stream().mapToLong(CategoryValue::unidades).sum();
+        assertEquals(units, total);
+        assertEquals(units * 2.0, snapshot.valueByCategory().stream().mapToDouble(CategoryValue::valor).sum(), 0.001);
+        assertEquals(20_000, snapshot.lowStock(1, 5).total());
+    }
+
+    @Test
+    void productChangedEvents_ShouldUpdateAndRemoveRows() {
+        snapshot.upsertAll(List.of(product("a", 10.0, 3, "Hogar"), product("b", 1.0, 1, "Hogar")));
+        when(productRepository.findAllByIds(eq(List.of("a", "b")), anyList()))
+                .thenReturn(List.of(product("a", 10.0, 30, "Hogar")));
+
+        // "b" ya no existe: se quita
+        snapshot.onProductChanged(new ProductChangedEvent(List.of("a", "b"), ChangeType.STOCK));
+        assertEquals(List.of(new CategoryValue("Hogar", 1, 30, 300.0)), snapshot.valueByCategory());
+
+        snapshot.onProductChanged(ProductChangedEvent.of("a", ChangeType.ELIMINADO));
+        assertTrue(snapshot.valueByCategory().isEmpty());
+    }
+
+    @Test
+    void changesDuringRebuild_ShouldNotBeOverwrittenByTheLoad() {
+        when(productRepository.findAllByIds(anyCollection(), anyList())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            // "b" ya se borró; "a" se quedó sin stock
+            return ids.contains("a") ? List.of(product("a", 10.0, 0, "Hogar")) : List.of();
+        });
+        // El cursor leyó las versiones viejas antes de que llegaran los eventos
+        when(productRepository.streamAll(anyList(), anyInt())).thenReturn(Stream.of(
+                        product("a", 10.0, 3, "Hogar"),
+                        product("b", 1.0, 1, "Hogar"))
+                .peek(product -> snapshot.onProductChanged(ProductChangedEvent.of(product.getId(),
+                        product.getId().equals("b") ? ChangeType.ELIMINADO : ChangeType.STOCK))));
+
+        snapshot.rebuild();
+
+        assertEquals(List.of(new CategoryValue("Hogar", 1, 0, 0.0)), snapshot.valueByCategory());
+        assertTrue(snapshot.isReady());
+    }
+}
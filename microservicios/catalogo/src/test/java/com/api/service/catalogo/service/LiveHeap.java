@@ -0,0 +1,76 @@
+package com.api.service.catalogo.service;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap vivo durante una prueba: lo que queda ocupado al terminar cada GC que
+ * hace la JVM por su cuenta. No llama a System.gc() (que es solo una
+ * sugerencia y hace el resultado irregular); si algo retiene los datos, la
+ * ocupación tras cada GC crece con ellos.
+ */
+final class LiveHeap implements AutoCloseable {
+
+    private final long baseline = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    private final AtomicLong maxAfterGc = new AtomicLong();
+    private final AtomicInteger collections = new AtomicInteger();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onNotification;
+
+    LiveHeap() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long used = info.getGcInfo().getMemoryUsageAfterGc().values().stream()
+                .mapToLong(MemoryUsage::getUsed)
+                .sum();
+        maxAfterGc.accumulateAndGet(used, Math::max);
+        collections.incrementAndGet();
+    }
+
+    /**
+     * Máximo ocupado tras un GC por encima de lo que había al empezar (0 si
+     * nunca pasó de ahí).
+     */
+    long growth() {
+        return Math.max(0, maxAfterGc.get() - baseline);
+    }
+
+    int collections() {
+        return collections.get();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException ignored) {
+                // Ya no estaba registrado
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCache cache(int maxEntries, Duration ttl, boolean serveStale) {
+        // Executor síncrono: el refresco en segundo plano se ejecuta en el mismo hilo
+        return new ProductCache(productRepository, Runnable::run, maxEntries, ttl, serveStale);
+    }
+
+    private static Product product(String id, int stock) {
+        return Product.builder().id(id).nombre("Producto " + id).precio(10.0).stock(stock).build();
+    }
+
+    @Test
+    void repeatedReads_ShouldHitMongoOnce() {
+        ProductCache cache = cache(10, Duration.ofMinutes(5), false);
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product("p1", 5)));
+
+        cache.findById("p1");
+        cache.findById("p1");
+        cache.findById("p1");
+
+        verify(productRepository, times(1)).findById("p1");
+        ProductCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(2.0 / 3, stats.hitRatio(), 0.001);
+        assertTrue(stats.estimatedBytes() > 0);
+    }
+
+    @Test
+    void productChangedEvent_ShouldInvalidateEntry() {
+        ProductCache cache = cache(10, Duration.ofMinutes(5), false);
+        when(productRepository.findById("p1"))
+                .thenReturn(Optional.of(product("p1", 5)))
+                .thenReturn(Optional.of(product("p1", 4)));
+
+        cache.findById("p1");
+        cache.onProductChanged(ProductChangedEvent.of("p1", ChangeType.STOCK));
+
+        assertEquals(4, cache.findById("p1").orElseThrow().getStock());
+        assertEquals(0, cache.stats().estimatedBytes() - ProductCache.estimateBytes(product("p1", 4)));
+    }
+
+    @Test
+    void leastRecentlyUsed_ShouldBeEvicted_WhenFull() {
+        ProductCache cache = cache(2, Duration.ofMinutes(5), false);
+        when(productRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.of(product(inv.getArgument(0), 1)));
+
+        cache.findById("p1");
+        cache.findById("p2");
+        cache.findById("p1"); // p2 pasa a ser el menos usado
+        cache.findById("p3");
+        cache.findById("p1");
+
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+        verify(productRepository, times(1)).findById("p1");
+    }
+
+    @Test
+    void notFound_ShouldNotBeCached() {
+        ProductCache cache = cache(10, Duration.ofMinutes(5), false);
+        when(productRepository.findById("p1")).thenReturn(Optional.empty());
+
+        assertTrue(cache.findById("p1").isEmpty());
+        assertTrue(cache.findById("p1").isEmpty());
+
+        verify(productRepository, times(2)).findById("p1");
+    }
+
+    @Test
+    void serveStale_ShouldReturnOldCopy_WhenRefreshFails() {
+        ProductCache cache = cache(10, Duration.ZERO, true);
+        when(productRepository.findById("p1"))
+                .thenReturn(Optional.of(product("p1", 5)))
+                .thenThrow(new DataAccessResourceFailureException("timeout"));
+
+        cache.findById("p1");
+        Optional<Product> stale = cache.findById("p1");
+
+        assertEquals(5, stale.orElseThrow().getStock());
+        assertEquals(1, cache.stats().staleHits());
+    }
+
+    @Test
+    void withoutServeStale_ExpiredEntry_ShouldBeReloaded() {
+        ProductCache cache = cache(10, Duration.ZERO, false);
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product("p1", 5)));
+
+        cache.findById("p1");
+        cache.findById("p1");
+
+        verify(productRepository, times(2)).findById("p1");
+    }
+}
@@ -0,0 +1,155 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.dto.StockAdjustment;
+import com.api.service.catalogo.model.dto.StockAdjustmentReport;
+import com.api.service.catalogo.model.dto.StockAdjustmentResult;
+import com.api.service.catalogo.model.dto.StockAdjustmentResult.Estado;
+import com.api.service.catalogo.model.dto.StockChange;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockAdjustmentServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StockAdjustmentService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    // El repositorio simulado aplica todo salvo los ids que empiezan por "x"
+    private void answerApplied() {
+        when(productRepository.applyStockChanges(anyList())).thenAnswer(invocation -> {
+            List<Map<String, StockChange>> sessions = invocation.getArgument(0);
+            return sessions.stream().map(changes -> {
+                Map<String, StockAdjustmentResult> results = new HashMap<>();
+                changes.forEach((id, change) -> results.put(id, id.startsWith("x")
+                        ? new StockAdjustmentResult(id, Estado.NO_ENCONTRADO, null)
+                        : new StockAdjustmentResult(id, Estado.APLICADO, change.target())));
+                return results;
+            }).toList();
+        });
+    }
+
+    @Test
+    void stockChange_ShouldComposeInOrder() {
+        StockChange counted = new StockChange(10, 0);
+        assertEquals(new StockChange(10, 3), counted.then(new StockChange(null, 5)).then(new StockChange(null, -2)));
+        assertEquals(new StockChange(4, 0), new StockChange(null, 7).then(new StockChange(4, 0)));
+    }
+
+    @Test
+    void adjust_ShouldCoalesceLinesOfTheSameProduct_AndReportPerProduct() {
+        service = new StockAdjustmentService(productRepository, eventPublisher, Duration.ofMillis(1), 5000);
+        answerApplied();
+
+        StockAdjustmentReport report = service.adjust(List.of(
+                new StockAdjustment("p1", 10, null),
+                new StockAdjustment("p2", null, 4),
+                new StockAdjustment("p1", null, 2),
+                new StockAdjustment("x9", null, 1),
+                new StockAdjustment("p1", null, -1)));
+
+        verify(productRepository).applyStockChanges(List.of(Map.of(
+                "p1", new StockChange(10, 1),
+                "p2", new StockChange(null, 4),
+                "x9", new StockChange(null, 1))));
+        assertEquals(5, report.lineas());
+        assertEquals(3, report.productos());
+        assertEquals(2, report.aplicados());
+        assertEquals(List.of("p1", "p2", "x9"), report.resultados().stream().map(StockAdjustmentResult::productId).toList());
+        assertEquals(11, report.resultados().get(0).stock());
+        // El evento se publica después de devolver el resultado
+        verify(eventPublisher, timeout(5000)).publishEvent(ProductChangedEvent.stock(List.of("p1", "p2")));
+    }
+
+    @Test
+    void sessionsInsideTheWindow_ShouldShareOneBulkWrite() {
+        service = new StockAdjustmentService(productRepository, eventPublisher, Duration.ofMillis(300), 5000);
+        answerApplied();
+
+        ExecutorService scanners = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<StockAdjustmentReport> first = CompletableFuture.supplyAsync(
+                    () -> service.adjust(List.of(new StockAdjustment("p1", 10, null))), scanners);
+            CompletableFuture<StockAdjustmentReport> second = CompletableFuture.supplyAsync(
+                    () -> service.adjust(List.of(new StockAdjustment("p1", null, 5), new StockAdjustment("p2", 1, null))),
+                    scanners);
+
+            assertEquals(Estado.APLICADO, first.join().resultados().get(0).estado());
+            assertEquals(2, second.join().aplicados());
+        } finally {
+            scanners.shutdown();
+        }
+        // Un solo bulk, pero cada sesión con su propio cambio de p1
+        verify(productRepository, times(1)).applyStockChanges(argThat(sessions -> sessions.size() == 2
+                && sessions.contains(Map.of("p1", new StockChange(10, 0)))
+                && sessions.contains(Map.of("p1", new StockChange(null, 5), "p2", new StockChange(1, 0)))));
+    }
+
+    @Test
+    void outOfRangeSession_ShouldFailAlone_BeforeReachingTheBulk() {
+        service = new StockAdjustmentService(productRepository, eventPublisher, Duration.ofMillis(1), 5000);
+
+        assertThrows(ArithmeticException.class, () -> service.adjust(List.of(
+                new StockAdjustment("p1", Integer.MAX_VALUE, null),
+                new StockAdjustment("p1", null, 1))));
+        assertThrows(ArithmeticException.class,
+                () -> new StockChange(null, Integer.MAX_VALUE).then(new StockChange(null, 1)));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void fullWindow_ShouldFlushWithoutWaiting_AndFailuresReachTheCaller() {
+        service = new StockAdjustmentService(productRepository, eventPublisher, Duration.ofMinutes(5), 2);
+        when(productRepository.applyStockChanges(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("caído"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> service.adjust(List.of(
+                new StockAdjustment("p1", 1, null), new StockAdjustment("p2", 2, null))));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void failingListener_ShouldNotFailSessionsWhoseBulkWasApplied() {
+        service = new StockAdjustmentService(productRepository, eventPublisher, Duration.ofMillis(1), 5000);
+        answerApplied();
+        doThrow(new DataAccessResourceFailureException("feed caído"))
+                .when(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+
+        StockAdjustmentReport report = service.adjust(List.of(new StockAdjustment("p1", null, 5)));
+
+        assertEquals(1, report.aplicados());
+        verify(eventPublisher, timeout(5000)).publishEvent(any(ProductChangedEvent.class));
+    }
+}
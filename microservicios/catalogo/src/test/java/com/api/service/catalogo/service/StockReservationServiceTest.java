@@ -0,0 +1,135 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ReservationStatus;
+import com.api.service.catalogo.model.dto.StockItem;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ciclo de vida de las reservas contra un MongoDB real
+ * (se omite si no hay Docker disponible).
+ */
+@DataMongoTest
+@Import(StockReservationService.class)
+@Testcontainers(disabledWithoutDocker = true)
+class StockReservationServiceTest {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String productId;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection("reservas");
+        productRepository.deleteAll();
+        productId = productRepository.save(Product.builder()
+                .nombre("Laptop")
+                .precio(1000.0)
+                .stock(10)
+                .build()).getId();
+    }
+
+    private int stock() {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    @Test
+    void reserve_ShouldHoldStock_AndConfirmShouldKeepItDeducted() {
+        var result = reservationService.reserve("pedido-1", List.of(new StockItem(productId, 3)), null, "user-1");
+
+        assertTrue(result.isReserved());
+        assertEquals(ReservationStatus.ACTIVA, result.reservation().getEstado());
+        assertEquals(7, stock());
+
+        reservationService.confirm("pedido-1");
+        assertEquals(7, stock());
+        assertThrows(IllegalStateException.class, () -> reservationService.release("pedido-1"));
+    }
+
+    @Test
+    void reserve_ShouldBeIdempotent_ForSameReservationId() {
+        reservationService.reserve("pedido-1", List.of(new StockItem(productId, 3)), null, "user-1");
+        reservationService.reserve("pedido-1", List.of(new StockItem(productId, 3)), null, "user-1");
+
+        assertEquals(7, stock());
+    }
+
+    @Test
+    void save_ShouldKeepTheReservation_SoReleaseStillReturnsStock() {
+        reservationService.reserve("pedido-1", List.of(new StockItem(productId, 4)), null, "user-1");
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(List.of("pedido-1"), product.getReservas());
+        product.setNombre("Laptop Pro");
+        productRepository.save(product);
+        reservationService.release("pedido-1");
+
+        assertEquals(10, stock());
+    }
+
+    @Test
+    void release_ShouldReturnStock_OnlyOnce() {
+        reservationService.reserve("pedido-1", List.of(new StockItem(productId, 4)), null, "user-1");
+
+        reservationService.release("pedido-1");
+        reservationService.release("pedido-1");
+
+        assertEquals(10, stock());
+    }
+
+    @Test
+    void reserve_ShouldClampTtl_ToMaxTtl() {
+        var result = reservationService.reserve("pedido-1", List.of(new StockItem(productId, 1)),
+                Duration.ofDays(30), "user-1");
+
+        var reservation = result.reservation();
+        assertFalse(reservation.getExpiresAt().isAfter(reservation.getCreatedAt().plus(Duration.ofHours(1))));
+    }
+
+    @Test
+    void sweepExpired_ShouldReleaseExpiredReservations() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            reservationService.reserve("pedido-" + i, List.of(new StockItem(productId, 1)),
+                    Duration.ofMillis(1), "user-1");
+        }
+        assertEquals(5, stock());
+        Thread.sleep(20);
+
+        int released = reservationService.sweepExpired();
+
+        assertEquals(5, released);
+        assertEquals(10, stock());
+        assertThrows(IllegalStateException.class, () -> reservationService.confirm("pedido-0"));
+    }
+}
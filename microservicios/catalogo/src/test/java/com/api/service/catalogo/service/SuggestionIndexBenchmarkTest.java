@@ -0,0 +1,90 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latencia (p50/p99) y memoria asignada por consulta del autocompletado con
+ * un catálogo sintético de 100k productos. Registra los valores y comprueba
+ * límites holgados; se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class SuggestionIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionIndexBenchmarkTest.class);
+
+    private static final int PRODUCTS = 100_000;
+    private static final int QUERIES = 200_000;
+    private static final String[] WORDS = { "laptop", "monitor", "teclado", "raton", "cafe", "cafetera", "taza",
+            "mochila", "silla", "mesa", "lampara", "auriculares", "camara", "telefono", "cargador", "cable",
+            "altavoz", "impresora", "tinta", "papel", "cuaderno", "boligrafo", "zapatilla", "camiseta" };
+
+    @Test
+    void lookupLatencyAndAllocation() {
+        SuggestionIndex index = new SuggestionIndex(mock(ProductRepository.class), 10, Duration.ofSeconds(30));
+        Random random = new Random(42);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < PRODUCTS; i++) {
+            index.index(Product.builder()
+                    .id(String.format("%024x", i))
+                    .nombre(word(random) + " " + word(random) + " modelo " + i)
+                    .stock(random.nextInt(1000))
+                    .categorias(List.of("cat-" + i % 20))
+                    .build());
+        }
+        long buildMs = System.currentTimeMillis() - start;
+
+        // Lo que escribe el usuario tecla a tecla: "l", "la", "lap"...
+        String[] prefixes = new String[WORDS.length * 4];
+        for (int i = 0; i < prefixes.length; i++) {
+            String word = WORDS[i / 4];
+            prefixes[i] = word.substring(0, Math.min(word.length(), 1 + i % 4));
+        }
+
+        for (int i = 0; i < QUERIES; i++) {
+            index.suggest(prefixes[i % prefixes.length], 8);
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long t = System.nanoTime();
+            index.suggest(prefixes[i % prefixes.length], 8);
+            nanos[i] = System.nanoTime() - t;
+        }
+        long bytesPerQuery = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / QUERIES;
+        Arrays.sort(nanos);
+        double p50 = nanos[QUERIES / 2] / 1000.0;
+        double p99 = nanos[QUERIES * 99 / 100] / 1000.0;
+
+        SuggestionIndex.Stats stats = index.stats();
+        log.info(String.format("Autocompletado: %,d productos, %,d claves, %,d nodos, construido en %d ms, "
+                        + "p50 %.1f µs, p99 %.1f µs, %d bytes asignados por consulta, %,d bytes/producto estimados",
+                stats.products(), stats.keys(), stats.nodes(), buildMs, p50, p99, bytesPerQuery,
+                stats.estimatedBytes() / stats.products()));
+
+        assertEquals(PRODUCTS, stats.products());
+        assertTrue(p99 < 1000, "El p99 debería quedar por debajo de 1 ms");
+        // La consulta devuelve una vista del top del nodo: no debería copiar nada
+        assertTrue(bytesPerQuery < 256, "Una consulta no debería asignar más de 256 bytes");
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,123 @@
+package com.api.service.catalogo.service;
+
+import com.api.service.catalogo.model.Product;
+import com.api.service.catalogo.model.ProductChangedEvent;
+import com.api.service.catalogo.model.ProductChangedEvent.ChangeType;
+import com.api.service.catalogo.model.dto.Suggestion;
+import com.api.service.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex(productRepository, 3, Duration.ofSeconds(30));
+        index.index(product("1", "Café de Colombia", 5, "Despensa"));
+        index.index(product("2", "Cafetera italiana", 40, "Hogar"));
+        index.index(product("3", "Taza para café", 12, "Hogar"));
+        index.index(product("4", "Auriculares Sony", 7, "Tecnologia"));
+    }
+
+    private static Product product(String id, String nombre, int stock, String categoria) {
+        return Product.builder().id(id).nombre(nombre).stock(stock).categorias(List.of(categoria)).build();
+    }
+
+    private List<String> texts(String prefix) {
+        return index.suggest(prefix, 10).stream().map(Suggestion::texto).toList();
+    }
+
+    @Test
+    void suggest_ShouldRankByStock_IgnoringAccentsAndCase() {
+        // "Taza para café" entra por su última palabra
+        assertEquals(List.of("Cafetera italiana", "Taza para café", "Café de Colombia"), texts("CAFE"));
+        assertEquals(texts("cafe"), texts("café"));
+        assertTrue(texts("x").isEmpty());
+        assertTrue(texts("  ").isEmpty());
+    }
+
+    @Test
+    void suggest_ShouldMatchFromEachWord_AndIncludeCategories() {
+        assertEquals(List.of("Auriculares Sony"), texts("sony"));
+        // "Hogar" suma el stock de sus dos productos (52)
+        List<Suggestion> h = index.suggest("h", 10);
+        assertEquals(Suggestion.Tipo.CATEGORIA, h.get(0).tipo());
+        assertEquals(52, h.get(0).peso());
+    }
+
+    @Test
+    void suggest_ShouldKeepOnlyTopK_WithoutDuplicates() {
+        index.index(product("5", "Cafe cafe", 100, "Despensa"));
+        index.index(product("6", "Cafe molido", 1, "Despensa"));
+
+        List<String> top = texts("c");
+        assertEquals(3, top.size());
+        assertEquals(List.of("Cafe cafe", "Cafetera italiana", "Taza para café"), top);
+        assertEquals(1, index.suggest("c", 1).size());
+    }
+
+    @Test
+    void productChangedEvents_ShouldUpdateRankingAndRemoveProducts() {
+        when(productRepository.findAllById(List.of("1")))
+                .thenReturn(List.of(product("1", "Café de Colombia", 90, "Despensa")));
+
+        index.onProductChanged(ProductChangedEvent.of("1", ChangeType.STOCK));
+        assertEquals(List.of("Café de Colombia", "Cafetera italiana", "Taza para café"), texts("caf"));
+
+        index.onProductChanged(ProductChangedEvent.of("2", ChangeType.ELIMINADO));
+        assertEquals(List.of("Café de Colombia", "Taza para café"), texts("caf"));
+        assertEquals(12, index.suggest("hog", 10).get(0).peso());
+
+        index.onProductChanged(ProductChangedEvent.of("3", ChangeType.ELIMINADO));
+        assertTrue(texts("hogar").isEmpty());
+        assertEquals(2, index.stats().products());
+    }
+
+    @Test
+    void removingEverything_ShouldLeaveOnlyTheRoot() {
+        List.of("1", "2", "3", "4").forEach(index::remove);
+
+        SuggestionIndex.Stats stats = index.stats();
+        assertEquals(0, stats.keys());
+        assertEquals(1, stats.nodes());
+    }
+
+    @Test
+    void changesDuringRebuild_ShouldNotBeOverwrittenByTheStream() {
+        when(productRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            // "2" ya se borró; "1" se quedó casi sin stock
+            return ids.contains("1") ? List.of(product("1", "Café de Colombia", 1, "Despensa")) : List.of();
+        });
+        // El cursor leyó las versiones viejas antes de que llegaran los eventos
+        when(productRepository.streamAll(anyCollection(), anyInt())).thenReturn(Stream.of(
+                        product("1", "Café de Colombia", 500, "Despensa"),
+                        product("2", "Cafetera italiana", 40, "Hogar"))
+                .peek(product -> index.onProductChanged(ProductChangedEvent.of(product.getId(),
+                        product.getId().equals("2") ? ChangeType.ELIMINADO : ChangeType.STOCK))));
+
+        index.rebuild();
+
+        assertEquals(List.of("Taza para café", "Café de Colombia"), texts("caf"));
+        assertTrue(index.isReady());
+    }
+}
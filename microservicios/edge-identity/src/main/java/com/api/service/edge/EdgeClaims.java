@@ -0,0 +1,13 @@
+package com.api.service.edge;
+
+/**
+ * Identidad que el gateway sacó de un JWT verificado. issuedAt es cuándo se
+ * firmaron las cabeceras y expiresAt el "exp" del token, ambos en segundos.
+ */
+public record EdgeClaims(
+        String subject,
+        String userId,
+        String role,
+        long issuedAt,
+        long expiresAt) {
+}
@@ -0,0 +1,95 @@
+package com.api.service.edge;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Modo "trusted edge": si el gateway ya verificó el JWT y reenvía la identidad
+ * en cabeceras firmadas (EdgeSignature), construimos el JwtAuthenticationToken
+ * a partir de ellas y evitamos un segundo parseo/verificación del JWS.
+ * Si las cabeceras faltan o la firma no cuadra, se sigue el flujo normal
+ * (NimbusJwtDecoder).
+ */
+public class EdgeIdentityFilter extends OncePerRequestFilter {
+
+    // Marca la petición como ya autenticada por el gateway
+    static final String AUTHENTICATED_ATTRIBUTE = EdgeIdentityFilter.class.getName() + ".AUTHENTICATED";
+
+    private final EdgeSignature signature;
+    private final long maxSkewSeconds;
+    private final Converter<Jwt, AbstractAuthenticationToken> jwtAuthConverter;
+
+    /**
+     * @throws IllegalStateException si falta app.edge.secret o es demasiado corta
+     */
+    public EdgeIdentityFilter(String secret, long maxSkewSeconds,
+            Converter<Jwt, AbstractAuthenticationToken> jwtAuthConverter) {
+        this.signature = new EdgeSignature(secret);
+        this.maxSkewSeconds = maxSkewSeconds;
+        this.jwtAuthConverter = jwtAuthConverter;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String authHeader = request.getHeader("Authorization");
+
+        if (request.getHeader(EdgeSignature.HEADER_SIGNATURE) != null
+                && authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            EdgeClaims claims = signature.verify(request::getHeader, request.getMethod(), request.getRequestURI(),
+                    token, Instant.now().getEpochSecond(), maxSkewSeconds);
+            if (claims != null) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(jwtAuthConverter.convert(jwt(token, claims)));
+                SecurityContextHolder.setContext(context);
+                request.setAttribute(AUTHENTICATED_ATTRIBUTE, Boolean.TRUE);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Jwt con los claims que firmó el gateway; caduca cuando caduca el token
+    private static Jwt jwt(String tokenValue, EdgeClaims claims) {
+        Jwt.Builder builder = Jwt.withTokenValue(tokenValue)
+                .header("alg", "HS256")
+                .subject(claims.subject())
+                .issuedAt(Instant.ofEpochSecond(claims.issuedAt()))
+                .expiresAt(Instant.ofEpochSecond(claims.expiresAt()));
+        if (!claims.userId().isEmpty()) {
+            builder.claim("userId", claims.userId());
+        }
+        if (!claims.role().isEmpty()) {
+            builder.claim("role", claims.role());
+        }
+        return builder.build();
+    }
+
+    /**
+     * BearerTokenResolver que no devuelve el token cuando la petición ya fue
+     * autenticada por las cabeceras del gateway, evitando así la verificación
+     * del JWS en BearerTokenAuthenticationFilter.
+     */
+    public static BearerTokenResolver bearerTokenResolver() {
+        DefaultBearerTokenResolver delegate = new DefaultBearerTokenResolver();
+        return request -> request.getAttribute(AUTHENTICATED_ATTRIBUTE) != null ? null : delegate.resolve(request);
+    }
+}
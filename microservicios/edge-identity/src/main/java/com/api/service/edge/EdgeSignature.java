@@ -0,0 +1,143 @@
+package com.api.service.edge;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cabeceras X-Edge-* del modo "trusted edge". El gateway firma con HMAC la
+ * identidad del JWT junto con el método, la ruta y un hash del propio token:
+ * unas cabeceras capturadas no sirven con otro token ni para otra petición.
+ * La clave (app.edge.secret) es solo para esto, no la de los JWT.
+ */
+public final class EdgeSignature {
+
+    public static final String HEADER_SUB = "X-Edge-Sub";
+    public static final String HEADER_USER_ID = "X-Edge-User-Id";
+    public static final String HEADER_ROLE = "X-Edge-Role";
+    public static final String HEADER_TIMESTAMP = "X-Edge-Ts";
+    public static final String HEADER_EXPIRES = "X-Edge-Exp";
+    public static final String HEADER_SIGNATURE = "X-Edge-Signature";
+
+    public static final List<String> HEADERS = List.of(
+            HEADER_SUB, HEADER_USER_ID, HEADER_ROLE, HEADER_TIMESTAMP, HEADER_EXPIRES, HEADER_SIGNATURE);
+
+    private static final int MIN_KEY_BYTES = 32;
+
+    private final SecretKeySpec key;
+
+    /**
+     * @param secret clave en base64 de al menos 256 bits
+     * @throws IllegalStateException si falta la clave o es demasiado corta
+     */
+    public EdgeSignature(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("El modo trusted edge necesita su propia clave en app.edge.secret");
+        }
+        byte[] bytes = Base64.getDecoder().decode(secret);
+        if (bytes.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("app.edge.secret debe tener al menos 256 bits");
+        }
+        this.key = new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    /**
+     * Cabeceras que el gateway añade a la petición reenviada.
+     *
+     * @param path ruta sin decodificar, tal como la recibirá el servicio
+     */
+    public Map<String, String> headers(EdgeClaims claims, String method, String path, String token) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(HEADER_SUB, nullToEmpty(claims.subject()));
+        headers.put(HEADER_USER_ID, nullToEmpty(claims.userId()));
+        headers.put(HEADER_ROLE, nullToEmpty(claims.role()));
+        headers.put(HEADER_TIMESTAMP, Long.toString(claims.issuedAt()));
+        headers.put(HEADER_EXPIRES, Long.toString(claims.expiresAt()));
+        headers.put(HEADER_SIGNATURE, Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac(payload(headers, method, path, token))));
+        return headers;
+    }
+
+    /**
+     * Comprueba las cabeceras de una petición recibida. Devuelve null si falta
+     * alguna, si la firma no cuadra con el método, la ruta y el token, si se
+     * firmaron hace más de maxSkewSeconds o si el token ya caducó.
+     */
+    public EdgeClaims verify(UnaryOperator<String> header, String method, String path, String token,
+            long nowSeconds, long maxSkewSeconds) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : List.of(HEADER_SUB, HEADER_USER_ID, HEADER_ROLE, HEADER_TIMESTAMP, HEADER_EXPIRES)) {
+            headers.put(name, nullToEmpty(header.apply(name)));
+        }
+        String signature = header.apply(HEADER_SIGNATURE);
+        if (signature == null) {
+            return null;
+        }
+
+        long issuedAt;
+        long expiresAt;
+        try {
+            issuedAt = Long.parseLong(headers.get(HEADER_TIMESTAMP));
+            expiresAt = Long.parseLong(headers.get(HEADER_EXPIRES));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (Math.abs(nowSeconds - issuedAt) > maxSkewSeconds || expiresAt <= nowSeconds || expiresAt <= issuedAt) {
+            return null;
+        }
+
+        byte[] received;
+        try {
+            received = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(mac(payload(headers, method, path, token)), received)) {
+            return null;
+        }
+        return new EdgeClaims(headers.get(HEADER_SUB), headers.get(HEADER_USER_ID), headers.get(HEADER_ROLE),
+                issuedAt, expiresAt);
+    }
+
+    private static String payload(Map<String, String> headers, String method, String path, String token) {
+        return String.join("\n",
+                headers.get(HEADER_SUB),
+                headers.get(HEADER_USER_ID),
+                headers.get(HEADER_ROLE),
+                headers.get(HEADER_TIMESTAMP),
+                headers.get(HEADER_EXPIRES),
+                method,
+                path,
+                tokenHash(token));
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar la identidad del gateway", e);
+        }
+    }
+
+    private static String tokenHash(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
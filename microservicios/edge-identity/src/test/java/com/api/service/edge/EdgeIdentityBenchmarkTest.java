@@ -0,0 +1,130 @@
+package com.api.service.edge;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lo que cuesta autenticar una petición en cada salto detrás del gateway:
+ * verificar el JWT con NimbusJwtDecoder (como JwtDecoderConfig en catalogo y
+ * pedidos) frente a comprobar las cabeceras firmadas con EdgeIdentityFilter.
+ * Un pedido hace dos saltos (gateway -> pedidos -> catalogo). La red, la base
+ * de datos y el resto del servicio cuestan lo mismo en los dos modos, así que
+ * no entran. Registra los valores y comprueba límites holgados; se ejecuta con
+ * -Pbenchmark.
+ */
+@Tag("benchmark")
+class EdgeIdentityBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EdgeIdentityBenchmarkTest.class);
+
+    // Clave de los JWT (la de application.yaml) y clave propia de las cabeceras
+    private static final String JWT_SECRET = "bXN1cGVyc2VjcmV0a2V5Zm9ydGhlc3RvcmUxMjM0NVhZWlo=";
+    private static final String EDGE_SECRET = "ZWRnZS1zZWNyZXQtc29sby1wYXJhLWxhcy1jYWJlY2VyYXMtZmlybWFkYXM=";
+    private static final String METHOD = "POST";
+    private static final String PATH = "/api/pedidos";
+    private static final int HOPS = 2;
+    private static final int REQUESTS = 50_000;
+
+    private final Converter<Jwt, AbstractAuthenticationToken> jwtAuthConverter = jwt -> new JwtAuthenticationToken(
+            jwt, List.of(new SimpleGrantedAuthority("ROLE_" + jwt.getClaimAsString("role"))));
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static String token(SecretKey key, Instant now) {
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject("cliente@demo.com")
+                .claim("userId", "user-1")
+                .claim("role", "CLIENTE")
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(900))
+                .build();
+        return new NimbusJwtEncoder(new ImmutableSecret<>(key))
+                .encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+                .getTokenValue();
+    }
+
+    private interface Hop {
+        void authenticate(MockHttpServletRequest request) throws Exception;
+    }
+
+    // Microsegundos por petición, tras calentar
+    private static double micros(Hop hop, MockHttpServletRequest request) throws Exception {
+        for (int i = 0; i < REQUESTS / 5; i++) {
+            hop.authenticate(request);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            hop.authenticate(request);
+        }
+        return (System.nanoTime() - start) / 1000.0 / REQUESTS;
+    }
+
+    @Test
+    void signedHeaders_ShouldAuthenticateFasterThanVerifyingTheJwt() throws Exception {
+        SecretKey jwtKey = new SecretKeySpec(Base64.getDecoder().decode(JWT_SECRET), "HmacSHA256");
+        Instant now = Instant.now();
+        String token = token(jwtKey, now);
+
+        // Sin cabeceras X-Edge-*: solo el JWT, como sin el modo trusted edge
+        MockHttpServletRequest bearerOnly = new MockHttpServletRequest(METHOD, PATH);
+        bearerOnly.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletRequest signed = new MockHttpServletRequest(METHOD, PATH);
+        signed.addHeader("Authorization", "Bearer " + token);
+        new EdgeSignature(EDGE_SECRET)
+                .headers(new EdgeClaims("cliente@demo.com", "user-1", "CLIENTE", now.getEpochSecond(),
+                        now.plusSeconds(900).getEpochSecond()), METHOD, PATH, token)
+                .forEach(signed::addHeader);
+
+        JwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(jwtKey).build();
+        BearerTokenResolver resolver = EdgeIdentityFilter.bearerTokenResolver();
+        double jwtMicros = micros(hop -> {
+            AbstractAuthenticationToken auth = jwtAuthConverter.convert(jwtDecoder.decode(resolver.resolve(hop)));
+            assertNotNull(auth);
+        }, bearerOnly);
+
+        EdgeIdentityFilter filter = new EdgeIdentityFilter(EDGE_SECRET, 60, jwtAuthConverter);
+        double edgeMicros = micros(hop -> {
+            hop.removeAttribute(EdgeIdentityFilter.AUTHENTICATED_ATTRIBUTE);
+            filter.doFilter(hop, new MockHttpServletResponse(), new MockFilterChain());
+            assertNotNull(hop.getAttribute(EdgeIdentityFilter.AUTHENTICATED_ATTRIBUTE));
+        }, signed);
+
+        log.info(String.format("Autenticación por salto: JWT %.1f us, cabeceras firmadas %.1f us; "
+                        + "gateway -> pedidos -> catalogo (%d saltos): %.1f us frente a %.1f us",
+                jwtMicros, edgeMicros, HOPS, HOPS * jwtMicros, HOPS * edgeMicros));
+        assertTrue(edgeMicros < jwtMicros, "Las cabeceras firmadas deberían costar menos que verificar el JWT");
+    }
+}
@@ -0,0 +1,107 @@
+package com.api.service.edge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeIdentityFilterTest {
+
+    private static final String SECRET = "ZWRnZS1zZWNyZXQtc29sby1wYXJhLWxhcy1jYWJlY2VyYXMtZmlybWFkYXM=";
+    private static final String TOKEN = "original.jwt.token";
+
+    private EdgeSignature gateway;
+    private EdgeIdentityFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new EdgeSignature(SECRET);
+        filter = new EdgeIdentityFilter(SECRET, 60, jwt -> new JwtAuthenticationToken(jwt,
+                List.of(new SimpleGrantedAuthority("ROLE_" + jwt.getClaimAsString("role")))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest signedRequest(String method, String path, String token, long issuedAt,
+            long expiresAt) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.addHeader("Authorization", "Bearer " + token);
+        gateway.headers(new EdgeClaims("admin@demo.com", "user-1", "ADMIN", issuedAt, expiresAt),
+                "PUT", "/api/catalogo/stock/p1", TOKEN).forEach(request::addHeader);
+        return request;
+    }
+
+    private MockHttpServletRequest signedRequest() {
+        long now = Instant.now().getEpochSecond();
+        return signedRequest("PUT", "/api/catalogo/stock/p1", TOKEN, now, now + 900);
+    }
+
+    private Authentication authenticate(MockHttpServletRequest request) throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void validSignature_ShouldAuthenticate_UntilTheTokenExpires_AndSkipBearerToken() throws Exception {
+        long now = Instant.now().getEpochSecond();
+        MockHttpServletRequest request = signedRequest("PUT", "/api/catalogo/stock/p1", TOKEN, now, now + 900);
+
+        Authentication auth = authenticate(request);
+
+        assertNotNull(auth);
+        assertTrue(auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        Jwt jwt = (Jwt) auth.getPrincipal();
+        assertEquals(TOKEN, jwt.getTokenValue());
+        assertEquals("user-1", jwt.getClaimAsString("userId"));
+        assertEquals(Instant.ofEpochSecond(now + 900), jwt.getExpiresAt());
+        assertNull(EdgeIdentityFilter.bearerTokenResolver().resolve(request));
+    }
+
+    @Test
+    void tamperedRole_ShouldNotAuthenticate() throws Exception {
+        MockHttpServletRequest request = signedRequest();
+        request.removeHeader(EdgeSignature.HEADER_ROLE);
+        request.addHeader(EdgeSignature.HEADER_ROLE, "SERVICIO");
+
+        assertNull(authenticate(request));
+        assertEquals(TOKEN, EdgeIdentityFilter.bearerTokenResolver().resolve(request));
+    }
+
+    @Test
+    void replayedHeaders_ShouldNotAuthenticate_WithAnotherTokenMethodOrPath() throws Exception {
+        long now = Instant.now().getEpochSecond();
+
+        assertNull(authenticate(signedRequest("PUT", "/api/catalogo/stock/p1", "otro.jwt.token", now, now + 900)));
+        assertNull(authenticate(signedRequest("DELETE", "/api/catalogo/stock/p1", TOKEN, now, now + 900)));
+        assertNull(authenticate(signedRequest("PUT", "/api/catalogo/stock/p2", TOKEN, now, now + 900)));
+    }
+
+    @Test
+    void staleTimestampOrExpiredToken_ShouldNotAuthenticate() throws Exception {
+        long now = Instant.now().getEpochSecond();
+
+        assertNull(authenticate(signedRequest("PUT", "/api/catalogo/stock/p1", TOKEN, now - 3600, now + 900)));
+        assertNull(authenticate(signedRequest("PUT", "/api/catalogo/stock/p1", TOKEN, now - 30, now - 1)));
+    }
+
+    @Test
+    void missingOrShortSecret_ShouldFailAtStartup() {
+        assertThrows(IllegalStateException.class, () -> new EdgeSignature(""));
+        assertThrows(IllegalStateException.class, () -> new EdgeSignature("Y29ydGE="));
+    }
+}
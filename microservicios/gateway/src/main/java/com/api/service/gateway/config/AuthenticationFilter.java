@@ -16,18 +16,28 @@ import java.util.Set;
 public class AuthenticationFilter implements GlobalFilter, Ordered {
 
     private final JwtService jwtService;
+    private final EdgeIdentity edgeIdentity;
 
-    public AuthenticationFilter(JwtService jwtService) {
+    public AuthenticationFilter(JwtService jwtService, EdgeIdentity edgeIdentity) {
         this.jwtService = jwtService;
+        this.edgeIdentity = edgeIdentity;
     }
 
     // Rutas que son públicas sin importar el método
     private final Set<String> publicPaths = Set.of(
             "/api/auth/register",
-            "/api/auth/login");
+            "/api/auth/login",
+            "/api/catalogo/batch"); // Lectura de productos por lotes (POST con la lista de ids)
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // 0. Nunca aceptamos cabeceras de identidad interna que vengan del cliente
+        if (EdgeIdentity.hasEdgeHeaders(exchange.getRequest().getHeaders())) {
+            exchange = exchange.mutate()
+                    .request(r -> r.headers(h -> EdgeIdentity.HEADERS.forEach(h::remove)))
+                    .build();
+        }
+
         var request = exchange.getRequest();
         String path = request.getURI().getPath();
         HttpMethod method = request.getMethod();
@@ -57,11 +67,20 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
 
         // 5. Extraer y validar el token JWT
         String token = authHeader.substring(7); // "Bearer ".length()
-        if (!jwtService.validateToken(token)) {
+        VerifiedToken verified = jwtService.verify(token);
+        if (verified == null) {
             return unauthorizedResponse(exchange);
         }
 
-        // 6. Si el token es válido, dejar pasar la petición
+        // 6. Modo trusted edge: reenviamos la identidad ya verificada y firmada
+        if (edgeIdentity.isEnabled()) {
+            exchange = exchange.mutate()
+                    .request(r -> r.headers(h -> edgeIdentity.writeHeaders(h, verified, token, method.name(),
+                            request.getURI().getRawPath())))
+                    .build();
+        }
+
+        // 7. Si el token es válido, dejar pasar la petición
         return chain.filter(exchange);
     }
 
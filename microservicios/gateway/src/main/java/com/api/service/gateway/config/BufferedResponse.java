@@ -0,0 +1,34 @@
+package com.api.service.gateway.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.List;
+
+/**
+ * Respuesta completa (estado, cabeceras y cuerpo) guardada en memoria para
+ * poder reenviarla a otros clientes sin volver a llamar al servicio.
+ */
+public record BufferedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+    // Cabeceras que no tiene sentido reenviar tal cual desde memoria
+    private static final List<String> EXCLUDED_HEADERS = List.of(
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONNECTION,
+            HttpHeaders.DATE,
+            HttpHeaders.SET_COOKIE);
+
+    /**
+     * Copia las cabeceras de la respuesta original descartando las de transporte.
+     */
+    public static BufferedResponse of(HttpStatusCode status, HttpHeaders original, byte[] body) {
+        HttpHeaders copy = new HttpHeaders();
+        original.forEach((name, values) -> {
+            if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return new BufferedResponse(status, HttpHeaders.readOnlyHttpHeaders(copy), body);
+    }
+}
@@ -0,0 +1,55 @@
+package com.api.service.gateway.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorador que junta todo el cuerpo de la respuesta del servicio en un
+ * byte[] antes de escribirlo, para que los filtros puedan guardarlo o
+ * compartirlo. Debe usarse en filtros con orden menor que
+ * NettyWriteResponseFilter (-1).
+ */
+public abstract class BufferingResponseDecorator extends ServerHttpResponseDecorator {
+
+    protected BufferingResponseDecorator(ServerHttpResponse delegate) {
+        super(delegate);
+    }
+
+    /**
+     * Recibe el cuerpo completo y devuelve los bytes que se escribirán al
+     * cliente (puede ajustar estado y cabeceras antes de devolverlos).
+     */
+    protected abstract byte[] onBody(byte[] body);
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return DataBufferUtils.join(Flux.from(body))
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> {
+                    byte[] toWrite = onBody(bytes);
+                    if (toWrite.length == 0) {
+                        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                        return getDelegate().setComplete();
+                    }
+                    getHeaders().setContentLength(toWrite.length);
+                    return getDelegate().writeWith(Mono.just(bufferFactory().wrap(toWrite)));
+                });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).flatMapSequential(p -> p));
+    }
+}
@@ -0,0 +1,158 @@
+package com.api.service.gateway.config;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Caché de respuestas para los GET públicos del catálogo (listado y detalle
+ * de productos). Devuelve ETag fuerte y responde 304 a If-None-Match.
+ * Cualquier POST/PUT/PATCH/DELETE sobre el catálogo que responda 2xx la
+ * invalida, salvo los POST de solo lectura (readOnlyPaths, como /batch).
+ */
+@Component
+public class CatalogResponseCacheFilter implements GlobalFilter, Ordered {
+
+    // Antes que NettyWriteResponseFilter (-1) para poder decorar la respuesta
+    public static final int ORDER = -3;
+
+    // Los clientes pueden guardar la respuesta, pero deben revalidar con el ETag
+    private static final String CLIENT_CACHE_CONTROL = "no-cache";
+
+    private final ResponseCache responseCache;
+    private final EdgeCacheProperties properties;
+
+    public CatalogResponseCacheFilter(ResponseCache responseCache, EdgeCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+
+        if (!properties.isEnabled() || !properties.isCacheable(path)) {
+            return chain.filter(exchange);
+        }
+
+        HttpMethod method = request.getMethod();
+        if (method == HttpMethod.GET) {
+            return serveFromCache(exchange, chain);
+        }
+        if ((method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE) && !properties.isReadOnly(path)) {
+            // Una escritura aplicada puede cambiar listados y detalles: invalidamos todo.
+            // Las rechazadas (401/403 de AuthenticationFilter, 4xx, 5xx) no cambian nada
+            return chain.filter(exchange).doFinally(signal -> {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                if (status != null && status.is2xxSuccessful()) {
+                    responseCache.invalidateAll();
+                }
+            });
+        }
+        return chain.filter(exchange);
+    }
+
+    private Mono<Void> serveFromCache(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = cacheKey(request);
+        long now = System.currentTimeMillis();
+
+        ResponseCache.Entry cached = responseCache.get(key, now);
+        if (cached != null) {
+            return writeCached(exchange.getResponse(), cached, matchesIfNoneMatch(request, cached.etag()));
+        }
+
+        long generation = responseCache.generation();
+        long ttlMillis = properties.ttlFor(request.getURI().getPath()).toMillis();
+
+        BufferingResponseDecorator decorated = new BufferingResponseDecorator(exchange.getResponse()) {
+            @Override
+            protected byte[] onBody(byte[] body) {
+                if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()) {
+                    return body;
+                }
+                String etag = etagFor(body);
+                if (body.length <= properties.getMaxEntryBytes()) {
+                    BufferedResponse response = BufferedResponse.of(HttpStatus.OK, getHeaders(), body);
+                    responseCache.put(key,
+                            new ResponseCache.Entry(response, etag, System.currentTimeMillis() + ttlMillis),
+                            generation);
+                }
+                getHeaders().setETag(etag);
+                getHeaders().setCacheControl(CLIENT_CACHE_CONTROL);
+                getHeaders().remove(HttpHeaders.PRAGMA);
+                getHeaders().remove(HttpHeaders.EXPIRES);
+                if (matchesIfNoneMatch(request, etag)) {
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    return new byte[0];
+                }
+                return body;
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(decorated).build());
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, ResponseCache.Entry entry, boolean notModified) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(entry.response().headers());
+        headers.setETag(entry.etag());
+        headers.setCacheControl(CLIENT_CACHE_CONTROL);
+        headers.remove(HttpHeaders.PRAGMA);
+        headers.remove(HttpHeaders.EXPIRES);
+
+        if (notModified) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        byte[] body = entry.response().body();
+        response.setStatusCode(entry.response().status());
+        headers.setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static String cacheKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return query == null ? path : path + "?" + query;
+    }
+
+    private static boolean matchesIfNoneMatch(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        return ifNoneMatch.contains(etag) || ifNoneMatch.contains("*");
+    }
+
+    /**
+     * ETag fuerte: SHA-256 del cuerpo.
+     */
+    static String etagFor(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,65 @@
+package com.api.service.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración de la caché de respuestas del catálogo en el gateway
+ * (prefijo "app.edge-cache" en application.yaml).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.edge-cache")
+public class EdgeCacheProperties {
+
+    private boolean enabled = true;
+
+    // Rutas (prefijo) que se cachean en los GET
+    private String pathPrefix = "/api/catalogo";
+
+    // Rutas (prefijo) que nunca se cachean: la exportación en streaming y las de administración
+    private List<String> excludedPaths = new ArrayList<>(List.of("/api/catalogo/export", "/api/catalogo/admin"));
+
+    // POST que solo leen (p. ej. productos por lotes): no invalidan la caché
+    private List<String> readOnlyPaths = new ArrayList<>(List.of("/api/catalogo/batch"));
+
+    private int maxEntries = 1000;
+
+    private long maxBytes = 32L * 1024 * 1024;
+
+    // Respuestas más grandes que esto no se guardan
+    private long maxEntryBytes = 1024L * 1024;
+
+    private Duration defaultTtl = Duration.ofSeconds(30);
+
+    // TTL por ruta: gana el prefijo más largo que coincida
+    private Map<String, Duration> ttl = new LinkedHashMap<>();
+
+    public boolean isCacheable(String path) {
+        return path.startsWith(pathPrefix) && excludedPaths.stream().noneMatch(path::startsWith);
+    }
+
+    public boolean isReadOnly(String path) {
+        return readOnlyPaths.contains(path);
+    }
+
+    public Duration ttlFor(String path) {
+        Duration result = defaultTtl;
+        int longest = -1;
+        for (Map.Entry<String, Duration> entry : ttl.entrySet()) {
+            String prefix = entry.getKey();
+            if (path.startsWith(prefix) && prefix.length() > longest) {
+                longest = prefix.length();
+                result = entry.getValue();
+            }
+        }
+        return result;
+    }
+}
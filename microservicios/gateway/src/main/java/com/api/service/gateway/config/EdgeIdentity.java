@@ -0,0 +1,58 @@
+package com.api.service.gateway.config;
+
+import com.api.service.edge.EdgeClaims;
+import com.api.service.edge.EdgeSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Modo "trusted edge": el gateway reenvía la identidad ya verificada en
+ * cabeceras internas firmadas con HMAC (EdgeSignature), para que catalogo y
+ * pedidos no tengan que volver a verificar el JWS completo.
+ */
+@Component
+public class EdgeIdentity {
+
+    public static final List<String> HEADERS = EdgeSignature.HEADERS;
+
+    private final boolean enabled;
+    private final EdgeSignature signature;
+
+    public EdgeIdentity(
+            @Value("${app.edge.trusted-headers:false}") boolean enabled,
+            @Value("${app.edge.secret:}") String secret) {
+        this.enabled = enabled;
+        // Sin clave propia no se arranca en modo trusted edge
+        this.signature = enabled ? new EdgeSignature(secret) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Indica si el cliente intentó colar alguna de nuestras cabeceras internas.
+     */
+    public static boolean hasEdgeHeaders(HttpHeaders headers) {
+        for (String header : HEADERS) {
+            if (headers.containsKey(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Añade las cabeceras de identidad firmadas a partir de un token verificado.
+     * La firma solo vale para este token, este método y esta ruta (sin decodificar).
+     */
+    public void writeHeaders(HttpHeaders headers, VerifiedToken verified, String token, String method,
+            String rawPath) {
+        EdgeClaims claims = new EdgeClaims(verified.subject(), verified.userId(), verified.role(),
+                System.currentTimeMillis() / 1000, verified.expiresAtMillis() / 1000);
+        signature.headers(claims, method, rawPath, token).forEach(headers::set);
+    }
+}
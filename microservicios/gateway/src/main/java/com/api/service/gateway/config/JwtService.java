@@ -1,6 +1,7 @@
 package com.api.service.gateway.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,24 +14,57 @@ import java.util.Date;
 @Service
 public class JwtService {
 
-    private final SecretKey secretKey;
+    // El parser es inmutable y thread-safe: se construye una sola vez
+    private final JwtParser jwtParser;
+    private final TokenCache tokenCache;
 
     // Inyectamos la clave secreta desde application.yaml
-    public JwtService(@Value("${app.jwt.secret}") String jwtSecret) {
+    public JwtService(@Value("${app.jwt.secret}") String jwtSecret, TokenCache tokenCache) {
         // Decodificamos la clave (misma lógica que 'auth')
         byte[] keyBytes = Base64.getDecoder().decode(jwtSecret);
-        this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        SecretKey secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.tokenCache = tokenCache;
     }
 
     /**
      * Valida un token JWT.
      */
     public boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
+    /**
+     * Verifica el token y devuelve sus datos, o null si no es válido.
+     * Los tokens ya verificados se sirven desde la caché hasta su "exp".
+     */
+    public VerifiedToken verify(String token) {
+        long now = System.currentTimeMillis();
+        String key = TokenCache.keyFor(token);
+
+        VerifiedToken cached = tokenCache.get(key, now);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            return !isTokenExpired(token);
+            Claims claims = extractAllClaims(token);
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.getTime() <= now) {
+                return null;
+            }
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("userId", String.class),
+                    claims.get("role", String.class),
+                    expiration.getTime());
+            tokenCache.put(key, verified);
+            return verified;
         } catch (Exception e) {
             // Token malformado, expirado o firma inválida
-            return false;
+            return null;
         }
     }
 
@@ -38,19 +72,6 @@ public class JwtService {
      * Extrae todos los "claims" (datos) del token.
      */
     private Claims extractAllClaims(String token) {
-        // Usa la 'secretKey' correcta para validar
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Verifica si el token ha expirado.
-     */
-    private boolean isTokenExpired(String token) {
-        Date expiration = extractAllClaims(token).getExpiration();
-        return expiration.before(new Date());
+        return jwtParser.parseClaimsJws(token).getBody();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package com.api.service.gateway.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Single-flight" para los GET del catálogo: si llegan varias peticiones
+ * idénticas mientras la primera sigue en vuelo, solo esa (la líder) llega al
+ * servicio y las demás esperan su respuesta ya bufferizada.
+ * Si la líder tarda más que el timeout o falla, cada seguidora hace su propia
+ * llamada.
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    // Después de la caché de respuestas y antes de NettyWriteResponseFilter (-1)
+    public static final int ORDER = CatalogResponseCacheFilter.ORDER + 1;
+
+    private final Map<String, Sinks.One<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final String pathPrefix;
+    private final List<String> excludedPaths;
+    private final Duration waitTimeout;
+
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong followers = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public RequestCoalescingFilter(
+            @Value("${app.coalescing.enabled:true}") boolean enabled,
+            @Value("${app.coalescing.path-prefix:/api/catalogo}") String pathPrefix,
+            @Value("${app.coalescing.excluded-paths:/api/catalogo/export,/api/catalogo/admin}") List<String> excludedPaths,
+            @Value("${app.coalescing.wait-timeout:5s}") Duration waitTimeout,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.pathPrefix = pathPrefix;
+        this.excludedPaths = excludedPaths;
+        this.waitTimeout = waitTimeout;
+
+        FunctionCounter.builder("gateway.coalescing.requests", leaders, AtomicLong::get)
+                .tag("role", "leader").register(meterRegistry);
+        FunctionCounter.builder("gateway.coalescing.requests", followers, AtomicLong::get)
+                .tag("role", "follower").register(meterRegistry);
+        FunctionCounter.builder("gateway.coalescing.timeouts", timeouts, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("gateway.coalescing.ratio", this, RequestCoalescingFilter::coalescingRatio)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        if (!enabled || request.getMethod() != HttpMethod.GET
+                || !path.startsWith(pathPrefix) || excludedPaths.stream().anyMatch(path::startsWith)) {
+            return chain.filter(exchange);
+        }
+
+        String key = coalescingKey(request);
+        Sinks.One<BufferedResponse> sink = Sinks.one();
+        Sinks.One<BufferedResponse> existing = inFlight.putIfAbsent(key, sink);
+
+        if (existing != null) {
+            followers.incrementAndGet();
+            return existing.asMono()
+                    .timeout(waitTimeout)
+                    .flatMap(buffered -> write(exchange.getResponse(), buffered))
+                    .onErrorResume(e -> {
+                        // Líder lenta o fallida: esta petición va por su cuenta
+                        if (e instanceof TimeoutException) {
+                            timeouts.incrementAndGet();
+                        }
+                        return chain.filter(exchange);
+                    });
+        }
+
+        leaders.incrementAndGet();
+        BufferingResponseDecorator decorated = new BufferingResponseDecorator(exchange.getResponse()) {
+            @Override
+            protected byte[] onBody(byte[] body) {
+                inFlight.remove(key, sink);
+                HttpStatusCode status = getStatusCode() != null ? getStatusCode() : HttpStatus.OK;
+                sink.tryEmitValue(BufferedResponse.of(status, getHeaders(), body));
+                return body;
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(decorated).build())
+                .doFinally(signal -> {
+                    // Si la líder no llegó a escribir cuerpo, liberamos a las seguidoras
+                    inFlight.remove(key, sink);
+                    sink.tryEmitError(new IllegalStateException("La petición líder terminó sin respuesta"));
+                });
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, BufferedResponse buffered) {
+        response.setStatusCode(buffered.status());
+        response.getHeaders().putAll(buffered.headers());
+        byte[] body = buffered.body();
+        if (body.length == 0) {
+            return response.setComplete();
+        }
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    /**
+     * Mismo método + ruta + query + Accept = misma respuesta.
+     */
+    private static String coalescingKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String accept = request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+        return request.getURI().getRawPath()
+                + (query == null ? "" : "?" + query)
+                + "|" + (accept == null ? "" : accept);
+    }
+
+    /**
+     * Fracción de peticiones que se resolvieron sin llamar al servicio.
+     */
+    public double coalescingRatio() {
+        long total = leaders.get() + followers.get();
+        return total == 0 ? 0.0 : (double) followers.get() / total;
+    }
+
+    public long getLeaders() {
+        return leaders.get();
+    }
+
+    public long getFollowers() {
+        return followers.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,132 @@
+package com.api.service.gateway.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché LRU de respuestas acotada por número de entradas y por bytes.
+ * Cada escritura en el catálogo incrementa la "generación", lo que invalida
+ * todo lo guardado y descarta las respuestas que estaban en vuelo.
+ */
+@Component
+public class ResponseCache {
+
+    public record Entry(BufferedResponse response, String etag, long expiresAtMillis) {
+
+        boolean isExpired(long nowMillis) {
+            return expiresAtMillis <= nowMillis;
+        }
+    }
+
+    // LinkedHashMap en modo "access-order" = LRU
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxBytes;
+    private long currentBytes;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ResponseCache(EdgeCacheProperties properties, MeterRegistry meterRegistry) {
+        this.maxEntries = properties.getMaxEntries();
+        this.maxBytes = properties.getMaxBytes();
+
+        FunctionCounter.builder("gateway.edge.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("gateway.edge.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("gateway.edge.cache.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.edge.cache.invalidations", invalidations, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("gateway.edge.cache.bytes", this, ResponseCache::bytes).register(meterRegistry);
+    }
+
+    public synchronized Entry get(String key, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired(nowMillis)) {
+            remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Generación actual; hay que leerla antes de pedir la respuesta al servicio.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Guarda la respuesta solo si no hubo escrituras desde que se pidió
+     * (generación sin cambios).
+     */
+    public synchronized boolean put(String key, Entry entry, long expectedGeneration) {
+        if (generation.get() != expectedGeneration) {
+            return false;
+        }
+        remove(key);
+        entries.put(key, entry);
+        currentBytes += entry.response().body().length;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            currentBytes -= eldest.getValue().response().body().length;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+        return true;
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        currentBytes = 0;
+        invalidations.incrementAndGet();
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            currentBytes -= removed.response().body().length;
+        }
+    }
+
+    public synchronized long bytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,118 @@
+package com.api.service.gateway.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché acotada y concurrente de tokens ya validados.
+ * La clave es el SHA-256 del token (no guardamos el token en claro) y cada
+ * entrada caduca en el mismo instante que el "exp" del JWT.
+ * <p>
+ * Las lecturas no toman ningún lock. Al llenarse se descarta la entrada más
+ * antigua (FIFO): los tokens tienen una vida parecida, así que suele ser la
+ * que antes iba a caducar, y desalojar cuesta O(1) en vez de recorrer la caché.
+ */
+@Component
+public class TokenCache {
+
+    private record Slot(String key, VerifiedToken token) {
+    }
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    // Orden de llegada; puede tener huecos (entradas caducadas o sustituidas) que se saltan al desalojar
+    private final ArrayDeque<Slot> arrivals = new ArrayDeque<>();
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TokenCache(@Value("${app.jwt.cache.max-entries:10000}") int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+
+        FunctionCounter.builder("gateway.jwt.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("gateway.jwt.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("gateway.jwt.cache.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("gateway.jwt.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el token verificado si está en caché y no ha expirado.
+     */
+    public VerifiedToken get(String key, long nowMillis) {
+        VerifiedToken cached = entries.get(key);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (cached.isExpired(nowMillis)) {
+            entries.remove(key, cached);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached;
+    }
+
+    public void put(String key, VerifiedToken token) {
+        synchronized (arrivals) {
+            entries.put(key, token);
+            arrivals.addLast(new Slot(key, token));
+            while (entries.size() > maxEntries && !arrivals.isEmpty()) {
+                Slot oldest = arrivals.pollFirst();
+                // Solo si sigue siendo la entrada actual de esa clave
+                if (entries.remove(oldest.key(), oldest.token())) {
+                    evictions.incrementAndGet();
+                }
+            }
+            // Los huecos se limpian de golpe cada maxEntries escrituras como mucho: O(1) amortizado
+            if (arrivals.size() > 2 * Math.max(maxEntries, 1)) {
+                arrivals.removeIf(slot -> !slot.token().equals(entries.get(slot.key())));
+            }
+        }
+    }
+
+    /**
+     * Clave de caché: SHA-256 del token en Base64.
+     */
+    public static String keyFor(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
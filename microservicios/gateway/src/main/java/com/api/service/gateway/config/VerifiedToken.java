@@ -0,0 +1,16 @@
+package com.api.service.gateway.config;
+
+/**
+ * Datos de un JWT ya verificado (firma + expiración) que el gateway necesita
+ * reutilizar sin volver a parsear el token.
+ */
+public record VerifiedToken(
+        String subject,
+        String userId,
+        String role,
+        long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
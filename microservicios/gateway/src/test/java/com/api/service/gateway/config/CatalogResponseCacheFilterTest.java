@@ -0,0 +1,143 @@
+package com.api.service.gateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseCacheFilterTest {
+
+    private static final String BODY = "[{\"id\":\"prod-1\",\"nombre\":\"Laptop Gamer\"}]";
+
+    private ResponseCache responseCache;
+    private CatalogResponseCacheFilter filter;
+    private AtomicInteger upstreamCalls;
+    private GatewayFilterChain upstream;
+
+    @BeforeEach
+    void setUp() {
+        EdgeCacheProperties properties = new EdgeCacheProperties();
+        properties.setMaxBytes(BODY.length() * 2L);
+        responseCache = new ResponseCache(properties, new SimpleMeterRegistry());
+        filter = new CatalogResponseCacheFilter(responseCache, properties);
+
+        // Simula al servicio de catálogo respondiendo siempre el mismo JSON
+        upstreamCalls = new AtomicInteger();
+        upstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        };
+    }
+
+    private MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    @Test
+    void repeatedGet_ShouldBeServedFromCache() {
+        MockServerWebExchange first = get("/api/catalogo/prod-1");
+        filter.filter(first, upstream).block();
+
+        MockServerWebExchange second = get("/api/catalogo/prod-1");
+        filter.filter(second, upstream).block();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+        assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+        assertNotNull(second.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void ifNoneMatch_ShouldReturnNotModified() {
+        MockServerWebExchange first = get("/api/catalogo/prod-1");
+        filter.filter(first, upstream).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange revalidation = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/catalogo/prod-1").header(HttpHeaders.IF_NONE_MATCH, etag));
+        filter.filter(revalidation, upstream).block();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void excludedPath_ShouldNeverBeCached() {
+        filter.filter(get("/api/catalogo/export"), upstream).block();
+        MockServerWebExchange second = get("/api/catalogo/export");
+        filter.filter(second, upstream).block();
+
+        assertEquals(2, upstreamCalls.get());
+        assertNull(second.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void write_ShouldInvalidateCache() {
+        filter.filter(get("/api/catalogo/prod-1"), upstream).block();
+
+        MockServerWebExchange write = MockServerWebExchange.from(MockServerHttpRequest.put("/api/catalogo/prod-1"));
+        filter.filter(write, respondWith(HttpStatus.OK)).block();
+
+        filter.filter(get("/api/catalogo/prod-1"), upstream).block();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void rejectedWrite_ShouldNotInvalidateCache() {
+        filter.filter(get("/api/catalogo/prod-1"), upstream).block();
+
+        // Sin token: AuthenticationFilter responde 401 sin llegar al catálogo
+        MockServerWebExchange unauthorized = MockServerWebExchange.from(
+                MockServerHttpRequest.delete("/api/catalogo/prod-1"));
+        filter.filter(unauthorized, respondWith(HttpStatus.UNAUTHORIZED)).block();
+        MockServerWebExchange invalid = MockServerWebExchange.from(MockServerHttpRequest.put("/api/catalogo/prod-1"));
+        filter.filter(invalid, respondWith(HttpStatus.BAD_REQUEST)).block();
+
+        filter.filter(get("/api/catalogo/prod-1"), upstream).block();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void batchLookup_ShouldNotInvalidateCache() {
+        filter.filter(get("/api/catalogo/prod-1"), upstream).block();
+
+        // POST público de solo lectura (ids en el cuerpo)
+        MockServerWebExchange batch = MockServerWebExchange.from(MockServerHttpRequest.post("/api/catalogo/batch"));
+        filter.filter(batch, respondWith(HttpStatus.OK)).block();
+
+        filter.filter(get("/api/catalogo/prod-1"), upstream).block();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    private static GatewayFilterChain respondWith(HttpStatus status) {
+        return exchange -> {
+            exchange.getResponse().setStatusCode(status);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    @Test
+    void cache_ShouldEvictLeastRecentlyUsed_WhenOverByteLimit() {
+        filter.filter(get("/api/catalogo/a"), upstream).block();
+        filter.filter(get("/api/catalogo/b"), upstream).block();
+        filter.filter(get("/api/catalogo/c"), upstream).block();
+
+        assertEquals(2, responseCache.size());
+        assertEquals(1, responseCache.getEvictions());
+    }
+}
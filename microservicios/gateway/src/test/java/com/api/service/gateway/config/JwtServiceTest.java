@@ -0,0 +1,79 @@
+package com.api.service.gateway.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    // Misma clave que application.yaml
+    private static final String SECRET = "bXN1cGVyc2VjcmV0a2V5Zm9ydGhlc3RvcmUxMjM0NVhZWlo=";
+
+    private TokenCache tokenCache;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new TokenCache(2, new SimpleMeterRegistry());
+        jwtService = new JwtService(SECRET, tokenCache);
+    }
+
+    private String token(String subject, long ttlMs) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setClaims(Map.of("userId", "user-1", "role", "CLIENTE"))
+                .setSubject(subject)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + ttlMs))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+    }
+
+    @Test
+    void verify_ShouldReturnClaims_AndCacheResult() {
+        String token = token("test@demo.com", 60_000);
+
+        VerifiedToken first = jwtService.verify(token);
+        VerifiedToken second = jwtService.verify(token);
+
+        assertNotNull(first);
+        assertEquals("test@demo.com", first.subject());
+        assertEquals("user-1", first.userId());
+        assertEquals("CLIENTE", first.role());
+        assertSame(first, second);
+        assertEquals(1, tokenCache.getMisses());
+        assertEquals(1, tokenCache.getHits());
+    }
+
+    @Test
+    void validateToken_ShouldReject_InvalidSignature() {
+        String token = token("test@demo.com", 60_000);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertFalse(jwtService.validateToken(tampered));
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void validateToken_ShouldReject_ExpiredToken() {
+        assertFalse(jwtService.validateToken(token("test@demo.com", -1_000)));
+    }
+
+    @Test
+    void cache_ShouldEvict_WhenFull() {
+        jwtService.verify(token("a@demo.com", 60_000));
+        jwtService.verify(token("b@demo.com", 60_000));
+        jwtService.verify(token("c@demo.com", 60_000));
+
+        assertEquals(2, tokenCache.size());
+        assertEquals(1, tokenCache.getEvictions());
+    }
+}
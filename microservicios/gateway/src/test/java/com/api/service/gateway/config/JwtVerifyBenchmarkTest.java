@@ -0,0 +1,101 @@
+package com.api.service.gateway.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coste de verificar un JWT por petición: con la caché de tokens frente a
+ * parsear y comprobar la firma cada vez, y coste de una escritura con la
+ * caché llena según su tamaño. Registra los valores y comprueba límites
+ * holgados; se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+class JwtVerifyBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtVerifyBenchmarkTest.class);
+
+    // Misma clave que application.yaml
+    private static final String SECRET = "bXN1cGVyc2VjcmV0a2V5Zm9ydGhlc3RvcmUxMjM0NVhZWlo=";
+    private static final int VERIFICATIONS = 200_000;
+    private static final int PUTS = 200_000;
+
+    private static String token(String subject) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setClaims(Map.of("userId", "user-1", "role", "CLIENTE"))
+                .setSubject(subject)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+    }
+
+    // Nanosegundos por verificación, tras calentar
+    private static double nanosPerVerify(JwtService jwtService, String token) {
+        for (int i = 0; i < VERIFICATIONS / 10; i++) {
+            assertNotNull(jwtService.verify(token));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < VERIFICATIONS; i++) {
+            jwtService.verify(token);
+        }
+        return (double) (System.nanoTime() - start) / VERIFICATIONS;
+    }
+
+    @Test
+    void cachedVerify_ShouldBeatParsingEveryTime() {
+        String token = token("test@demo.com");
+        // Con 0 entradas cada token se desaloja al guardarlo: siempre se parsea
+        JwtService uncached = new JwtService(SECRET, new TokenCache(0, new SimpleMeterRegistry()));
+        JwtService cached = new JwtService(SECRET, new TokenCache(10_000, new SimpleMeterRegistry()));
+
+        double uncachedNanos = nanosPerVerify(uncached, token);
+        double cachedNanos = nanosPerVerify(cached, token);
+
+        log.info(String.format("verify: sin caché %,.0f ns, con caché %,.0f ns (x%.1f)",
+                uncachedNanos, cachedNanos, uncachedNanos / cachedNanos));
+        assertTrue(cachedNanos < uncachedNanos, "La caché debería ahorrar el parseo del token");
+    }
+
+    // Nanosegundos por put con la caché ya llena (cada escritura desaloja una entrada)
+    private static double nanosPerPutWhenFull(int maxEntries) {
+        TokenCache cache = new TokenCache(maxEntries, new SimpleMeterRegistry());
+        VerifiedToken token = new VerifiedToken("test@demo.com", "user-1", "CLIENTE", Long.MAX_VALUE);
+        for (int i = 0; i < maxEntries; i++) {
+            cache.put("llenado-" + i, token);
+        }
+        String[] keys = new String[PUTS];
+        for (int i = 0; i < PUTS; i++) {
+            keys[i] = "k-" + i;
+        }
+        long start = System.nanoTime();
+        for (String key : keys) {
+            cache.put(key, token);
+        }
+        return (double) (System.nanoTime() - start) / PUTS;
+    }
+
+    @Test
+    void putWhenFull_ShouldNotDependOnCacheSize() {
+        nanosPerPutWhenFull(1_000); // Calentamiento
+        double small = nanosPerPutWhenFull(1_000);
+        double large = nanosPerPutWhenFull(100_000);
+
+        log.info(String.format("put con la caché llena: 1.000 entradas %,.0f ns, 100.000 entradas %,.0f ns",
+                small, large));
+        // Un desalojo que recorriera la caché sería unas 100 veces más lento con la grande
+        assertTrue(large < small * 10, "Desalojar no debería recorrer la caché");
+    }
+}
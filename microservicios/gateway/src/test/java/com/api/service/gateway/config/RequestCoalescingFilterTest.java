@@ -0,0 +1,78 @@
+package com.api.service.gateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescingFilterTest {
+
+    private static final String BODY = "{\"id\":\"prod-1\",\"stock\":10}";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    // Servicio lento: responde después de 'delay'
+    private GatewayFilterChain slowUpstream(Duration delay) {
+        return exchange -> Mono.delay(delay).then(Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        }));
+    }
+
+    private List<MockServerWebExchange> exchanges(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> MockServerWebExchange.from(MockServerHttpRequest.get("/api/catalogo/prod-1")))
+                .toList();
+    }
+
+    @Test
+    void concurrentIdenticalGets_ShouldReachUpstreamOnce() {
+        RequestCoalescingFilter filter = new RequestCoalescingFilter(
+                true, "/api/catalogo", List.of("/api/catalogo/export"), Duration.ofSeconds(5), new SimpleMeterRegistry());
+        GatewayFilterChain upstream = slowUpstream(Duration.ofMillis(200));
+        List<MockServerWebExchange> exchanges = exchanges(20);
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, upstream))
+                .blockLast();
+
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+        }
+        assertEquals(19, filter.getFollowers());
+        assertEquals(0.95, filter.coalescingRatio(), 0.001);
+    }
+
+    @Test
+    void followers_ShouldFallBackToUpstream_WhenLeaderTimesOut() {
+        RequestCoalescingFilter filter = new RequestCoalescingFilter(
+                true, "/api/catalogo", List.of("/api/catalogo/export"), Duration.ofMillis(50), new SimpleMeterRegistry());
+        GatewayFilterChain upstream = slowUpstream(Duration.ofMillis(300));
+        List<MockServerWebExchange> exchanges = exchanges(3);
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, upstream))
+                .blockLast();
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(2, filter.getTimeouts());
+        exchanges.forEach(exchange -> assertEquals(BODY, exchange.getResponse().getBodyAsString().block()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.api.service.gateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheTest {
+
+    private static VerifiedToken token(String subject) {
+        return new VerifiedToken(subject, "user-1", "CLIENTE", Long.MAX_VALUE);
+    }
+
+    @Test
+    void put_ShouldEvictTheOldestEntry_WhenFull() {
+        TokenCache cache = new TokenCache(2, new SimpleMeterRegistry());
+
+        cache.put("a", token("a"));
+        cache.put("b", token("b"));
+        cache.put("c", token("c"));
+
+        assertNull(cache.get("a", 0));
+        assertNotNull(cache.get("b", 0));
+        assertNotNull(cache.get("c", 0));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void put_ShouldSkipEntriesAlreadyRemoved_AndStayBounded() {
+        TokenCache cache = new TokenCache(2, new SimpleMeterRegistry());
+        cache.put("a", new VerifiedToken("a", "user-1", "CLIENTE", 10));
+        // Caduca y se quita al leerla: su hueco no debe costar otra entrada
+        assertNull(cache.get("a", 20));
+
+        cache.put("b", token("b"));
+        cache.put("c", token("c"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("b", 0));
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("k" + i, token("k" + i));
+        }
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("k99", 0));
+    }
+}
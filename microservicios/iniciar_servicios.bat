@@ -18,6 +18,12 @@ PAUSE
 
 C:
 
+:: --- 0. LIBRERIA COMPARTIDA ---
+ECHO.
+ECHO [0/4] Instalando 'edge-identity' (la usan gateway, catalogo y pedidos)...
+cd C:\Tienda\microservicios\edge-identity
+call mvn clean install -DskipTests
+
 :: --- 1. SERVICIO AUTH ---
 ECHO.
 ECHO [1/4] Iniciando 'auth' (Puerto 8081)...
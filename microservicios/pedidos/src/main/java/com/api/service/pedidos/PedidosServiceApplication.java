@@ -3,20 +3,14 @@ package com.api.service.pedidos;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class PedidosServiceApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(PedidosServiceApplication.class, args);
     }
-
-    // Hacemos que RestTemplate esté disponible para ser inyectado en OrderService
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.api.service.pedidos.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Cliente HTTP interno hacia catálogo: resuelve "http://catalogo" con Eureka
+ * (@LoadBalanced, round robin entre instancias UP) y llama directamente a la
+ * instancia, sin pasar por el gateway. Las conexiones se reutilizan desde un
+ * pool con keep-alive, y cada llamada tiene límite para conectar, para
+ * esperar una conexión libre y para la respuesta.
+ * <p>
+ * El estado del pool se publica en /actuator/metrics
+ * (httpcomponents.httpclient.pool.*, pool=catalogo).
+ */
+@Configuration
+public class CatalogoClientConfig {
+
+    @Value("${app.catalogo.client.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${app.catalogo.client.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${app.catalogo.client.connect-timeout:1s}")
+    private Duration connectTimeout;
+
+    @Value("${app.catalogo.client.pool-timeout:500ms}")
+    private Duration poolTimeout;
+
+    @Value("${app.catalogo.client.response-timeout:3s}")
+    private Duration responseTimeout;
+
+    @Value("${app.catalogo.client.keep-alive:15s}")
+    private Duration keepAlive;
+
+    @Value("${app.catalogo.client.validate-after-inactivity:2s}")
+    private Duration validateAfterInactivity;
+
+    @Bean
+    public PoolingHttpClientConnectionManager catalogoConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(responseTimeout))
+                        // Una conexión que lleva un rato parada se comprueba antes de reutilizarla
+                        .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public CloseableHttpClient catalogoHttpClient(PoolingHttpClientConnectionManager catalogoConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(catalogoConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(responseTimeout))
+                        // Si catálogo no indica Keep-Alive; por debajo del keepAliveTimeout de Tomcat (20s)
+                        .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    // Inyectado en OrderService; las URLs usan el nombre del servicio en Eureka (http://catalogo/...)
+    @Bean
+    @LoadBalanced
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient catalogoHttpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(catalogoHttpClient))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder catalogoPoolMetrics(PoolingHttpClientConnectionManager catalogoConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(catalogoConnectionManager, "catalogo");
+    }
+}
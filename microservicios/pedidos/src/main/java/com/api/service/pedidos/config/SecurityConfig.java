@@ -1,11 +1,15 @@
 package com.api.service.pedidos.config;
 
+import com.api.service.edge.EdgeIdentityFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -15,6 +19,15 @@ public class SecurityConfig {
 
     private final JwtAuthConverter jwtAuthConverter;
 
+    @Value("${app.edge.trusted-headers:false}")
+    private boolean trustedEdgeHeaders;
+
+    @Value("${app.edge.secret:}")
+    private String edgeSecret;
+
+    @Value("${app.edge.max-skew-seconds:60}")
+    private long edgeMaxSkewSeconds;
+
     public SecurityConfig(JwtAuthConverter jwtAuthConverter) {
         this.jwtAuthConverter = jwtAuthConverter;
     }
@@ -25,11 +38,23 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        // En Pedidos, TODO requiere autenticación
+                        // Sondas de salud públicas; métricas (p. ej. el pool hacia catálogo) solo para ADMIN
+                        .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
+                        // En Pedidos, TODO lo demás requiere autenticación
                         .anyRequest().authenticated())
                 .oauth2ResourceServer(oauth2 -> oauth2
                         .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthConverter)));
 
+        // Modo trusted edge: si el gateway ya verificó el token, usamos sus cabeceras firmadas
+        if (trustedEdgeHeaders) {
+            http
+                    .addFilterBefore(new EdgeIdentityFilter(edgeSecret, edgeMaxSkewSeconds, jwtAuthConverter),
+                            BearerTokenAuthenticationFilter.class)
+                    .oauth2ResourceServer(oauth2 -> oauth2
+                            .bearerTokenResolver(EdgeIdentityFilter.bearerTokenResolver()));
+        }
+
         return http.build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.api.service.pedidos.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Token propio de pedidos (rol SERVICIO) para las llamadas a catálogo que no
+ * tienen detrás la petición de un usuario, como las del OutboxRelay. Se
+ * firma con el mismo secreto compartido y se renueva antes de caducar.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private final SecretKey secretKey;
+    private final Duration ttl;
+
+    private String token;
+    private Instant renewAt = Instant.EPOCH;
+
+    public ServiceTokenProvider(@Value("${app.jwt.secret}") String jwtSecret,
+            @Value("${app.pedidos.service-token.ttl:5m}") Duration ttl) {
+        this.secretKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(jwtSecret));
+        this.ttl = ttl;
+    }
+
+    public synchronized String token() {
+        Instant now = Instant.now();
+        if (now.isAfter(renewAt)) {
+            token = Jwts.builder()
+                    .setSubject("pedidos")
+                    .claim("role", "SERVICIO")
+                    .setIssuedAt(Date.from(now))
+                    .setExpiration(Date.from(now.plus(ttl)))
+                    .signWith(secretKey)
+                    .compact();
+            // Margen para que no caduque durante una llamada en curso
+            renewAt = now.plus(ttl.multipliedBy(4).dividedBy(5));
+        }
+        return token;
+    }
+}
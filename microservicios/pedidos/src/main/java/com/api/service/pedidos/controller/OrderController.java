@@ -14,7 +14,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
 @RestController
@@ -42,6 +44,13 @@ public class OrderController {
             // Asignar userId y delegar la lógica de stock
             order.setUserId(userId);
 
+            if (orderService.isAsyncCheckout()) {
+                // Modo asíncrono: el stock se reserva después; el estado se consulta en GET /api/pedidos/{id}
+                Order accepted = orderService.acceptOrder(order);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/pedidos/" + accepted.getId()))
+                        .body(accepted);
+            }
             Order savedOrder = orderService.createOrder(order, jwt.getTokenValue());
             return new ResponseEntity<>(savedOrder, HttpStatus.CREATED);
         } catch (RuntimeException e) {
@@ -61,6 +70,19 @@ public class OrderController {
         return ResponseEntity.ok(orderRepository.findByUserIdOrderByCreatedAtDesc(userId));
     }
 
+    @GetMapping("/{id}")
+    @Operation(summary = "Ver un pedido (p. ej. si ya tiene el stock reservado)")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Order> getOrder(@PathVariable UUID id, @AuthenticationPrincipal Jwt jwt) {
+        String role = jwt.getClaim("role");
+        boolean staff = "ADMIN".equals(role) || "DESPACHADOR".equals(role);
+        String userIdString = jwt.getClaim("userId");
+        return orderRepository.findById(id)
+                .filter(order -> staff || order.getUserId().toString().equals(userIdString))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/todos")
     @Operation(summary = "Ver todos los pedidos (Admin/Despachador)")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_DESPACHADOR')")
@@ -71,11 +93,15 @@ public class OrderController {
     @PutMapping("/{id}/estado")
     @Operation(summary = "Actualizar estado del pedido")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_DESPACHADOR')")
-    public ResponseEntity<Order> updateStatus(@PathVariable UUID id, @RequestParam OrderStatus status) {
+    public ResponseEntity<?> updateStatus(@PathVariable UUID id, @RequestParam OrderStatus status) {
         try {
             Order updatedOrder = orderService.updateOrderStatus(id, status);
             return ResponseEntity.ok(updatedOrder);
-        } catch (RuntimeException e) {
+        } catch (IllegalStateException e) {
+            // La reserva de stock ya no admite el cambio (expiró o ya estaba confirmada)
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (NoSuchElementException e) {
+            // Cualquier otro fallo (p. ej. catálogo caído) no es un 404: sale como error del servidor
             return ResponseEntity.notFound().build();
         }
     }
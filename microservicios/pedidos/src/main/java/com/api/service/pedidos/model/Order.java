@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -16,6 +17,8 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "pedidos")
+// Solo se escriben las columnas cambiadas: el relay de la outbox marca stockReservado con un UPDATE propio
+@DynamicUpdate
 public class Order {
 
     @Id
@@ -43,6 +46,15 @@ public class Order {
     private Double latitud;
     private Double longitud;
 
+    // Reserva de stock en catálogo: se confirma al pagar y se libera al cancelar
+    private String reservaId;
+
+    // Pedidos asíncronos: null mientras la reserva está en la outbox, false si catálogo la rechazó
+    private Boolean stockReservado;
+
+    @Column(length = 1000)
+    private String motivoCancelacion;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     private List<OrderItem> items;
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.api.service.pedidos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Llamada pendiente a catálogo, escrita en la misma transacción que el
+ * pedido (outbox). OutboxRelay la procesa después y la reintenta hasta
+ * que tiene respuesta; los eventos de un mismo pedido van en orden.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "pedidos_outbox", indexes = {
+        @Index(name = "idx_outbox_pendientes", columnList = "estado, siguiente_intento"),
+        @Index(name = "idx_outbox_pedido", columnList = "order_id, creado_en")
+})
+public class OutboxEvent {
+
+    public enum Tipo {
+        RESERVAR, // POST /api/catalogo/reservas con la reservaId del pedido
+        LIBERAR   // PUT /api/catalogo/reservas/{reservaId}/liberar
+    }
+
+    public enum Estado {
+        PENDIENTE,
+        PROCESADO,
+        FALLIDO // Agotó los reintentos
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Tipo tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Estado estado = Estado.PENDIENTE;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime creadoEn = LocalDateTime.now();
+
+    // Antes de esta hora no se procesa: espera entre reintentos o evento ya tomado por un relay
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime siguienteIntento = LocalDateTime.now();
+
+    @Builder.Default
+    private int intentos = 0;
+
+    @Column(length = 1000)
+    private String ultimoError;
+
+    public static OutboxEvent of(UUID orderId, Tipo tipo) {
+        return OutboxEvent.builder().orderId(orderId).tipo(tipo).build();
+    }
+}
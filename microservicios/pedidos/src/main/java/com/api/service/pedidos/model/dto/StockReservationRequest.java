@@ -0,0 +1,11 @@
+package com.api.service.pedidos.model.dto;
+
+import java.util.List;
+
+// Cuerpo de POST /api/catalogo/reservas: todos los productos del pedido en una sola llamada.
+// reservaId lo generamos aquí para que reintentar la llamada no reserve dos veces.
+public record StockReservationRequest(String reservaId, List<Item> items) {
+
+    public record Item(String productId, Integer cantidad) {
+    }
+}
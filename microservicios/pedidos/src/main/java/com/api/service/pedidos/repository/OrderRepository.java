@@ -2,6 +2,9 @@ package com.api.service.pedidos.repository;
 
 import com.api.service.pedidos.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,13 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
     List<Order> findByUserIdOrderByCreatedAtDesc(UUID userId);
 
     List<Order> findAllByOrderByCreatedAtDesc();
+
+    /**
+     * Marca la reserva como hecha sin guardar el pedido entero: si se canceló
+     * mientras el relay llamaba a catálogo, no lo toca. Devuelve las filas cambiadas.
+     */
+    @Modifying
+    @Query(value = "UPDATE pedidos SET stock_reservado = true WHERE id = :id AND status <> 'CANCELADO'",
+            nativeQuery = true)
+    int markStockReserved(@Param("id") UUID id);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.api.service.pedidos.repository;
+
+import com.api.service.pedidos.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    /**
+     * Bloquea los siguientes eventos listos, saltándose los que otra
+     * instancia ya tiene bloqueados. Solo el más antiguo pendiente de cada
+     * pedido, para que reservar y liberar no se crucen.
+     */
+    @Query(value = """
+            SELECT * FROM pedidos_outbox o
+            WHERE o.estado = 'PENDIENTE' AND o.siguiente_intento <= :now
+              AND NOT EXISTS (SELECT 1 FROM pedidos_outbox p
+                              WHERE p.order_id = o.order_id AND p.estado = 'PENDIENTE'
+                                AND p.creado_en < o.creado_en)
+            ORDER BY o.creado_en
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    boolean existsByOrderIdAndTipoAndEstado(UUID orderId, OutboxEvent.Tipo tipo, OutboxEvent.Estado estado);
+
+    long countByEstado(OutboxEvent.Estado estado);
+}
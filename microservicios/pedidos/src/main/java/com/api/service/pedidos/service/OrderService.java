@@ -1,48 +1,74 @@
 package com.api.service.pedidos.service;
 
+import com.api.service.pedidos.config.ServiceTokenProvider;
 import com.api.service.pedidos.model.Order;
 import com.api.service.pedidos.model.OrderStatus;
+import com.api.service.pedidos.model.OutboxEvent;
+import com.api.service.pedidos.model.dto.StockReservationRequest;
 import com.api.service.pedidos.repository.OrderRepository;
+import com.api.service.pedidos.repository.OutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.NoSuchElementException;
 import java.util.UUID;
 
 @Service
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OutboxRepository outboxRepository;
     private final RestTemplate restTemplate; // Mantenemos privado, pero inyectado
+    private final ServiceTokenProvider serviceToken;
 
-    public OrderService(OrderRepository orderRepository, RestTemplate restTemplate) {
+    // "catalogo" es el nombre en Eureka: el RestTemplate @LoadBalanced elige instancia (sin pasar por el gateway)
+    static final String RESERVAS_URL = "http://catalogo/api/catalogo/reservas";
+
+    // Modo asíncrono: el pedido se acepta sin esperar a catálogo y OutboxRelay hace las llamadas
+    @Value("${app.pedidos.checkout.async:false}")
+    private boolean asyncCheckout;
+
+    public OrderService(OrderRepository orderRepository, OutboxRepository outboxRepository,
+            RestTemplate restTemplate, ServiceTokenProvider serviceToken) {
         this.orderRepository = orderRepository;
+        this.outboxRepository = outboxRepository;
         this.restTemplate = restTemplate;
+        this.serviceToken = serviceToken;
+    }
+
+    public boolean isAsyncCheckout() {
+        return asyncCheckout;
     }
 
     @Transactional
     public Order createOrder(Order order, String token) {
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(token);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
+        if (order.getItems() != null && !order.getItems().isEmpty()) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(token);
 
-        String catalogoUrl = "http://localhost:8080/api/catalogo/stock/reducir/";
+            // Una sola llamada para todo el carrito: catálogo aparta el stock (todo o nada)
+            // y lo devuelve solo si el pedido no se paga antes de que caduque la reserva
+            String reservaId = UUID.randomUUID().toString();
+            StockReservationRequest body = new StockReservationRequest(reservaId, order.getItems().stream()
+                    .map(item -> new StockReservationRequest.Item(item.getProductId(), item.getCantidad()))
+                    .toList());
+            HttpEntity<StockReservationRequest> entity = new HttpEntity<>(body, headers);
 
-        if (order.getItems() != null) {
-            for (var item : order.getItems()) {
-                String url = catalogoUrl + item.getProductId() + "?cantidad=" + item.getCantidad();
-
-                try {
-                    // Llamamos al RestTemplate inyectado
-                    restTemplate.exchange(url, HttpMethod.PUT, entity, String.class);
-                } catch (Exception e) {
-                    throw new RuntimeException("Stock insuficiente o error de comunicación: " + e.getMessage());
-                }
+            try {
+                // Llamamos al RestTemplate inyectado
+                restTemplate.exchange(RESERVAS_URL, HttpMethod.POST, entity, String.class);
+            } catch (Exception e) {
+                throw new RuntimeException("Stock insuficiente o error de comunicación: " + e.getMessage());
             }
+            order.setReservaId(reservaId);
+            order.setStockReservado(true);
         }
 
         order.setStatus(OrderStatus.PENDIENTE);
@@ -53,12 +79,78 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    /**
+     * Alta asíncrona: guarda el pedido PENDIENTE y, en la misma transacción,
+     * el evento que reservará su stock. La reservaId se fija ya aquí para que
+     * los reintentos del relay no reserven dos veces.
+     */
+    @Transactional
+    public Order acceptOrder(Order order) {
+        order.setStatus(OrderStatus.PENDIENTE);
+        boolean hasItems = order.getItems() != null && !order.getItems().isEmpty();
+        if (hasItems) {
+            order.setReservaId(UUID.randomUUID().toString());
+            order.getItems().forEach(item -> item.setOrder(order));
+        }
+
+        Order saved = orderRepository.save(order);
+        if (hasItems) {
+            outboxRepository.save(OutboxEvent.of(saved.getId(), OutboxEvent.Tipo.RESERVAR));
+        }
+        return saved;
+    }
+
     @Transactional
     public Order updateOrderStatus(UUID orderId, OrderStatus newStatus) {
         Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Pedido no encontrado"));
+                .orElseThrow(() -> new NoSuchElementException("Pedido no encontrado"));
+
+        if (order.getReservaId() != null && order.getStatus() != newStatus) {
+            // Pasar a ENVIADO o ENTREGADO sin haber pasado por PAGADO también confirma:
+            // si no, la reserva caducaría y devolvería el stock de algo ya enviado
+            if (holdsStock(newStatus) && !holdsStock(order.getStatus())) {
+                if (outboxRepository.existsByOrderIdAndTipoAndEstado(order.getId(),
+                        OutboxEvent.Tipo.RESERVAR, OutboxEvent.Estado.PENDIENTE)) {
+                    throw new IllegalStateException("La reserva de stock del pedido aún se está procesando");
+                }
+                updateReservation(order.getReservaId(), "confirmar");
+            } else if (newStatus == OrderStatus.CANCELADO) {
+                if (asyncCheckout) {
+                    // Se libera después, en orden tras la reserva si aún no se había procesado
+                    outboxRepository.save(OutboxEvent.of(order.getId(), OutboxEvent.Tipo.LIBERAR));
+                } else {
+                    updateReservation(order.getReservaId(), "liberar");
+                }
+            }
+        }
 
         order.setStatus(newStatus);
         return orderRepository.save(order);
     }
-}
\ No newline at end of file
+
+    // Estados en los que la reserva ya debe estar confirmada
+    private static boolean holdsStock(OrderStatus status) {
+        return status == OrderStatus.PAGADO || status == OrderStatus.ENVIADO || status == OrderStatus.ENTREGADO;
+    }
+
+    // Confirma o libera la reserva de stock; un 409 de catálogo significa que
+    // la reserva ya no admite ese cambio (p. ej. expiró antes del pago).
+    // Quien cambia el estado es un ADMIN/DESPACHADOR, no el dueño de la reserva:
+    // catálogo solo deja cerrarla al dueño o al rol SERVICIO, así que va con el token del servicio
+    private void updateReservation(String reservaId, String accion) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(serviceToken.token());
+        try {
+            restTemplate.exchange(RESERVAS_URL + "/" + reservaId + "/" + accion,
+                    HttpMethod.PUT, new HttpEntity<>(headers), String.class);
+        } catch (HttpClientErrorException.Conflict e) {
+            throw new IllegalStateException("No se pudo " + accion + " la reserva de stock: "
+                    + e.getResponseBodyAsString());
+        } catch (HttpClientErrorException.NotFound e) {
+            // Sin reserva en catálogo no hay stock que liberar; confirmarla no es posible
+            if (!"liberar".equals(accion)) {
+                throw new IllegalStateException("La reserva de stock del pedido no existe en catálogo");
+            }
+        }
+    }
+}
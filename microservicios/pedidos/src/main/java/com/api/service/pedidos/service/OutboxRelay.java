@@ -0,0 +1,255 @@
+package com.api.service.pedidos.service;
+
+import com.api.service.pedidos.config.ServiceTokenProvider;
+import com.api.service.pedidos.model.Order;
+import com.api.service.pedidos.model.OrderStatus;
+import com.api.service.pedidos.model.OutboxEvent;
+import com.api.service.pedidos.model.dto.StockReservationRequest;
+import com.api.service.pedidos.repository.OrderRepository;
+import com.api.service.pedidos.repository.OutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Procesa la outbox de pedidos: toma lotes con FOR UPDATE SKIP LOCKED (varias
+ * instancias no se pisan), los marca como tomados durante lease y hace las
+ * llamadas a catálogo fuera de la transacción, en paralelo y con el token de
+ * servicio. Cada resultado se guarda en su propia transacción corta.
+ * <p>
+ * Un fallo de red o un 5xx se reintenta con espera exponencial; la reservaId
+ * hace que reintentar no reserve dos veces. Si se agotan los reintentos de
+ * una reserva, el pedido se cancela y se encola su liberación, por si la
+ * reserva llegó a hacerse y se perdió la respuesta.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final int MAX_TEXT_LENGTH = 1000;
+
+    private enum Resultado {
+        HECHO,
+        RESERVADO,
+        RECHAZADO,
+        REINTENTAR
+    }
+
+    private record Outcome(Resultado resultado, String detalle) {
+    }
+
+    private final OutboxRepository outboxRepository;
+    private final OrderRepository orderRepository;
+    private final RestTemplate restTemplate;
+    private final ServiceTokenProvider serviceToken;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final ExecutorService executor;
+
+    public OutboxRelay(
+            OutboxRepository outboxRepository,
+            OrderRepository orderRepository,
+            RestTemplate restTemplate,
+            ServiceTokenProvider serviceToken,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.pedidos.outbox.batch-size:100}") int batchSize,
+            @Value("${app.pedidos.outbox.lease:30s}") Duration lease,
+            @Value("${app.pedidos.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.pedidos.outbox.backoff:1s}") Duration backoff,
+            @Value("${app.pedidos.outbox.max-backoff:5m}") Duration maxBackoff,
+            @Value("${app.pedidos.outbox.threads:8}") int threads) {
+        this.outboxRepository = outboxRepository;
+        this.orderRepository = orderRepository;
+        this.restTemplate = restTemplate;
+        this.serviceToken = serviceToken;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "outbox-relay-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Procesa lotes hasta vaciar lo que está listo. Devuelve los eventos tratados.
+     */
+    @Scheduled(fixedDelayString = "${app.pedidos.outbox.poll-interval:PT0.2S}")
+    public int relay() {
+        int processed = 0;
+        while (true) {
+            List<OutboxEvent> batch = claim();
+            if (batch.isEmpty()) {
+                return processed;
+            }
+            CompletableFuture.allOf(batch.stream()
+                    .map(event -> CompletableFuture.runAsync(() -> process(event), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+            processed += batch.size();
+            if (batch.size() < batchSize) {
+                return processed;
+            }
+        }
+    }
+
+    // Bloquea el lote y aplaza su siguienteIntento: si esta instancia cae, otra lo retoma al vencer el lease
+    List<OutboxEvent> claim() {
+        return transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> batch = outboxRepository.lockNextBatch(now, batchSize);
+            batch.forEach(event -> event.setSiguienteIntento(now.plus(lease)));
+            return outboxRepository.saveAll(batch);
+        });
+    }
+
+    void process(OutboxEvent event) {
+        Outcome outcome;
+        try {
+            outcome = switch (event.getTipo()) {
+                case RESERVAR -> reserve(event);
+                case LIBERAR -> release(event);
+            };
+        } catch (RuntimeException e) {
+            // Red, timeouts, 5xx, 401...: no sabemos si catálogo lo aplicó, se repite igual
+            outcome = new Outcome(Resultado.REINTENTAR, e.getMessage());
+        }
+        Outcome result = outcome;
+        try {
+            transaction.executeWithoutResult(status -> complete(event, result));
+        } catch (RuntimeException e) {
+            // El evento sigue PENDIENTE: se repetirá al vencer el lease (la llamada es idempotente)
+            log.warn("No se pudo registrar el resultado del evento {}: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    private Outcome reserve(OutboxEvent event) {
+        Order order = orderRepository.findById(event.getOrderId()).orElse(null);
+        if (order == null || order.getStatus() == OrderStatus.CANCELADO) {
+            // Cancelado antes de reservar: no hay nada que apartar
+            return new Outcome(Resultado.HECHO, null);
+        }
+        StockReservationRequest body = new StockReservationRequest(order.getReservaId(), order.getItems().stream()
+                .map(item -> new StockReservationRequest.Item(item.getProductId(), item.getCantidad()))
+                .toList());
+        try {
+            restTemplate.exchange(OrderService.RESERVAS_URL, HttpMethod.POST,
+                    new HttpEntity<>(body, headers()), String.class);
+            return new Outcome(Resultado.RESERVADO, null);
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new Outcome(Resultado.RECHAZADO, e.getResponseBodyAsString());
+        } catch (HttpClientErrorException.Conflict e) {
+            // Un reintento llegó cuando la reserva ya había caducado o se había liberado
+            return new Outcome(Resultado.RECHAZADO, e.getResponseBodyAsString());
+        } catch (HttpServerErrorException.ServiceUnavailable e) {
+            // El intento anterior sigue PENDIENTE en catálogo: puede acabar ACTIVA, así que no se cancela
+            return new Outcome(Resultado.REINTENTAR, e.getResponseBodyAsString());
+        }
+    }
+
+    private Outcome release(OutboxEvent event) {
+        Order order = orderRepository.findById(event.getOrderId()).orElse(null);
+        if (order == null || order.getReservaId() == null) {
+            return new Outcome(Resultado.HECHO, null);
+        }
+        try {
+            restTemplate.exchange(OrderService.RESERVAS_URL + "/" + order.getReservaId() + "/liberar",
+                    HttpMethod.PUT, new HttpEntity<>(headers()), String.class);
+        } catch (HttpClientErrorException.NotFound e) {
+            // La reserva nunca llegó a crearse
+        } catch (HttpClientErrorException.Conflict e) {
+            // Ya estaba confirmada: no se puede devolver el stock
+            log.error("No se pudo liberar la reserva {} del pedido {}: {}", order.getReservaId(),
+                    order.getId(), e.getResponseBodyAsString());
+        }
+        return new Outcome(Resultado.HECHO, null);
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(serviceToken.token());
+        return headers;
+    }
+
+    private void complete(OutboxEvent event, Outcome outcome) {
+        switch (outcome.resultado()) {
+            case HECHO -> event.setEstado(OutboxEvent.Estado.PROCESADO);
+            case RESERVADO -> {
+                // Una cancelación concurrente ya encoló LIBERAR, que va detrás de esta reserva
+                orderRepository.markStockReserved(event.getOrderId());
+                event.setEstado(OutboxEvent.Estado.PROCESADO);
+            }
+            case RECHAZADO -> {
+                cancel(event, "Stock insuficiente o producto no encontrado: " + outcome.detalle());
+                event.setEstado(OutboxEvent.Estado.PROCESADO);
+            }
+            case REINTENTAR -> retry(event, outcome.detalle());
+        }
+        outboxRepository.save(event);
+    }
+
+    private void retry(OutboxEvent event, String error) {
+        int attempts = event.getIntentos() + 1;
+        event.setIntentos(attempts);
+        event.setUltimoError(truncate(error));
+        if (attempts < maxAttempts) {
+            Duration wait = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+            event.setSiguienteIntento(LocalDateTime.now().plus(wait.compareTo(maxBackoff) > 0 ? maxBackoff : wait));
+            return;
+        }
+        event.setEstado(OutboxEvent.Estado.FALLIDO);
+        log.error("Evento {} {} del pedido {} sin éxito tras {} intentos: {}", event.getId(), event.getTipo(),
+                event.getOrderId(), attempts, error);
+        if (event.getTipo() == OutboxEvent.Tipo.RESERVAR) {
+            // Compensación: la reserva pudo hacerse aunque no llegara la respuesta
+            cancel(event, "No se pudo reservar el stock: " + error);
+            outboxRepository.save(OutboxEvent.of(event.getOrderId(), OutboxEvent.Tipo.LIBERAR));
+        }
+        // Si falla LIBERAR, la caducidad de la reserva en catálogo acaba devolviendo el stock
+    }
+
+    private void cancel(OutboxEvent event, String motivo) {
+        orderRepository.findById(event.getOrderId()).ifPresent(order -> {
+            order.setStatus(OrderStatus.CANCELADO);
+            order.setStockReservado(false);
+            order.setMotivoCancelacion(truncate(motivo));
+            orderRepository.save(order);
+        });
+    }
+
+    private static String truncate(String text) {
+        return text != null && text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
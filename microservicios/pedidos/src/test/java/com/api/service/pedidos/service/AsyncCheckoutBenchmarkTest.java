@@ -0,0 +1,182 @@
+package com.api.service.pedidos.service;
+
+import com.api.service.pedidos.model.Order;
+import com.api.service.pedidos.model.OrderItem;
+import com.api.service.pedidos.model.OutboxEvent;
+import com.api.service.pedidos.repository.OrderRepository;
+import com.api.service.pedidos.repository.OutboxRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ráfaga de pedidos contra un catálogo cargado (20 ms por reserva y solo 8
+ * peticiones a la vez): alta síncrona (el hilo espera la reserva) frente a
+ * la asíncrona con outbox (202 y el relay reserva después). Informa pedidos/s
+ * y p99 de la respuesta, y para el modo asíncrono cuánto tarda el relay en
+ * dejar todo reservado. Usa un PostgreSQL real (se omite si no hay Docker).
+ * Se ejecuta con -Pbenchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.pedidos.outbox.poll-interval=PT0.05S"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class AsyncCheckoutBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncCheckoutBenchmarkTest.class);
+
+    private static final int CLIENTS = 64; // Hilos de Tomcat ocupados por la ráfaga
+    private static final int ORDERS = 2_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static HttpServer catalogo = startCatalogo();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.cloud.discovery.client.simple.instances.catalogo[0].uri",
+                () -> "http://127.0.0.1:" + catalogo.getAddress().getPort());
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    private static HttpServer startCatalogo() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+            server.createContext("/api/catalogo/reservas", exchange -> {
+                exchange.getRequestBody().readAllBytes();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = "{\"estado\":\"ACTIVA\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(201, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterAll
+    static void stopCatalogo() {
+        catalogo.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void burst_SyncVsOutbox() throws Exception {
+        Result sync = burst(() -> orderService.createOrder(order(), "token"));
+        Result async = burst(() -> orderService.acceptOrder(order()));
+
+        // El relay programado trabaja en segundo plano: se espera a que la outbox quede vacía
+        long start = System.nanoTime();
+        while (outboxRepository.countByEstado(OutboxEvent.Estado.PENDIENTE) > 0) {
+            Thread.sleep(50);
+        }
+        double drainSeconds = async.seconds() + (System.nanoTime() - start) / 1e9;
+
+        log.info(String.format("Ráfaga de %d pedidos con %d clientes: síncrono %.0f pedidos/s (p99 %.1f ms); "
+                        + "outbox %.0f pedidos/s aceptados (p99 %.1f ms), todo reservado en %.1f s (%.0f pedidos/s)",
+                ORDERS, CLIENTS, ORDERS / sync.seconds(), sync.p99Millis(), ORDERS / async.seconds(),
+                async.p99Millis(), drainSeconds, ORDERS / drainSeconds));
+
+        assertTrue(async.p99Millis() < sync.p99Millis(), "Aceptar con outbox no debería esperar a la reserva");
+        assertEquals(0, outboxRepository.countByEstado(OutboxEvent.Estado.FALLIDO));
+        assertEquals(2L * ORDERS, orderRepository.findAll().stream()
+                .filter(order -> Boolean.TRUE.equals(order.getStockReservado()))
+                .count());
+    }
+
+    private record Result(double seconds, double p99Millis) {
+    }
+
+    private Result burst(Callable<Order> checkout) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long[] latencies = new long[ORDERS];
+            List<Future<?>> results = new ArrayList<>(ORDERS);
+            long start = System.nanoTime();
+            for (int i = 0; i < ORDERS; i++) {
+                int n = i;
+                results.add(clients.submit(() -> {
+                    long begin = System.nanoTime();
+                    checkout.call();
+                    latencies[n] = System.nanoTime() - begin;
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            return new Result(seconds, latencies[(int) Math.ceil(ORDERS * 0.99) - 1] / 1e6);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static Order order() {
+        return Order.builder().userId(UUID.randomUUID()).precioTotal(30.0).direccionEnvio("Calle 1")
+                .items(new ArrayList<>(List.of(
+                        OrderItem.builder().productId("prod-1").nombre("Mouse").cantidad(2).precio(10.0).build(),
+                        OrderItem.builder().productId("prod-2").nombre("Cable").cantidad(1).precio(10.0).build())))
+                .build();
+    }
+}
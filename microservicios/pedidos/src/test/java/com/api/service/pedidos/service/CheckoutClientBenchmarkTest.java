@@ -0,0 +1,205 @@
+package com.api.service.pedidos.service;
+
+import com.api.service.pedidos.config.CatalogoClientConfig;
+import com.api.service.pedidos.config.ServiceTokenProvider;
+import com.api.service.pedidos.model.Order;
+import com.api.service.pedidos.model.OrderItem;
+import com.api.service.pedidos.repository.OrderRepository;
+import com.api.service.pedidos.repository.OutboxRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checkouts por segundo (una reserva de stock por pedido) con el cliente
+ * anterior —new RestTemplate() contra el gateway, que reenvía a catálogo—
+ * frente al cliente con pool que llama directamente a la instancia. Catálogo
+ * y gateway se simulan con servidores HTTP locales; catálogo tarda 2 ms por
+ * reserva. Registra los valores y comprueba límites holgados; se ejecuta
+ * con -Pbenchmark.
+ */
+@Tag("benchmark")
+class CheckoutClientBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutClientBenchmarkTest.class);
+
+    private static final int CLIENTS = 32;
+    private static final int CHECKOUTS = 3_000;
+
+    private HttpServer catalogo;
+    private HttpServer gateway;
+    private ExecutorService serverThreads;
+    private HttpClient gatewayClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverThreads = Executors.newFixedThreadPool(2 * CLIENTS);
+
+        catalogo = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        catalogo.createContext("/api/catalogo/reservas", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            sleep(2);
+            respond(exchange, 201, "{\"estado\":\"ACTIVA\"}");
+        });
+        catalogo.setExecutor(serverThreads);
+        catalogo.start();
+
+        // El gateway reenvía cada petición a catálogo con su propio pool (como el de Netty)
+        gatewayClient = HttpClient.newBuilder().executor(serverThreads).build();
+        gateway = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        gateway.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            java.net.http.HttpRequest forward = java.net.http.HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + catalogo.getAddress().getPort() + exchange.getRequestURI()))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", exchange.getRequestHeaders().getFirst("Authorization"))
+                    .method(exchange.getRequestMethod(), java.net.http.HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            try {
+                HttpResponse<String> response = gatewayClient.send(forward, HttpResponse.BodyHandlers.ofString());
+                respond(exchange, response.statusCode(), response.body());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 502, "");
+            }
+        });
+        gateway.setExecutor(serverThreads);
+        gateway.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gateway.stop(0);
+        catalogo.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void checkoutThroughput_GatewayHopVsPooledDirectClient() throws Exception {
+        RestTemplate legacy = new RestTemplate();
+        legacy.getInterceptors().add(resolveCatalogoTo(gateway));
+
+        CatalogoClientConfig config = new CatalogoClientConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", 100);
+        ReflectionTestUtils.setField(config, "maxPerRoute", 50);
+        ReflectionTestUtils.setField(config, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "poolTimeout", Duration.ofMillis(500));
+        ReflectionTestUtils.setField(config, "responseTimeout", Duration.ofSeconds(3));
+        ReflectionTestUtils.setField(config, "keepAlive", Duration.ofSeconds(15));
+        ReflectionTestUtils.setField(config, "validateAfterInactivity", Duration.ofSeconds(2));
+        PoolingHttpClientConnectionManager manager = config.catalogoConnectionManager();
+        try (CloseableHttpClient httpClient = config.catalogoHttpClient(manager)) {
+            RestTemplate pooled = config.restTemplate(new RestTemplateBuilder(), httpClient);
+            // En producción esto lo hace el LoadBalancerInterceptor de @LoadBalanced
+            pooled.getInterceptors().add(resolveCatalogoTo(catalogo));
+
+            run(legacy, CHECKOUTS / 10);
+            double before = run(legacy, CHECKOUTS);
+            run(pooled, CHECKOUTS / 10);
+            double after = run(pooled, CHECKOUTS);
+
+            int open = manager.getTotalStats().getAvailable() + manager.getTotalStats().getLeased();
+            log.info(String.format("Checkout con %d clientes concurrentes: vía gateway sin pool %.0f pedidos/s, "
+                            + "directo con pool %.0f pedidos/s (x%.1f); conexiones abiertas en el pool: %d",
+                    CLIENTS, before, after, after / before, open));
+
+            assertTrue(after > before, "El cliente con pool debería atender más pedidos por segundo");
+            // Las conexiones se reutilizan: nunca más de una por cliente concurrente
+            assertTrue(open <= CLIENTS, "El pool no debería abrir más conexiones que clientes");
+        }
+    }
+
+    // Pedidos por segundo
+    private double run(RestTemplate restTemplate, int checkouts) throws Exception {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        OrderService orderService = new OrderService(orderRepository, mock(OutboxRepository.class), restTemplate,
+                mock(ServiceTokenProvider.class));
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Order>> results = new ArrayList<>(checkouts);
+            for (int i = 0; i < checkouts; i++) {
+                results.add(clients.submit(() -> orderService.createOrder(order(), "token")));
+            }
+            // get() lanza la excepción si algún pedido no pudo reservar
+            for (Future<Order> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return checkouts / seconds;
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static Order order() {
+        return Order.builder().userId(UUID.randomUUID()).precioTotal(30.0).direccionEnvio("Calle 1")
+                .items(List.of(
+                        OrderItem.builder().productId("prod-1").nombre("Mouse").cantidad(2).precio(10.0).build(),
+                        OrderItem.builder().productId("prod-2").nombre("Cable").cantidad(1).precio(10.0).build()))
+                .build();
+    }
+
+    // Sustituye el host "catalogo" por el servidor local
+    private static ClientHttpRequestInterceptor resolveCatalogoTo(HttpServer server) {
+        return (request, body, execution) -> execution.execute(new HttpRequestWrapper(request) {
+            @Override
+            public URI getURI() {
+                return UriComponentsBuilder.fromUri(request.getURI())
+                        .host("127.0.0.1").port(server.getAddress().getPort()).build(true).toUri();
+            }
+        }, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.api.service.pedidos.service;
 
+import com.api.service.pedidos.config.ServiceTokenProvider;
 import com.api.service.pedidos.model.Order;
 import com.api.service.pedidos.model.OrderItem;
 import com.api.service.pedidos.model.OrderStatus;
+import com.api.service.pedidos.model.OutboxEvent;
+import com.api.service.pedidos.model.dto.StockReservationRequest;
 import com.api.service.pedidos.repository.OrderRepository;
+import com.api.service.pedidos.repository.OutboxRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,12 +20,14 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -35,9 +42,15 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OutboxRepository outboxRepository;
+
     @Mock
     private RestTemplate restTemplate; // Mock del cliente HTTP
 
+    @Mock
+    private ServiceTokenProvider serviceToken;
+
     @InjectMocks
     private OrderService orderService; // Inyecta OrderRepository y RestTemplate
 
@@ -55,7 +68,7 @@ class OrderServiceTest {
         // Aquí es donde simulamos la llamada al catálogo
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.PUT),
+                eq(HttpMethod.POST),
                 any(HttpEntity.class),
                 eq(String.class))).thenReturn(new ResponseEntity<>("Stock actualizado", HttpStatus.OK));
 
@@ -71,12 +84,41 @@ class OrderServiceTest {
 
         // Verificación de la llamada
         verify(restTemplate, times(1)).exchange(
-                contains("/stock/reducir/prod-xyz?cantidad=1"),
-                eq(HttpMethod.PUT),
+                endsWith("/api/catalogo/reservas"),
+                eq(HttpMethod.POST),
                 any(HttpEntity.class),
                 eq(String.class));
     }
 
+    @Test
+    void createOrder_ShouldReduceStockOfAllItems_InSingleCall() {
+        // 1. Arrange: carrito con 3 productos
+        List<OrderItem> items = List.of(
+                OrderItem.builder().productId("prod-1").nombre("Laptop").cantidad(1).precio(100.0).build(),
+                OrderItem.builder().productId("prod-2").nombre("Mouse").cantidad(2).precio(10.0).build(),
+                OrderItem.builder().productId("prod-3").nombre("Teclado").cantidad(1).precio(20.0).build());
+        Order newOrder = Order.builder().userId(USER_ID).precioTotal(140.0).direccionEnvio("Test Address")
+                .items(items).build();
+
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(new ResponseEntity<>("Stock actualizado", HttpStatus.OK));
+        when(orderRepository.save(any(Order.class))).thenReturn(newOrder);
+
+        // 2. Act
+        orderService.createOrder(newOrder, VALID_TOKEN);
+
+        // 3. Assert: una sola llamada con los 3 productos en el cuerpo
+        ArgumentCaptor<HttpEntity<StockReservationRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.POST), captor.capture(), eq(String.class));
+
+        StockReservationRequest body = captor.getValue().getBody();
+        assertNotNull(body);
+        assertEquals(3, body.items().size());
+        assertEquals(new StockReservationRequest.Item("prod-2", 2), body.items().get(1));
+        assertEquals(body.reservaId(), newOrder.getReservaId());
+        assertEquals("Bearer " + VALID_TOKEN, captor.getValue().getHeaders().getFirst("Authorization"));
+    }
+
     @Test
     void createOrder_ShouldThrowException_WhenCatalogReturnsInsufficientStock() {
         // 1. Arrange
@@ -88,7 +130,7 @@ class OrderServiceTest {
         // negocio
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.PUT),
+                eq(HttpMethod.POST),
                 any(HttpEntity.class),
                 eq(String.class)))
                 .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Stock insuficiente"));
@@ -117,7 +159,7 @@ class OrderServiceTest {
         // Usamos ResourceAccessException para simular "Connection refused: connect"
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.PUT),
+                eq(HttpMethod.POST),
                 any(HttpEntity.class),
                 eq(String.class))).thenThrow(new ResourceAccessException("Connection refused: connect"));
 
@@ -158,4 +200,156 @@ class OrderServiceTest {
         assertEquals(OrderStatus.ENVIADO, updatedOrder.getStatus());
         verify(orderRepository, times(1)).save(existingOrder);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateOrderStatus_ShouldThrowNotFound_OnlyWhenOrderDoesNotExist() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.ENVIADO));
+    }
+
+    @Test
+    void updateOrderStatus_ShouldConfirmReservation_WhenOrderIsPaid() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
+
+        when(serviceToken.token()).thenReturn("service.jwt.token");
+
+        orderService.updateOrderStatus(orderId, OrderStatus.PAGADO);
+
+        // El ADMIN/DESPACHADOR no es el dueño de la reserva: se confirma con el token del servicio
+        verify(restTemplate, times(1)).exchange(
+                endsWith("/reservas/reserva-1/confirmar"),
+                eq(HttpMethod.PUT),
+                argThat(entity -> "Bearer service.jwt.token".equals(
+                        entity.getHeaders().getFirst("Authorization"))),
+                eq(String.class));
+    }
+
+    @Test
+    void updateOrderStatus_ShouldThrowAndNotSave_WhenReservationExpired() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", null,
+                        "La reserva ya fue liberada o expiró".getBytes(), null));
+
+        assertThrows(IllegalStateException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.PAGADO));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    // --- Modo asíncrono (outbox) ---
+
+    @Test
+    void acceptOrder_ShouldSaveOrderAndOutboxEvent_WithoutCallingCatalog() {
+        OrderItem item = OrderItem.builder().productId("prod-1").nombre("Laptop").cantidad(1).precio(100.0).build();
+        Order newOrder = Order.builder().userId(USER_ID).precioTotal(100.0).direccionEnvio("Test Address")
+                .items(List.of(item)).build();
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(orderId);
+            return order;
+        });
+
+        Order accepted = orderService.acceptOrder(newOrder);
+
+        assertEquals(OrderStatus.PENDIENTE, accepted.getStatus());
+        assertNotNull(accepted.getReservaId());
+        assertNull(accepted.getStockReservado());
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals(orderId, captor.getValue().getOrderId());
+        assertEquals(OutboxEvent.Tipo.RESERVAR, captor.getValue().getTipo());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void updateOrderStatus_ShouldQueueRelease_WhenCancelledInAsyncMode() {
+        ReflectionTestUtils.setField(orderService, "asyncCheckout", true);
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
+
+        orderService.updateOrderStatus(orderId, OrderStatus.CANCELADO);
+
+        verify(outboxRepository).save(argThat(event -> event.getTipo() == OutboxEvent.Tipo.LIBERAR
+                && event.getOrderId().equals(orderId)));
+        verifyNoInteractions(restTemplate);
+        assertEquals(OrderStatus.CANCELADO, existingOrder.getStatus());
+    }
+
+    @Test
+    void updateOrderStatus_ShouldRefusePayment_WhileReservationIsQueued() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(outboxRepository.existsByOrderIdAndTipoAndEstado(orderId, OutboxEvent.Tipo.RESERVAR,
+                OutboxEvent.Estado.PENDIENTE)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.PAGADO));
+        verifyNoInteractions(restTemplate);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void updateOrderStatus_ShouldConfirmReservation_WhenShippedWithoutPaymentStep() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
+        when(serviceToken.token()).thenReturn("service.jwt.token");
+
+        orderService.updateOrderStatus(orderId, OrderStatus.ENVIADO);
+
+        verify(restTemplate, times(1)).exchange(endsWith("/reservas/reserva-1/confirmar"), eq(HttpMethod.PUT),
+                any(HttpEntity.class), eq(String.class));
+        assertEquals(OrderStatus.ENVIADO, existingOrder.getStatus());
+    }
+
+    @Test
+    void updateOrderStatus_ShouldNotConfirmAgain_WhenPaidOrderIsShipped() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PAGADO)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
+
+        orderService.updateOrderStatus(orderId, OrderStatus.ENVIADO);
+
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void updateOrderStatus_ShouldCancel_WhenCatalogNoLongerHasTheReservation() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = Order.builder().id(orderId).userId(USER_ID).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1").build();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
+        when(serviceToken.token()).thenReturn("service.jwt.token");
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        orderService.updateOrderStatus(orderId, OrderStatus.CANCELADO);
+
+        assertEquals(OrderStatus.CANCELADO, existingOrder.getStatus());
+        // Confirmar una reserva que no existe no es un 500: es un conflicto de estado
+        existingOrder.setStatus(OrderStatus.PENDIENTE);
+        assertThrows(IllegalStateException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.PAGADO));
+    }
+}
@@ -0,0 +1,196 @@
+package com.api.service.pedidos.service;
+
+import com.api.service.pedidos.config.ServiceTokenProvider;
+import com.api.service.pedidos.model.Order;
+import com.api.service.pedidos.model.OrderItem;
+import com.api.service.pedidos.model.OrderStatus;
+import com.api.service.pedidos.model.OutboxEvent;
+import com.api.service.pedidos.model.dto.StockReservationRequest;
+import com.api.service.pedidos.repository.OrderRepository;
+import com.api.service.pedidos.repository.OutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxRelayTest {
+
+    private static final String SECRET = "bXN1cGVyc2VjcmV0a2V5Zm9ydGhlc3RvcmUxMjM0NVhZWlo=";
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay relay;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        relay = new OutboxRelay(outboxRepository, orderRepository, restTemplate,
+                new ServiceTokenProvider(SECRET, Duration.ofMinutes(5)), transactionManager,
+                100, Duration.ofSeconds(30), 3, Duration.ofSeconds(1), Duration.ofMinutes(5), 2);
+
+        order = Order.builder().id(UUID.randomUUID()).userId(UUID.randomUUID()).status(OrderStatus.PENDIENTE)
+                .reservaId("reserva-1")
+                .items(List.of(OrderItem.builder().productId("prod-1").nombre("Mouse").cantidad(2).precio(10.0).build()))
+                .build();
+        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+    }
+
+    private OutboxEvent queue(OutboxEvent.Tipo tipo, int intentos) {
+        OutboxEvent event = OutboxEvent.of(order.getId(), tipo);
+        event.setId(UUID.randomUUID());
+        event.setIntentos(intentos);
+        when(outboxRepository.lockNextBatch(any(LocalDateTime.class), eq(100)))
+                .thenReturn(List.of(event))
+                .thenReturn(List.of());
+        return event;
+    }
+
+    @Test
+    void relay_ShouldReserveWithServiceToken_AndMarkTheOrder() {
+        OutboxEvent event = queue(OutboxEvent.Tipo.RESERVAR, 0);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(new ResponseEntity<>("{}", HttpStatus.CREATED));
+
+        assertEquals(1, relay.relay());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<HttpEntity<StockReservationRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).exchange(eq("http://catalogo/api/catalogo/reservas"), eq(HttpMethod.POST),
+                captor.capture(), eq(String.class));
+        assertEquals("reserva-1", captor.getValue().getBody().reservaId());
+        assertTrue(captor.getValue().getHeaders().getFirst("Authorization").startsWith("Bearer "));
+        assertEquals(OutboxEvent.Estado.PROCESADO, event.getEstado());
+        // Update condicionado: no se guarda el pedido leído antes de llamar a catálogo
+        verify(orderRepository).markStockReserved(order.getId());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void rejectedReservation_ShouldCancelTheOrder() {
+        OutboxEvent event = queue(OutboxEvent.Tipo.RESERVAR, 0);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null,
+                        "prod-1".getBytes(), null));
+
+        relay.relay();
+
+        assertEquals(OutboxEvent.Estado.PROCESADO, event.getEstado());
+        assertEquals(OrderStatus.CANCELADO, order.getStatus());
+        assertFalse(order.getStockReservado());
+        assertTrue(order.getMotivoCancelacion().contains("prod-1"));
+    }
+
+    @Test
+    void reservationStillInProgress_ShouldBeRetried_NotCancelled() {
+        OutboxEvent event = queue(OutboxEvent.Tipo.RESERVAR, 0);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                        null, "La reserva aún se está aplicando, reintente".getBytes(), null));
+
+        relay.relay();
+
+        assertEquals(OutboxEvent.Estado.PENDIENTE, event.getEstado());
+        assertEquals(1, event.getIntentos());
+        assertEquals(OrderStatus.PENDIENTE, order.getStatus());
+    }
+
+    @Test
+    void transientFailure_ShouldBackOffAndRetry() {
+        OutboxEvent event = queue(OutboxEvent.Tipo.RESERVAR, 1);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        relay.relay();
+
+        assertEquals(OutboxEvent.Estado.PENDIENTE, event.getEstado());
+        assertEquals(2, event.getIntentos());
+        assertEquals("Read timed out", event.getUltimoError());
+        // Segundo fallo: 2 s de espera
+        assertTrue(event.getSiguienteIntento().isAfter(LocalDateTime.now().plusSeconds(1)));
+        assertEquals(OrderStatus.PENDIENTE, order.getStatus());
+    }
+
+    @Test
+    void exhaustedRetries_ShouldCancelAndQueueRelease() {
+        OutboxEvent event = queue(OutboxEvent.Tipo.RESERVAR, 2);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        relay.relay();
+
+        assertEquals(OutboxEvent.Estado.FALLIDO, event.getEstado());
+        assertEquals(OrderStatus.CANCELADO, order.getStatus());
+        // Compensación: la reserva pudo hacerse aunque la respuesta no llegara
+        verify(outboxRepository).save(argThat(queued -> queued.getTipo() == OutboxEvent.Tipo.LIBERAR
+                && queued.getOrderId().equals(order.getId())
+                && queued.getEstado() == OutboxEvent.Estado.PENDIENTE));
+    }
+
+    @Test
+    void release_ShouldTreatAMissingReservationAsDone() {
+        OutboxEvent event = queue(OutboxEvent.Tipo.LIBERAR, 0);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        relay.relay();
+
+        verify(restTemplate).exchange(eq("http://catalogo/api/catalogo/reservas/reserva-1/liberar"),
+                eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class));
+        assertEquals(OutboxEvent.Estado.PROCESADO, event.getEstado());
+    }
+
+    @Test
+    void orderCancelledBeforeTheRelay_ShouldNotReserve() {
+        order.setStatus(OrderStatus.CANCELADO);
+        OutboxEvent event = queue(OutboxEvent.Tipo.RESERVAR, 0);
+
+        relay.relay();
+
+        verifyNoInteractions(restTemplate);
+        assertEquals(OutboxEvent.Estado.PROCESADO, event.getEstado());
+    }
+}